@@ -0,0 +1,72 @@
+package javaloginmodule.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.model.AuditEvent;
+import javaloginmodule.repository.AuditEventRepository;
+import javaloginmodule.service.AuditLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// What auditing costs a request thread, against a real SQLite writer. With "drop" the request never waits,
+// and the dropped count shows how far the writer falls behind; with "block" the score includes that wait.
+//
+//     mvn -Pjmh -DskipTests verify -Djmh.args="AuditLog -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AuditLogBenchmark {
+
+    @Param({"drop", "block"})
+    private String overflowPolicy;
+
+    private Path databaseFile;
+    private HikariDataSource dataSource;
+    private AuditLog auditLog;
+
+    @Setup
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("audit-benchmark", ".db");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile + "?journal_mode=WAL&synchronous=NORMAL");
+        dataSource.setMaximumPoolSize(1);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        auditLog = new AuditLog(true, 8192, 512, overflowPolicy, 10, new AuditEventRepository(new JdbcTemplate(dataSource)));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        auditLog.close();
+        System.out.printf("  written %d, dropped %d, batches %d%n",
+                auditLog.getWrittenCount(), auditLog.getDroppedCount(), auditLog.getBatchCount());
+        dataSource.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Benchmark
+    public void record() {
+        auditLog.record(AuditEvent.Type.LOGIN, AuditEvent.Outcome.DENIED, "sam", "203.0.113.7");
+    }
+}
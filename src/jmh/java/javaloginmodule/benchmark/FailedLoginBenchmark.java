@@ -0,0 +1,110 @@
+package javaloginmodule.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.model.AuthOutcome;
+import javaloginmodule.model.UserRequest;
+import javaloginmodule.repository.DatabaseAccess;
+import javaloginmodule.repository.RefreshTokenRepository;
+import javaloginmodule.repository.UserCache;
+import javaloginmodule.repository.UserRepository;
+import javaloginmodule.repository.UsernameBloomFilter;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.security.JWTTokenService;
+import javaloginmodule.security.LoginThrottle;
+import javaloginmodule.security.PasswordHashingExecutor;
+import javaloginmodule.service.AuthService;
+import javaloginmodule.service.RefreshTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Logins for usernames that don't exist, as in credential stuffing. Compares the throwing authenticate()
+// with the attemptLogin() outcome; run with -prof gc to see the allocation per rejected attempt.
+//
+//     mvn -Pjmh -DskipTests verify -Djmh.args="FailedLogin -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FailedLoginBenchmark {
+
+    private static final int UNKNOWN_USERS = 1024;
+
+    // With the filter on, unknown usernames are answered without a query
+    @Param({"true", "false"})
+    private boolean usernameFilter;
+
+    private final UserRequest[] attempts = new UserRequest[UNKNOWN_USERS];
+    private HikariDataSource dataSource;
+    private PasswordHashingExecutor hashingExecutor;
+    private AuthService authService;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:failed-login;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-test.sql")).execute(dataSource);
+
+        UsernameBloomFilter filter = new UsernameBloomFilter(usernameFilter, 1024, 0.01);
+        filter.put("sam");
+        filter.markReady();
+
+        hashingExecutor = new PasswordHashingExecutor(0, 1024);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        JWTTokenService tokenService = new JWTTokenService("benchmark-secret");
+        RefreshTokenService refreshTokens = new RefreshTokenService(new RefreshTokenRepository(jdbcTemplate), tokenService, Duration.ofDays(30));
+        UserRepository repository = new UserRepository(DatabaseAccess.direct(jdbcTemplate), UserCache.disabled(), filter);
+        authService = new AuthService(repository, new BCryptPasswordHasher(10), tokenService, hashingExecutor,
+                LoginThrottle.disabled(), refreshTokens, Metrics.globalRegistry);
+        authService.register(new UserRequest("sam", "correct-password"));
+
+        for (int i = 0; i < UNKNOWN_USERS; i++) {
+            attempts[i] = new UserRequest("unknown-" + i, "guess");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object throwingLogin() {
+        try {
+            return authService.authenticate(nextAttempt(), "203.0.113.7");
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public AuthOutcome outcomeLogin() {
+        return authService.attemptLogin(nextAttempt(), "203.0.113.7");
+    }
+
+    private UserRequest nextAttempt() {
+        return attempts[ThreadLocalRandom.current().nextInt(UNKNOWN_USERS)];
+    }
+}
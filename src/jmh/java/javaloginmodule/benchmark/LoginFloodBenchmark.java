@@ -0,0 +1,83 @@
+package javaloginmodule.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.model.UserRequest;
+import javaloginmodule.repository.RefreshTokenRepository;
+import javaloginmodule.repository.UserRepository;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.security.JWTTokenService;
+import javaloginmodule.security.LoginThrottle;
+import javaloginmodule.security.PasswordHashingExecutor;
+import javaloginmodule.service.AuthService;
+import javaloginmodule.service.RefreshTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Wrong-password flood against one account from one address. With the throttle on, the cost per
+// attempt should stay in the microseconds after the first few, instead of one BCrypt verify each.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoginFloodBenchmark {
+
+    @Param({"true", "false"})
+    private boolean throttled;
+
+    private final UserRequest attempt = new UserRequest("victim", "wrong-password");
+    private HikariDataSource dataSource;
+    private PasswordHashingExecutor hashingExecutor;
+    private AuthService authService;
+
+    @Setup
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:flood;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-test.sql")).execute(dataSource);
+
+        hashingExecutor = new PasswordHashingExecutor(0, 1024);
+        LoginThrottle throttle = new LoginThrottle(throttled, 65536, 10, 10, 100, 300);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        JWTTokenService tokenService = new JWTTokenService("benchmark-secret");
+        RefreshTokenService refreshTokens = new RefreshTokenService(new RefreshTokenRepository(jdbcTemplate), tokenService, Duration.ofDays(30));
+        authService = new AuthService(new UserRepository(jdbcTemplate), new BCryptPasswordHasher(10),
+                tokenService, hashingExecutor, throttle, refreshTokens, Metrics.globalRegistry);
+        authService.register(new UserRequest("victim", "correct-password"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.shutdown();
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Object floodedLogin() {
+        try {
+            return authService.authenticate(attempt, "203.0.113.7");
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
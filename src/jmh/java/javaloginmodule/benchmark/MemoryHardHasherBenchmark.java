@@ -0,0 +1,79 @@
+package javaloginmodule.benchmark;
+
+import javaloginmodule.security.Argon2PasswordHasher;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.security.PasswordHasher;
+import javaloginmodule.security.ScryptPasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Login verifies per second for each algorithm setting, with as many concurrent verifies as the hashing
+// pool allows (one per core by default; match it with -t). Peak heap per iteration is printed after
+// each iteration; run with -prof gc for the allocation per verify.
+//
+//     mvn -Pjmh -DskipTests verify -Djmh.args="MemoryHardHasher -t 4 -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@Threads(4)
+public class MemoryHardHasherBenchmark {
+
+    @Param({"bcrypt:10", "argon2id:19456:2:1", "argon2id:65536:1:1", "scrypt:15:8:1", "scrypt:16:8:1"})
+    private String setting;
+
+    private PasswordHasher hasher;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        String[] parts = setting.split(":");
+        hasher = switch (parts[0]) {
+            case "bcrypt" -> new BCryptPasswordHasher(Integer.parseInt(parts[1]));
+            case "argon2id" -> new Argon2PasswordHasher(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            case "scrypt" -> new ScryptPasswordHasher(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+            default -> throw new IllegalArgumentException("Unknown setting: " + setting);
+        };
+        storedHash = hasher.hash("password123");
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap() {
+        long peak = heapPools().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("  peak heap %d MiB%n", peak >> 20);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify("password123", storedHash);
+    }
+
+    private static Stream<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(pool -> pool.getType() == MemoryType.HEAP);
+    }
+}
@@ -0,0 +1,47 @@
+package javaloginmodule.benchmark;
+
+import javaloginmodule.security.BCryptPasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    @Param({"10", "11", "12"})
+    private int strength;
+
+    private BCryptPasswordHasher hasher;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        hasher = new BCryptPasswordHasher(strength);
+        storedHash = hasher.hash("password123");
+    }
+
+    @Benchmark
+    public String hash() {
+        return hasher.hash("password123");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify("password123", storedHash);
+    }
+}
@@ -0,0 +1,101 @@
+package javaloginmodule.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.model.User;
+import javaloginmodule.repository.DatabaseAccess;
+import javaloginmodule.repository.GroupCommitWriter;
+import javaloginmodule.repository.UserCache;
+import javaloginmodule.repository.UserRepository;
+import javaloginmodule.repository.UserShards;
+import javaloginmodule.repository.UsernameBloomFilter;
+import io.micrometer.core.instrument.Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Registration inserts against SQLite files set up like production: WAL, one writer connection and
+// group-commit thread per shard. Throughput should grow with the shard count until cores run out.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(16)
+@Fork(1)
+public class ShardedRegistrationBenchmark {
+
+    @Param({"1", "2", "4"})
+    private int shards;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Path> files = new ArrayList<>();
+    private UserShards userShards;
+    private UserRepository repository;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<DatabaseAccess> shardAccess = new ArrayList<>();
+        List<AutoCloseable> resources = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            Path file = Files.createTempFile("login-shard-benchmark", ".db");
+            files.add(file);
+
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            SQLiteDataSource sqliteDataSource = new SQLiteDataSource(config);
+            sqliteDataSource.setUrl("jdbc:sqlite:" + file);
+
+            HikariConfig hikariConfig = new HikariConfig();
+            hikariConfig.setDataSource(sqliteDataSource);
+            hikariConfig.setMaximumPoolSize(1);
+            HikariDataSource dataSource = new HikariDataSource(hikariConfig);
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+            GroupCommitWriter writer = new GroupCommitWriter(dataSource, 10_000, 256);
+            resources.add(writer);
+            resources.add(dataSource);
+            shardAccess.add(new DatabaseAccess(new JdbcTemplate(dataSource), writer));
+        }
+        userShards = new UserShards(shardAccess, resources);
+        repository = new UserRepository(userShards, UserCache.disabled(), UsernameBloomFilter.disabled(), Metrics.globalRegistry);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        userShards.close();
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(Path.of(file + "-wal"));
+            Files.deleteIfExists(Path.of(file + "-shm"));
+        }
+    }
+
+    @Benchmark
+    public User register() {
+        return repository.save(new User(0, "user-" + sequence.incrementAndGet(), "hashed"));
+    }
+}
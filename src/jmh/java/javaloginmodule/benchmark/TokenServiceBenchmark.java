@@ -0,0 +1,56 @@
+package javaloginmodule.benchmark;
+
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.model.User;
+import javaloginmodule.security.JWTTokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenServiceBenchmark {
+
+    @Param({"HS256", "ES256"})
+    private JWTTokenService.SigningAlgorithm algorithm;
+
+    @Param({"0", "10000"})
+    private int verifiedCacheSize;
+
+    private final User user = new User(42, "sam", "hashedPassword");
+    private JWTTokenService tokenService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenService = new JWTTokenService("benchmark-secret", verifiedCacheSize, algorithm,
+                Duration.ofDays(1), Metrics.globalRegistry);
+        token = tokenService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenService.generateToken(user);
+    }
+
+    @Benchmark
+    public Optional<String> verifyToken() {
+        return tokenService.verifyToken(token);
+    }
+}
@@ -0,0 +1,109 @@
+package javaloginmodule.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.model.User;
+import javaloginmodule.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One 50-user page of the admin listing at a given depth into a 200k-user SQLite table: the keyset seek
+// the repository uses against the OFFSET query it replaces.
+//
+//     mvn -Pjmh -DskipTests verify -Djmh.args="UserListing"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserListingBenchmark {
+
+    private static final int SEEDED_USERS = 200_000;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"0", "1000", "100000", "199900"})
+    private int depth;
+
+    private Path databaseFile;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private UserRepository repository;
+    private User previous;
+
+    @Setup
+    public void setUp() throws IOException {
+        databaseFile = Files.createTempFile("listing-benchmark", ".db");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile + "?journal_mode=WAL&synchronous=NORMAL");
+        dataSource.setMaximumPoolSize(1);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new UserRepository(jdbcTemplate);
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            batch.add(new User(0, "user-" + i, "hashed", start.plusSeconds(i / 4)));
+            if (batch.size() == 10_000) {
+                repository.importAll(batch);
+                batch.clear();
+            }
+        }
+
+        // The position a client would hold after paging down to this depth
+        if (depth > 0) {
+            List<User> row = new ArrayList<>();
+            jdbcTemplate.query("SELECT * FROM users ORDER BY created_at, id LIMIT 1 OFFSET ?",
+                    (RowCallbackHandler) rs -> row.add(user(rs)), depth - 1);
+            previous = row.getFirst();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        dataSource.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) {
+        repository.listPage(null, previous == null ? null : previous.createdAt(), previous == null ? 0 : previous.id(),
+                PAGE_SIZE, blackhole::consume);
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) {
+        jdbcTemplate.query("SELECT id, username, password, created_at FROM users ORDER BY created_at, id LIMIT ? OFFSET ?",
+                (RowCallbackHandler) rs -> blackhole.consume(user(rs)), PAGE_SIZE, depth);
+    }
+
+    private static User user(ResultSet rs) throws SQLException {
+        return new User(rs.getInt("id"), rs.getString("username"), rs.getString("password"),
+                rs.getTimestamp("created_at").toLocalDateTime());
+    }
+}
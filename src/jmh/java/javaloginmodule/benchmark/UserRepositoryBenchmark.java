@@ -0,0 +1,88 @@
+package javaloginmodule.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.model.User;
+import javaloginmodule.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    private static final int SEEDED_USERS = 10_000;
+
+    @Param({"sqlite", "h2"})
+    private String database;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private HikariDataSource dataSource;
+    private UserRepository repository;
+    private Path databaseFile;
+    private int firstId;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataSource = new HikariDataSource();
+        if (database.equals("sqlite")) {
+            databaseFile = Files.createTempFile("login-benchmark", ".db");
+            dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile);
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        } else {
+            dataSource.setJdbcUrl("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+            new ResourceDatabasePopulator(new ClassPathResource("schema-test.sql")).execute(dataSource);
+        }
+
+        repository = new UserRepository(new JdbcTemplate(dataSource));
+        for (int i = 0; i < SEEDED_USERS; i++) {
+            User saved = repository.save(new User(0, "seed-" + i, "hashed"));
+            if (i == 0) firstId = saved.id();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        dataSource.close();
+        if (databaseFile != null) Files.deleteIfExists(databaseFile);
+    }
+
+    @Benchmark
+    public User save() {
+        return repository.save(new User(0, "user-" + sequence.incrementAndGet(), "hashed"));
+    }
+
+    @Benchmark
+    public User fetchByUsername() {
+        return repository.fetchByUsername("seed-" + ThreadLocalRandom.current().nextInt(SEEDED_USERS));
+    }
+
+    @Benchmark
+    public Optional<User> fetchById() {
+        return repository.fetchById(firstId + ThreadLocalRandom.current().nextInt(SEEDED_USERS));
+    }
+}
@@ -0,0 +1,123 @@
+package javaloginmodule.loadtest;
+
+import javaloginmodule.JavaLoginModuleApplication;
+import javaloginmodule.loadtest.LoadGenerator.Operation;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Boots the application on a random port against a throwaway SQLite file and drives /api/auth with an
+// open-loop mix of operations. Run through the loadtest profile:
+//
+//     mvn -Ploadtest -DskipTests verify -Dloadtest.args="--rate 200 --duration 60 --set spring.threads.virtual.enabled=true"
+//
+// Options: --rate <requests/s> --duration <s> --warmup <s> --mix <op=weight,...> --users <seeded users>
+//          --max-in-flight <n> --seed <n> --report-dir <dir> --set <application property=value> (repeatable)
+public class AuthLoadTest {
+
+    private record Options(double rate, Duration duration, Duration warmup, LoadMix mix, int users, int maxInFlight,
+                           long seed, Path reportDir, Map<String, String> properties) {}
+
+    public static void main(String[] args) throws Exception {
+        Options options = parse(args);
+        Path database = Files.createTempFile("login-loadtest", ".db");
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:sqlite:" + database);
+        // Every request comes from one address, which the per-IP throttle would otherwise cap
+        properties.put("auth.throttle.enabled", "false");
+        // Seeding goes through the admin-only bulk endpoint
+        String adminPassword = UUID.randomUUID().toString();
+        properties.put("spring.security.user.password", adminPassword);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(options.properties());
+
+        List<String> applicationArgs = new ArrayList<>();
+        properties.forEach((key, value) -> applicationArgs.add("--" + key + "=" + value));
+
+        long bootStart = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(JavaLoginModuleApplication.class)
+                .run(applicationArgs.toArray(String[]::new));
+             LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:"
+                     + ((WebServerApplicationContext) context).getWebServer().getPort()), "admin", adminPassword)) {
+            System.out.printf("Started in %d ms with %s%n", Duration.ofNanos(System.nanoTime() - bootStart).toMillis(), options.properties());
+
+            generator.seed(options.users());
+            System.out.printf("Seeded %d users; running %s at %.0f requests/s for %ds after %ds warmup%n",
+                    options.users(), options.mix(), options.rate(), options.duration().toSeconds(), options.warmup().toSeconds());
+
+            generator.run(options.mix(), options.rate(), options.warmup(), options.duration(), options.maxInFlight(), options.seed());
+            report(generator.stats(), options);
+        } finally {
+            for (String suffix : List.of("", "-wal", "-shm")) {
+                Files.deleteIfExists(Path.of(database + suffix));
+            }
+        }
+    }
+
+    private static void report(Map<Operation, EndpointStats> stats, Options options) throws Exception {
+        double seconds = options.duration().toNanos() / 1e9;
+        System.out.println();
+        System.out.printf("%-16s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "failed", "dropped", "ok/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats endpoint : stats.values()) {
+            System.out.println(endpoint.formatRow(seconds));
+        }
+        for (EndpointStats endpoint : stats.values()) {
+            if (endpoint.failureCount() > 0) System.out.println(endpoint.formatFailures());
+            if (options.reportDir() != null) endpoint.writeDistribution(options.reportDir());
+        }
+        if (options.reportDir() != null) {
+            System.out.println("Percentile distributions written to " + options.reportDir());
+        }
+    }
+
+    private static Options parse(String[] args) {
+        double rate = 50;
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(10);
+        LoadMix mix = LoadMix.parse("register=1,login=6,update-password=2,delete=1");
+        int users = 200;
+        int maxInFlight = 1000;
+        long seed = 42;
+        Path reportDir = null;
+        Map<String, String> properties = new LinkedHashMap<>();
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) throw new IllegalArgumentException("Missing value for " + args[i]);
+            switch (args[i++]) {
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "--warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "--mix" -> mix = LoadMix.parse(value);
+                case "--users" -> users = Integer.parseInt(value);
+                case "--max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--report-dir" -> reportDir = Path.of(value);
+                case "--set" -> {
+                    int separator = value.indexOf('=');
+                    if (separator <= 0) throw new IllegalArgumentException("Expected --set key=value but got '" + value + "'");
+                    properties.put(value.substring(0, separator), value.substring(separator + 1));
+                }
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i - 1]);
+            }
+        }
+        if (rate <= 0 || duration.isZero() || maxInFlight <= 0) {
+            throw new IllegalArgumentException("--rate, --duration and --max-in-flight must be positive");
+        }
+        return new Options(rate, duration, warmup, mix, users, maxInFlight, seed, reportDir, properties);
+    }
+}
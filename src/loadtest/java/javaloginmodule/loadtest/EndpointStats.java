@@ -0,0 +1,79 @@
+package javaloginmodule.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latencies of successful calls to one endpoint, in microseconds from the intended send time.
+// Failures are counted by status (0 for transport errors) and kept out of the histogram.
+class EndpointStats {
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    private final Map<Integer, LongAdder> failures = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void recordSuccess(long latencyNanos) {
+        latencies.recordValue(Math.min(MAX_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    void recordFailure(int status) {
+        failures.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    long successes() {
+        return latencies.getTotalCount();
+    }
+
+    long failureCount() {
+        return failures.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    String formatRow(double measuredSeconds) {
+        return String.format("%-16s %9d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                name, successes(), failureCount(), dropped.sum(), successes() / measuredSeconds,
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+    }
+
+    String formatFailures() {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        failures.forEach((status, count) -> byStatus.put(status, count.sum()));
+        return name + " failures by status " + byStatus;
+    }
+
+    // Percentile distribution in milliseconds, loadable by the HdrHistogram plotter
+    void writeDistribution(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
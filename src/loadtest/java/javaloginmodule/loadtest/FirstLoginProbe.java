@@ -0,0 +1,135 @@
+package javaloginmodule.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Time from launching the application until a freshly registered user can log in, which is what an
+// autoscaled pod actually waits for. The command is anything that starts the application and accepts
+// Spring arguments: a jar, a jar with a CDS archive, an AOT-processed jar or a native executable.
+//
+//     mvn -Ploadtest -DskipTests verify -Dloadtest.main=javaloginmodule.loadtest.FirstLoginProbe \
+//         -Dloadtest.args="--label jvm --runs 5 -- java -jar target/java-login-module-1.0-SNAPSHOT.jar"
+//
+// Each run starts on a free port against an empty SQLite file, so schema initialization is included.
+// --restarts <n> also measures n restarts against the same file, where an unchanged schema is skipped.
+public class FirstLoginProbe {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final String LOGIN = "{\"username\":\"probe\",\"password\":\"Probe-password-1\"}";
+
+    public static void main(String[] args) throws Exception {
+        String label = "app";
+        int runs = 3;
+        int restarts = 0;
+        Path reportDir = null;
+        List<String> command = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--label" -> label = args[++i];
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--restarts" -> restarts = Integer.parseInt(args[++i]);
+                case "--report-dir" -> reportDir = Path.of(args[++i]);
+                case "--" -> {
+                    command.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                    i = args.length;
+                }
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (command.isEmpty()) {
+            throw new IllegalArgumentException("Usage: [--label name] [--runs n] [--restarts n] -- <command starting the application>");
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        List<Long> cold = new ArrayList<>();
+        List<Long> warm = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            Path database = Files.createTempFile("login-probe", ".db");
+            try {
+                cold.add(timeToFirstLogin(client, command, database));
+                for (int restart = 0; restart < restarts; restart++) {
+                    warm.add(timeToFirstLogin(client, command, database));
+                }
+            } finally {
+                for (String suffix : List.of("", "-wal", "-shm")) {
+                    Files.deleteIfExists(Path.of(database + suffix));
+                }
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(summary(label, "empty database", cold));
+        if (!warm.isEmpty()) lines.add(summary(label, "restart", warm));
+        lines.forEach(System.out::println);
+        if (reportDir != null) {
+            Files.createDirectories(reportDir);
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportDir.resolve("first-login.txt"),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                lines.forEach(out::println);
+            }
+        }
+    }
+
+    private static long timeToFirstLogin(HttpClient client, List<String> command, Path database) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> launch = new ArrayList<>(command);
+        launch.add("--server.port=" + port);
+        launch.add("--spring.datasource.url=jdbc:sqlite:" + database);
+        launch.add("--spring.main.banner-mode=off");
+
+        URI base = URI.create("http://localhost:" + port + "/api/auth/");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(launch).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            boolean registered = false;
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) throw new IllegalStateException("Application exited with " + process.exitValue());
+                try {
+                    // On a restart the user already exists and register answers 409
+                    if (!registered) registered = post(client, base.resolve("register"), LOGIN) != 503;
+                    if (registered && post(client, base.resolve("login"), LOGIN) == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No successful login within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static int post(HttpClient client, URI uri, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String summary(String label, String start, List<Long> millis) {
+        List<Long> sorted = millis.stream().sorted().toList();
+        return String.format("%-20s %-15s runs=%d min=%d ms median=%d ms max=%d ms",
+                label, start, sorted.size(), sorted.getFirst(), sorted.get(sorted.size() / 2), sorted.getLast());
+    }
+}
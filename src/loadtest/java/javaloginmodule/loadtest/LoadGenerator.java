@@ -0,0 +1,260 @@
+package javaloginmodule.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop driver: requests start on a fixed schedule whether or not earlier ones have returned, and
+// each latency is measured from the scheduled start. A server that stalls therefore shows up in the
+// percentiles instead of silently slowing the client down (coordinated omission).
+class LoadGenerator implements AutoCloseable {
+
+    enum Operation {
+        REGISTER("register"),
+        LOGIN("login"),
+        UPDATE_PASSWORD("update-password"),
+        DELETE("delete");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+
+        static Operation fromLabel(String label) {
+            for (Operation operation : values()) {
+                if (operation.label.equals(label)) return operation;
+            }
+            throw new IllegalArgumentException("Unknown operation '" + label + "', expected register, login, update-password or delete");
+        }
+    }
+
+    private record Credentials(String username, String password) {}
+
+    private record Session(Credentials credentials, String accessToken) {}
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+    private final String adminAuthorization;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+    // Users without a token wait to log in; logged-in users are picked up by password updates and deletes
+    private final Queue<Credentials> loggedOut = new ConcurrentLinkedQueue<>();
+    private final Queue<Session> loggedIn = new ConcurrentLinkedQueue<>();
+    private final AtomicLong userSequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    LoadGenerator(URI baseUri, String adminUser, String adminPassword) {
+        this.baseUri = baseUri;
+        this.adminAuthorization = "Basic " + Base64.getEncoder()
+                .encodeToString((adminUser + ":" + adminPassword).getBytes(StandardCharsets.UTF_8));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(requestExecutor)
+                .build();
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new EndpointStats(operation.label()));
+        }
+    }
+
+    Map<Operation, EndpointStats> stats() {
+        return stats;
+    }
+
+    // Registers users up front through the bulk endpoint so logins have accounts to work with from the start
+    void seed(int users) throws IOException, InterruptedException {
+        int chunk = 500;
+        for (int from = 0; from < users; from += chunk) {
+            ArrayNode body = objectMapper.createArrayNode();
+            int to = Math.min(users, from + chunk);
+            for (int i = from; i < to; i++) {
+                Credentials credentials = newCredentials();
+                body.addObject().put("username", credentials.username()).put("password", credentials.password());
+                loggedOut.add(credentials);
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/api/admin/users/bulk"))
+                    .timeout(Duration.ofMinutes(10))
+                    .header("Content-Type", "application/json")
+                    .header("Authorization", adminAuthorization)
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding users failed with status " + response.statusCode() + ": " + response.body());
+            }
+        }
+    }
+
+    // Returns once every request started during warmup and measurement has completed or timed out
+    void run(LoadMix mix, double ratePerSecond, Duration warmup, Duration measurement, int maxInFlight, long seed)
+            throws InterruptedException {
+        long interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+        long warmupRequests = warmup.toNanos() / interval;
+        long totalRequests = warmupRequests + measurement.toNanos() / interval;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * interval;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            Operation operation = mix.pick(random);
+            boolean measured = i >= warmupRequests;
+            if (!inFlight.tryAcquire()) {
+                // The client is saturated; count the arrival rather than queueing it behind the others
+                if (measured) stats.get(operation).recordDropped();
+                continue;
+            }
+            requestExecutor.execute(() -> {
+                try {
+                    execute(operation, intendedStart, measured);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS)) {
+            System.err.println("Some requests were still in flight when the run ended");
+        }
+    }
+
+    private void execute(Operation operation, long intendedStart, boolean measured) {
+        // Updates and deletes need a logged-in user and fall back to a login until one is available
+        Session session = null;
+        if (operation == Operation.UPDATE_PASSWORD || operation == Operation.DELETE) {
+            session = loggedIn.poll();
+            if (session == null) operation = Operation.LOGIN;
+        }
+        Credentials credentials = null;
+        if (operation == Operation.LOGIN) {
+            credentials = loggedOut.poll();
+            if (credentials == null) {
+                Session relogin = loggedIn.poll();
+                if (relogin == null) operation = Operation.REGISTER;
+                else credentials = relogin.credentials();
+            }
+        }
+
+        EndpointStats endpoint = stats.get(operation);
+        try {
+            HttpResponse<String> response = switch (operation) {
+                case REGISTER -> register();
+                case LOGIN -> login(credentials);
+                case UPDATE_PASSWORD -> updatePassword(session);
+                case DELETE -> delete(session);
+            };
+            long latency = System.nanoTime() - intendedStart;
+            int status = response.statusCode();
+            if (!measured) return;
+            if (status >= 200 && status < 300) endpoint.recordSuccess(latency);
+            else endpoint.recordFailure(status);
+        } catch (IOException e) {
+            if (measured) endpoint.recordFailure(0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpResponse<String> register() throws IOException, InterruptedException {
+        Credentials credentials = newCredentials();
+        HttpResponse<String> response = send(request("/register").POST(json(credentials)));
+        if (response.statusCode() == 200) loggedOut.add(credentials);
+        return response;
+    }
+
+    private HttpResponse<String> login(Credentials credentials) throws IOException, InterruptedException {
+        HttpResponse<String> response;
+        try {
+            response = send(request("/login").POST(json(credentials)));
+        } catch (IOException e) {
+            loggedOut.add(credentials);
+            throw e;
+        }
+        if (response.statusCode() == 200) loggedIn.add(new Session(credentials, accessToken(response)));
+        else loggedOut.add(credentials);
+        return response;
+    }
+
+    private HttpResponse<String> updatePassword(Session session) throws IOException, InterruptedException {
+        Credentials updated = new Credentials(session.credentials().username(), "Pw-" + Long.toString(System.nanoTime(), 36));
+        String body = objectMapper.createObjectNode().put("password", updated.password()).toString();
+        // On a transport error it is unknown which password is current, so the user is retired
+        HttpResponse<String> response = send(request("/password")
+                .header("Authorization", "Bearer " + session.accessToken())
+                .PUT(HttpRequest.BodyPublishers.ofString(body)));
+        if (response.statusCode() == 200) loggedIn.add(new Session(updated, accessToken(response)));
+        else loggedOut.add(session.credentials());
+        return response;
+    }
+
+    private HttpResponse<String> delete(Session session) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request("/user")
+                .header("Authorization", "Bearer " + session.accessToken())
+                .DELETE());
+        if (response.statusCode() != 204) loggedOut.add(session.credentials());
+        return response;
+    }
+
+    private Credentials newCredentials() {
+        long id = userSequence.incrementAndGet();
+        return new Credentials("load-" + runId + "-" + id, "Pw-" + Long.toString(id * 7919, 36));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve("/api/auth" + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Credentials credentials) {
+        return HttpRequest.BodyPublishers.ofString(objectMapper.createObjectNode()
+                .put("username", credentials.username())
+                .put("password", credentials.password())
+                .toString());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String accessToken(HttpResponse<String> response) throws IOException {
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.path("token").path("value").asText();
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        requestExecutor.close();
+    }
+}
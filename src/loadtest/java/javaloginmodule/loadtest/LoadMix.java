@@ -0,0 +1,49 @@
+package javaloginmodule.loadtest;
+
+import javaloginmodule.loadtest.LoadGenerator.Operation;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+// Relative weights of each operation, parsed from e.g. "register=1,login=6,update-password=2,delete=1"
+record LoadMix(Map<Operation, Integer> weights) {
+
+    LoadMix {
+        if (weights.values().stream().anyMatch(weight -> weight < 0)) {
+            throw new IllegalArgumentException("Mix weights must not be negative");
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mix needs at least one operation with a positive weight");
+        }
+        weights = Map.copyOf(weights);
+    }
+
+    static LoadMix parse(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) throw new IllegalArgumentException("Expected operation=weight but got '" + entry + "'");
+            weights.merge(Operation.fromLabel(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer::sum);
+        }
+        return new LoadMix(weights);
+    }
+
+    Operation pick(SplittableRandom random) {
+        int total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        int ticket = random.nextInt(total);
+        for (Operation operation : Operation.values()) {
+            ticket -= weights.getOrDefault(operation, 0);
+            if (ticket < 0) return operation;
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    @Override
+    public String toString() {
+        return new EnumMap<>(weights).entrySet().stream()
+                .map(entry -> entry.getKey().label() + "=" + entry.getValue())
+                .collect(Collectors.joining(","));
+    }
+}
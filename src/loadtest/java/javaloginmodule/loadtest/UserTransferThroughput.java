@@ -0,0 +1,128 @@
+package javaloginmodule.loadtest;
+
+import javaloginmodule.repository.UserShards;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.service.UserTransferService;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Export and import throughput on a large users table, run through the same main() the CLI uses. Seeds
+// a SQLite file with --rows users (10M by default), exports it to NDJSON and imports that into an empty
+// file. Peak heap is reported per phase; it should stay flat as --rows grows.
+//
+//     mvn -Ploadtest -DskipTests verify -Dloadtest.main=javaloginmodule.loadtest.UserTransferThroughput \
+//         -Dloadtest.args="--rows 10000000"
+public class UserTransferThroughput {
+
+    private static final int SEED_BATCH = 50_000;
+
+    public static void main(String[] args) throws Exception {
+        long rows = 10_000_000;
+        Path reportDir = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows" -> rows = Long.parseLong(args[++i]);
+                case "--report-dir" -> reportDir = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        Path source = Files.createTempFile("transfer-source", ".db");
+        Path target = Files.createTempFile("transfer-target", ".db");
+        Path dump = Files.createTempFile("transfer", ".ndjson");
+        List<String> lines = new ArrayList<>();
+        try {
+            long start = System.nanoTime();
+            seed(source, rows);
+            lines.add(String.format("seed    %,d rows in %.1f s", rows, seconds(start)));
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            UserTransferService.main(new String[]{"export", "--db", "jdbc:sqlite:" + source, "--file", dump.toString()});
+            lines.add(phase("export", rows, start) + String.format(", %,d MB written", Files.size(dump) >> 20));
+
+            resetPeakHeap();
+            start = System.nanoTime();
+            UserTransferService.main(new String[]{"import", "--db", "jdbc:sqlite:" + target, "--file", dump.toString()});
+            lines.add(phase("import", rows, start));
+        } finally {
+            for (Path file : List.of(source, target)) {
+                for (String suffix : List.of("", "-wal", "-shm")) Files.deleteIfExists(Path.of(file + suffix));
+            }
+            Files.deleteIfExists(dump);
+        }
+
+        lines.forEach(System.out::println);
+        if (reportDir != null) {
+            Files.createDirectories(reportDir);
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportDir.resolve("user-transfer.txt"),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                lines.forEach(out::println);
+            }
+        }
+    }
+
+    // Plain batched inserts with ids that carry the username's bucket, as the service would assign them
+    private static void seed(Path file, long rows) throws Exception {
+        String hash = new BCryptPasswordHasher(4).hash("Password123");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=OFF");
+                statement.execute("CREATE TABLE users (id INTEGER PRIMARY KEY, username TEXT NOT NULL UNIQUE, "
+                        + "password TEXT NOT NULL, created_at TEXT DEFAULT (datetime('now')))");
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("INSERT INTO users (id, username, password) VALUES (?, ?, ?)")) {
+                for (long i = 0; i < rows; i++) {
+                    String username = "user" + i;
+                    ps.setLong(1, (i + 1) * UserShards.BUCKETS + UserShards.bucketOf(username));
+                    ps.setString(2, username);
+                    ps.setString(3, hash);
+                    ps.addBatch();
+                    if ((i + 1) % SEED_BATCH == 0) {
+                        ps.executeBatch();
+                        connection.commit();
+                    }
+                }
+                ps.executeBatch();
+                connection.commit();
+            }
+        }
+    }
+
+    private static String phase(String name, long rows, long start) {
+        double seconds = seconds(start);
+        return String.format("%-7s %,d rows in %.1f s, %,.0f rows/s, peak heap %,d MB",
+                name, rows, seconds, rows / seconds, peakHeap() >> 20);
+    }
+
+    private static double seconds(long start) {
+        return (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeap() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+    }
+}
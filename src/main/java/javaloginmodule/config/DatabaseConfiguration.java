@@ -0,0 +1,166 @@
+package javaloginmodule.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.repository.DatabaseAccess;
+import javaloginmodule.repository.GroupCommitWriter;
+import javaloginmodule.repository.UserShards;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DatabaseConfiguration {
+
+    @Bean
+    @DependsOnDatabaseInitialization
+    @ConditionalOnProperty(name = "auth.sqlite.tuning.enabled", havingValue = "false", matchIfMissing = true)
+    public DatabaseAccess databaseAccess(JdbcTemplate jdbcTemplate) {
+        return DatabaseAccess.direct(jdbcTemplate);
+    }
+
+    // Takes over spring.sql.init from Boot so restarts against an up-to-date database skip schema.sql
+    @Bean
+    @ConditionalOnProperty(name = "auth.schema.skip-if-unchanged", havingValue = "true", matchIfMissing = true)
+    public SqlDataSourceScriptDatabaseInitializer schemaInitializer(DataSource dataSource, SqlInitializationProperties properties,
+                                                                   ResourceLoader resourceLoader) {
+        List<String> locations = new ArrayList<>();
+        if (properties.getSchemaLocations() != null) locations.addAll(properties.getSchemaLocations());
+        if (properties.getDataLocations() != null) locations.addAll(properties.getDataLocations());
+        return new VersionedSchemaInitializer(dataSource, properties, SchemaVersion.resolve(resourceLoader, locations));
+    }
+
+    // Shard 0 is the primary database, which also keeps every other table. Each additional URL is set up
+    // like the primary: with SQLite tuning it gets its own writer thread and pools, otherwise one plain pool.
+    @Bean(destroyMethod = "close")
+    public UserShards userShards(DatabaseAccess databaseAccess, ResourceLoader resourceLoader,
+                                 @Value("${auth.user-shards.additional-urls:}") List<String> additionalUrls,
+                                 @Value("${spring.sql.init.schema-locations:classpath:schema.sql}") List<String> schemaLocations,
+                                 @Value("${auth.schema.skip-if-unchanged:true}") boolean skipUnchangedSchema,
+                                 @Value("${auth.sqlite.tuning.enabled:false}") boolean sqliteTuning,
+                                 @Value("${auth.sqlite.busy-timeout-ms:5000}") int busyTimeoutMillis,
+                                 @Value("${auth.sqlite.read-pool-size:0}") int readPoolSize,
+                                 @Value("${auth.sqlite.write-queue-capacity:10000}") int queueCapacity,
+                                 @Value("${auth.sqlite.write-batch-size:256}") int batchSize) {
+        List<DatabaseAccess> shards = new ArrayList<>();
+        List<AutoCloseable> resources = new ArrayList<>();
+        shards.add(databaseAccess);
+
+        List<Resource> schema = SchemaVersion.resolve(resourceLoader, schemaLocations);
+
+        for (String url : additionalUrls) {
+            if (url.isBlank()) continue;
+
+            if (sqliteTuning) {
+                HikariDataSource writeDataSource = SqliteTuningConfiguration.writeDataSource(url.trim(), busyTimeoutMillis);
+                initializeSchema(writeDataSource, schema, skipUnchangedSchema);
+                HikariDataSource readDataSource = SqliteTuningConfiguration.readDataSource(url.trim(), busyTimeoutMillis, readPoolSize);
+                GroupCommitWriter writer = new GroupCommitWriter(writeDataSource, queueCapacity, batchSize);
+                resources.addAll(List.of(writer, readDataSource, writeDataSource));
+                shards.add(new DatabaseAccess(new JdbcTemplate(readDataSource), writer));
+            } else {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setJdbcUrl(url.trim());
+                dataSource.setPoolName("user-shard-" + shards.size());
+                initializeSchema(dataSource, schema, skipUnchangedSchema);
+                resources.add(dataSource);
+                shards.add(DatabaseAccess.direct(new JdbcTemplate(dataSource)));
+            }
+        }
+        return new UserShards(shards, resources);
+    }
+
+    private static void initializeSchema(DataSource dataSource, List<Resource> schema, boolean skipUnchanged) {
+        if (skipUnchanged) {
+            SchemaVersion.applyIfChanged(dataSource, schema);
+        } else {
+            new ResourceDatabasePopulator(schema.toArray(Resource[]::new)).execute(dataSource);
+        }
+    }
+
+    // WAL journaling, one pooled writer connection fed by a group-commit thread, and a read-only pool for lookups
+    @Configuration
+    @ConditionalOnProperty(name = "auth.sqlite.tuning.enabled", havingValue = "true")
+    static class SqliteTuningConfiguration {
+
+        @Value("${auth.sqlite.busy-timeout-ms:5000}")
+        private int busyTimeoutMillis;
+
+        @Bean
+        @Primary
+        public DataSource dataSource(DataSourceProperties properties) {
+            return writeDataSource(properties.getUrl(), busyTimeoutMillis);
+        }
+
+        @Bean
+        public DataSource readDataSource(DataSourceProperties properties,
+                                         @Value("${auth.sqlite.read-pool-size:0}") int readPoolSize) {
+            return readDataSource(properties.getUrl(), busyTimeoutMillis, readPoolSize);
+        }
+
+        @Bean(destroyMethod = "close")
+        public GroupCommitWriter groupCommitWriter(DataSource dataSource,
+                                                   @Value("${auth.sqlite.write-queue-capacity:10000}") int queueCapacity,
+                                                   @Value("${auth.sqlite.write-batch-size:256}") int batchSize) {
+            return new GroupCommitWriter(dataSource, queueCapacity, batchSize);
+        }
+
+        // Built on its own pools rather than the JdbcTemplate bean, so it has to wait for schema.sql explicitly
+        @Bean
+        @DependsOnDatabaseInitialization
+        public DatabaseAccess databaseAccess(@Qualifier("readDataSource") DataSource readDataSource,
+                                             GroupCommitWriter groupCommitWriter) {
+            return new DatabaseAccess(new JdbcTemplate(readDataSource), groupCommitWriter);
+        }
+
+        static HikariDataSource writeDataSource(String url, int busyTimeoutMillis) {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            config.setBusyTimeout(busyTimeoutMillis);
+
+            return pooled(url, config, 1, "sqlite-write", false);
+        }
+
+        static HikariDataSource readDataSource(String url, int busyTimeoutMillis, int readPoolSize) {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setReadOnly(true);
+            config.setBusyTimeout(busyTimeoutMillis);
+
+            int poolSize = readPoolSize > 0 ? readPoolSize : Runtime.getRuntime().availableProcessors();
+            return pooled(url, config, poolSize, "sqlite-read", true);
+        }
+
+        private static HikariDataSource pooled(String url, SQLiteConfig config, int poolSize, String poolName,
+                                               boolean readOnly) {
+            SQLiteDataSource sqliteDataSource = new SQLiteDataSource(config);
+            sqliteDataSource.setUrl(url);
+
+            HikariConfig hikariConfig = new HikariConfig();
+            hikariConfig.setDataSource(sqliteDataSource);
+            hikariConfig.setMaximumPoolSize(poolSize);
+            hikariConfig.setMinimumIdle(1);
+            hikariConfig.setPoolName(poolName);
+            // sqlite-jdbc fixes the read-only flag when a connection opens, so the pool must agree with it
+            hikariConfig.setReadOnly(readOnly);
+            return new HikariDataSource(hikariConfig);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package javaloginmodule.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import javaloginmodule.repository.GroupCommitWriter;
+import javaloginmodule.repository.UserCache;
+import javaloginmodule.repository.UsernameBloomFilter;
+import javaloginmodule.security.JWTTokenService;
+import javaloginmodule.security.LoginThrottle;
+import javaloginmodule.security.PasswordHashingExecutor;
+import javaloginmodule.security.RevokedTokenIndex;
+import javaloginmodule.security.SqliteTokenRevocationStore;
+import javaloginmodule.security.VerifiedTokenCache;
+import javaloginmodule.service.AuditLog;
+import javaloginmodule.service.RefreshTokenService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Publishes the counters the components already keep, so nothing extra runs on the request path
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder hashingExecutorMetrics(PasswordHashingExecutor executor) {
+        return registry -> {
+            Gauge.builder("auth.hashing.queue.depth", executor, PasswordHashingExecutor::getQueueDepth).register(registry);
+            Gauge.builder("auth.hashing.active", executor, PasswordHashingExecutor::getActiveCount).register(registry);
+            FunctionCounter.builder("auth.hashing.rejected", executor, PasswordHashingExecutor::getRejectedCount).register(registry);
+            FunctionCounter.builder("auth.hashing.completed", executor, PasswordHashingExecutor::getCompletedCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder loginThrottleMetrics(LoginThrottle throttle) {
+        return registry -> {
+            FunctionCounter.builder("auth.throttle.allowed", throttle, LoginThrottle::getAllowedCount).register(registry);
+            FunctionCounter.builder("auth.throttle.rejected", throttle, LoginThrottle::getRejectedByUsernameCount)
+                    .tag("key", "username").register(registry);
+            FunctionCounter.builder("auth.throttle.rejected", throttle, LoginThrottle::getRejectedByClientIpCount)
+                    .tag("key", "ip").register(registry);
+            FunctionCounter.builder("auth.throttle.evictions", throttle, LoginThrottle::getEvictionCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder userCacheMetrics(UserCache cache) {
+        return registry -> {
+            Gauge.builder("auth.user.cache.size", cache, UserCache::size).register(registry);
+            FunctionCounter.builder("auth.user.cache.requests", cache, UserCache::getHits).tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.user.cache.requests", cache, UserCache::getMisses).tag("result", "miss").register(registry);
+            FunctionCounter.builder("auth.user.cache.evictions", cache, UserCache::getEvictions).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder usernameFilterMetrics(UsernameBloomFilter filter) {
+        return registry -> {
+            FunctionCounter.builder("auth.username.filter.definite.misses", filter, UsernameBloomFilter::getDefiniteMisses).register(registry);
+            Gauge.builder("auth.username.filter.expected.fpp", filter, UsernameBloomFilter::getExpectedFalsePositiveRate).register(registry);
+            Gauge.builder("auth.username.filter.memory", filter, UsernameBloomFilter::getMemoryBytes).baseUnit("bytes").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder verifiedTokenCacheMetrics(JWTTokenService tokenService) {
+        VerifiedTokenCache cache = tokenService.getVerifiedTokenCache();
+        return registry -> {
+            Gauge.builder("auth.token.cache.size", cache, VerifiedTokenCache::size).register(registry);
+            FunctionCounter.builder("auth.token.cache.requests", cache, VerifiedTokenCache::getHits).tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.token.cache.requests", cache, VerifiedTokenCache::getMisses).tag("result", "miss").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder revokedTokenIndexMetrics(RefreshTokenService refreshTokenService) {
+        RevokedTokenIndex index = refreshTokenService.getRevokedTokens();
+        return registry -> {
+            Gauge.builder("auth.refresh.revoked.size", index, RevokedTokenIndex::size).register(registry);
+            Gauge.builder("auth.refresh.revoked.capacity", index, RevokedTokenIndex::capacity).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder tokenRevocationMetrics(ObjectProvider<SqliteTokenRevocationStore> store) {
+        return registry -> store.ifAvailable(revocations -> {
+            Gauge.builder("auth.token.revocations.size", revocations, SqliteTokenRevocationStore::size).register(registry);
+            Gauge.builder("auth.token.revocations.version", revocations, SqliteTokenRevocationStore::getVersion).register(registry);
+            FunctionCounter.builder("auth.token.revocations.poll.failures", revocations,
+                    SqliteTokenRevocationStore::getPollFailureCount).register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder auditLogMetrics(AuditLog auditLog) {
+        return registry -> {
+            Gauge.builder("auth.audit.pending", auditLog, AuditLog::getPendingCount).register(registry);
+            Gauge.builder("auth.audit.lag", auditLog, log -> log.getLagMillis() / 1000.0).baseUnit("seconds").register(registry);
+            FunctionCounter.builder("auth.audit.published", auditLog, AuditLog::getPublishedCount).register(registry);
+            FunctionCounter.builder("auth.audit.written", auditLog, AuditLog::getWrittenCount).register(registry);
+            FunctionCounter.builder("auth.audit.batches", auditLog, AuditLog::getBatchCount).register(registry);
+            FunctionCounter.builder("auth.audit.dropped", auditLog, AuditLog::getDroppedCount).register(registry);
+            FunctionCounter.builder("auth.audit.failed", auditLog, AuditLog::getFailedCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder groupCommitWriterMetrics(ObjectProvider<GroupCommitWriter> writer) {
+        return registry -> writer.ifAvailable(groupCommitWriter -> {
+            Gauge.builder("auth.db.writer.queue.depth", groupCommitWriter, GroupCommitWriter::getQueueDepth).register(registry);
+            FunctionCounter.builder("auth.db.writer.commits", groupCommitWriter, GroupCommitWriter::getBatchCount).register(registry);
+            FunctionCounter.builder("auth.db.writer.writes", groupCommitWriter, GroupCommitWriter::getWriteCount).register(registry);
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package javaloginmodule.config;
+
+import javaloginmodule.model.*;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+// Reflection and resources a native image cannot discover on its own. Request and response records are
+// bound by Jackson, including the ones written by hand from the bulk endpoint and the exception handlers.
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfiguration.Hints.class)
+@RegisterReflectionForBinding({AuthResponse.class, BulkRegistrationResult.class, ErrorResponse.class,
+        PasswordUpdateRequest.class, Token.class, TokenIntrospection.class, User.class, UserDetailsResponse.class,
+        UserImportResult.class, UserRequest.class, UserResponse.class})
+public class NativeHintsConfiguration {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        // java-jwt parses and writes tokens through Jackson with its own (de)serializers and holder types
+        private static final String[] JWT_TYPES = {
+                "com.auth0.jwt.impl.BasicHeader",
+                "com.auth0.jwt.impl.ClaimsHolder",
+                "com.auth0.jwt.impl.ClaimsSerializer",
+                "com.auth0.jwt.impl.HeaderClaimsHolder",
+                "com.auth0.jwt.impl.HeaderDeserializer",
+                "com.auth0.jwt.impl.HeaderDeserializer$1",
+                "com.auth0.jwt.impl.HeaderSerializer",
+                "com.auth0.jwt.impl.JsonNodeClaim",
+                "com.auth0.jwt.impl.PayloadClaimsHolder",
+                "com.auth0.jwt.impl.PayloadDeserializer",
+                "com.auth0.jwt.impl.PayloadDeserializer$1",
+                "com.auth0.jwt.impl.PayloadImpl",
+                "com.auth0.jwt.impl.PayloadSerializer"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : JWT_TYPES) {
+                hints.reflection().registerType(TypeReference.of(type),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS,
+                        MemberCategory.DECLARED_FIELDS);
+            }
+            // Loaded by name from spring.datasource.driver-class-name; sqlite-jdbc ships the hints for its native library
+            hints.reflection().registerType(TypeReference.of("org.sqlite.JDBC"), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+            hints.resources().registerPattern("schema.sql");
+            hints.resources().registerPattern("sql-error-codes.xml");
+        }
+    }
+}
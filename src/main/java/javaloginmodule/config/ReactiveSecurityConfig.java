@@ -0,0 +1,43 @@
+package javaloginmodule.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+// The same rules as SecurityConfig for the WebFlux stack
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/api/auth/introspect").hasAnyRole("ADMIN", SecurityConfig.INTROSPECT_ROLE)
+                        .pathMatchers("/api/auth/**").permitAll()
+                        .pathMatchers("/.well-known/jwks.json").permitAll()
+                        .pathMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        .pathMatchers("/api/admin/**").hasRole("ADMIN")
+                        .anyExchange().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .build();
+    }
+
+    @Bean
+    public MapReactiveUserDetailsService reactiveUserDetailsService(SecurityProperties security,
+                                                                    @Value("${auth.introspection.client.name:gateway}") String clientName,
+                                                                    @Value("${auth.introspection.client.password:}") String clientPassword) {
+        return new MapReactiveUserDetailsService(SecurityConfig.basicUsers(security, clientName, clientPassword));
+    }
+}
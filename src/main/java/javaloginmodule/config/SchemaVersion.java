@@ -0,0 +1,87 @@
+package javaloginmodule.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+// The database keeps a checksum of the schema scripts it was last initialized with, so a restart
+// against an up-to-date database skips them. Any edit to a script changes the checksum and reruns it.
+final class SchemaVersion {
+
+    private SchemaVersion() {
+    }
+
+    static List<Resource> resolve(ResourceLoader resourceLoader, List<String> locations) {
+        List<Resource> scripts = new ArrayList<>();
+        for (String location : locations) {
+            String path = location.trim();
+            boolean optional = path.startsWith("optional:");
+            if (optional) path = path.substring("optional:".length());
+            try {
+                Arrays.stream(ResourcePatternUtils.getResourcePatternResolver(resourceLoader).getResources(path))
+                        .filter(resource -> !optional || resource.exists())
+                        .forEach(scripts::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot resolve schema location " + location, e);
+            }
+        }
+        return scripts;
+    }
+
+    static String checksum(List<Resource> scripts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource script : scripts) {
+                try (InputStream in = script.getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read schema scripts", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static boolean isCurrent(DataSource dataSource, String checksum) {
+        try {
+            return new JdbcTemplate(dataSource).queryForList("SELECT checksum FROM schema_version", String.class)
+                    .equals(List.of(checksum));
+        } catch (DataAccessException e) {
+            // Not initialized by this version of the application yet
+            return false;
+        }
+    }
+
+    static void record(DataSource dataSource, String checksum) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version (checksum VARCHAR(64) NOT NULL)");
+        jdbcTemplate.update("DELETE FROM schema_version");
+        jdbcTemplate.update("INSERT INTO schema_version (checksum) VALUES (?)", checksum);
+    }
+
+    // Returns whether the scripts ran
+    static boolean applyIfChanged(DataSource dataSource, List<Resource> scripts) {
+        String checksum = checksum(scripts);
+        if (isCurrent(dataSource, checksum)) return false;
+
+        new ResourceDatabasePopulator(scripts.toArray(Resource[]::new)).execute(dataSource);
+        record(dataSource, checksum);
+        return true;
+    }
+}
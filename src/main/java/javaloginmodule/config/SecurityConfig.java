@@ -0,0 +1,79 @@
+package javaloginmodule.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SecurityConfig {
+    static final String INTROSPECT_ROLE = "INTROSPECT";
+
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+    private static final Pattern ENCODED_PASSWORD = Pattern.compile("^\\{.+}.*$");
+
+    // The auth API is stateless and authenticates with its own tokens, so no sessions or CSRF tokens
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        return http
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(requests -> requests
+                        // Each token in a batch costs a signature check and the answer names its user
+                        .requestMatchers("/api/auth/introspect").hasAnyRole("ADMIN", INTROSPECT_ROLE)
+                        .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .anyRequest().authenticated())
+                .httpBasic(Customizer.withDefaults())
+                .build();
+    }
+
+    @Bean
+    public InMemoryUserDetailsManager userDetailsService(SecurityProperties security,
+                                                         @Value("${auth.introspection.client.name:gateway}") String clientName,
+                                                         @Value("${auth.introspection.client.password:}") String clientPassword) {
+        return new InMemoryUserDetailsManager(basicUsers(security, clientName, clientPassword));
+    }
+
+    // HTTP Basic users: the admin from spring.security.user.*, and the gateway client, which may only
+    // introspect tokens and exists once its password is set
+    static List<UserDetails> basicUsers(SecurityProperties security, String clientName, String clientPassword) {
+        SecurityProperties.User admin = security.getUser();
+        if (admin.isPasswordGenerated()) {
+            log.warn("Using generated password for '{}': {}", admin.getName(), admin.getPassword());
+        }
+
+        List<UserDetails> users = new ArrayList<>(2);
+        users.add(User.withUsername(admin.getName())
+                .password(encoded(admin.getPassword()))
+                .roles(admin.getRoles().toArray(String[]::new))
+                .build());
+        if (clientPassword != null && !clientPassword.isBlank()) {
+            users.add(User.withUsername(clientName).password(encoded(clientPassword)).roles(INTROSPECT_ROLE).build());
+        }
+        return users;
+    }
+
+    // Plain passwords are compared as given, as Spring Boot does for spring.security.user.password
+    private static String encoded(String password) {
+        return ENCODED_PASSWORD.matcher(password).matches() ? password : "{noop}" + password;
+    }
+}
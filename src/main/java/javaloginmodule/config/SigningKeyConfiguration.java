@@ -0,0 +1,28 @@
+package javaloginmodule.config;
+
+import javaloginmodule.repository.SigningKeyRepository;
+import javaloginmodule.security.InMemorySigningKeyStore;
+import javaloginmodule.security.SqliteSigningKeyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// "sqlite" shares ES256 key pairs between every node on the primary database; "memory" keeps them in this process
+@Configuration
+public class SigningKeyConfiguration {
+
+    @Bean
+    @DependsOnDatabaseInitialization
+    @ConditionalOnProperty(name = "jwt.signing.key-store", havingValue = "sqlite", matchIfMissing = true)
+    public SqliteSigningKeyStore sqliteSigningKeyStore(SigningKeyRepository repository, @Value("${jwt.secret}") String jwtSecret) {
+        return new SqliteSigningKeyStore(repository, jwtSecret);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jwt.signing.key-store", havingValue = "memory")
+    public InMemorySigningKeyStore inMemorySigningKeyStore() {
+        return new InMemorySigningKeyStore();
+    }
+}
@@ -0,0 +1,35 @@
+package javaloginmodule.config;
+
+import javaloginmodule.repository.TokenRevocationRepository;
+import javaloginmodule.repository.UserCache;
+import javaloginmodule.security.InMemoryTokenRevocationStore;
+import javaloginmodule.security.JWTTokenService;
+import javaloginmodule.security.SqliteTokenRevocationStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// "sqlite" shares revocations between every node on the primary database; "memory" keeps them on this node
+@Configuration
+public class TokenRevocationConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @DependsOnDatabaseInitialization
+    @ConditionalOnProperty(name = "auth.token-revocation.store", havingValue = "sqlite", matchIfMissing = true)
+    public SqliteTokenRevocationStore sqliteTokenRevocationStore(TokenRevocationRepository repository, UserCache userCache,
+                                                                 @Value("${auth.token-revocation.poll-interval:PT1S}") Duration pollInterval) {
+        // Password changes and deletes revoke the user's tokens, so other nodes drop their cached row with them
+        return new SqliteTokenRevocationStore(repository, JWTTokenService.REVOCATION_RETENTION, pollInterval,
+                userCache::invalidateId);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "auth.token-revocation.store", havingValue = "memory")
+    public InMemoryTokenRevocationStore inMemoryTokenRevocationStore() {
+        return new InMemoryTokenRevocationStore(JWTTokenService.REVOCATION_RETENTION);
+    }
+}
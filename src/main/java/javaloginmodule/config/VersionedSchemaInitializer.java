@@ -0,0 +1,31 @@
+package javaloginmodule.config;
+
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.core.io.Resource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Boot's spring.sql.init initializer, skipped when the database already records the current scripts
+class VersionedSchemaInitializer extends SqlDataSourceScriptDatabaseInitializer {
+
+    private final DataSource dataSource;
+    private final List<Resource> scripts;
+
+    VersionedSchemaInitializer(DataSource dataSource, SqlInitializationProperties properties, List<Resource> scripts) {
+        super(dataSource, properties);
+        this.dataSource = dataSource;
+        this.scripts = scripts;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        String checksum = SchemaVersion.checksum(scripts);
+        if (SchemaVersion.isCurrent(dataSource, checksum)) return false;
+
+        boolean initialized = super.initializeDatabase();
+        if (initialized) SchemaVersion.record(dataSource, checksum);
+        return initialized;
+    }
+}
@@ -1,28 +1,95 @@
 package javaloginmodule.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.http.HttpServletRequest;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.exceptions.UnauthorizedAccessException;
+import javaloginmodule.model.AuthOutcome;
+import javaloginmodule.model.AuthResponse;
+import javaloginmodule.model.PasswordUpdateRequest;
+import javaloginmodule.model.Token;
 import javaloginmodule.model.UserDetailsResponse;
 import javaloginmodule.model.UserRequest;
 import javaloginmodule.service.AuthService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 @Controller
 @RequestMapping("api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginFailureResponses loginFailures;
 
-    public AuthController(AuthService authService) {
+    // Slice tests start the web layer without metrics auto-configuration
+    public AuthController(AuthService authService, ObjectProvider<MeterRegistry> meterRegistry) {
         this.authService = authService;
+        this.loginFailures = new LoginFailureResponses(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
     }
 
     @PostMapping("/register")
     public ResponseEntity<UserDetailsResponse> register(@RequestBody UserRequest request) {
         UserDetailsResponse response = authService.register(request);
 
-        return null;
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody UserRequest request, HttpServletRequest httpRequest) {
+        return switch (authService.attemptLogin(request, httpRequest.getRemoteAddr())) {
+            case AuthOutcome.Authenticated authenticated -> ResponseEntity.ok(authenticated.response());
+            case AuthOutcome.Rejected rejection -> loginFailures.of(rejection, httpRequest.getRequestURI());
+        };
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody Token refreshToken) {
+        AuthResponse response = authService.refresh(refreshToken);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody Token refreshToken) {
+        authService.logout(refreshToken);
+
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/password")
+    public ResponseEntity<AuthResponse> updatePassword(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                       @RequestBody PasswordUpdateRequest request) {
+        if (request.password() == null || request.password().isBlank()) {
+            throw new BadRequestException("Password must not be blank");
+        }
+        AuthResponse response = authService.updatePassword(bearerToken(authorization), request.password());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/user")
+    public ResponseEntity<Void> delete(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        authService.delete(bearerToken(authorization));
+
+        return ResponseEntity.noContent().build();
+    }
+
+    static Token bearerToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)
+                || authorization.substring(7).isBlank()) {
+            throw new UnauthorizedAccessException("Missing bearer token");
+        }
+        return new Token(authorization.substring(7).trim());
     }
 }
@@ -0,0 +1,36 @@
+package javaloginmodule.controller;
+
+import javaloginmodule.security.EcSigningKeyRing;
+import javaloginmodule.security.JWTTokenService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.Optional;
+
+@Controller
+public class JwksController {
+    private static final String EMPTY_JWKS = "{\"keys\":[]}";
+
+    private final JWTTokenService tokenService;
+
+    public JwksController(JWTTokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    // The key set is serialized once per rotation. The next key is published an interval ahead,
+    // so clients may cache the set for half an interval without missing a key.
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks() {
+        Optional<EcSigningKeyRing> keyRing = tokenService.getKeyRing();
+        if (keyRing.isEmpty()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(EMPTY_JWKS);
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(keyRing.get().getRotationInterval().dividedBy(2)).cachePublic())
+                .body(keyRing.get().jwks());
+    }
+}
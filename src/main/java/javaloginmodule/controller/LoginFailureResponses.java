@@ -0,0 +1,61 @@
+package javaloginmodule.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import javaloginmodule.model.AuthOutcome;
+import javaloginmodule.model.ErrorResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// Error responses for rejected logins, built directly from the outcome instead of through the exception
+// handlers. Bodies, statuses and auth.errors series match what the exception handlers produced.
+final class LoginFailureResponses {
+
+    private final Counter unknownUser;
+    private final Counter invalidCredentials;
+    private volatile Timestamp timestamp = new Timestamp(0, LocalDateTime.MIN);
+
+    LoginFailureResponses(MeterRegistry meterRegistry) {
+        this.unknownUser = errorCounter(meterRegistry, "UserNotFoundException", HttpStatus.NOT_FOUND);
+        this.invalidCredentials = errorCounter(meterRegistry, "InvalidCredentialsException", HttpStatus.UNAUTHORIZED);
+    }
+
+    private static Counter errorCounter(MeterRegistry meterRegistry, String exception, HttpStatus status) {
+        return Counter.builder("auth.errors")
+                .tag("exception", exception)
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry);
+    }
+
+    ResponseEntity<ErrorResponse> of(AuthOutcome.Rejected rejection, String path) {
+        HttpStatus status = switch (rejection) {
+            case AuthOutcome.UnknownUser unknown -> {
+                unknownUser.increment();
+                yield HttpStatus.NOT_FOUND;
+            }
+            case AuthOutcome.InvalidCredentials invalid -> {
+                invalidCredentials.increment();
+                yield HttpStatus.UNAUTHORIZED;
+            }
+        };
+        ErrorResponse body = new ErrorResponse(now(), status.value(), status.getReasonPhrase(), rejection.message(), path);
+        return ResponseEntity.status(status).body(body);
+    }
+
+    // Error timestamps are truncated to seconds, so one clock read and one LocalDateTime serve a whole second
+    private LocalDateTime now() {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.second() != second) {
+            current = new Timestamp(second, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+            timestamp = current;
+        }
+        return current.value();
+    }
+
+    private record Timestamp(long second, LocalDateTime value) {
+    }
+}
@@ -0,0 +1,84 @@
+package javaloginmodule.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.AuthOutcome;
+import javaloginmodule.model.AuthResponse;
+import javaloginmodule.model.PasswordUpdateRequest;
+import javaloginmodule.model.Token;
+import javaloginmodule.model.UserDetailsResponse;
+import javaloginmodule.model.UserRequest;
+import javaloginmodule.service.ReactiveAuthService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+// Same routes and payloads as AuthController, served on WebFlux when spring.main.web-application-type=reactive
+@Controller
+@RequestMapping("api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private final ReactiveAuthService authService;
+    private final LoginFailureResponses loginFailures;
+
+    public ReactiveAuthController(ReactiveAuthService authService, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.authService = authService;
+        this.loginFailures = new LoginFailureResponses(meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<UserDetailsResponse>> register(@RequestBody UserRequest request) {
+        return authService.register(request).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<?>> login(@RequestBody UserRequest request, ServerHttpRequest httpRequest) {
+        InetSocketAddress remoteAddress = httpRequest.getRemoteAddress();
+        String clientIp = remoteAddress == null || remoteAddress.getAddress() == null ? null : remoteAddress.getAddress().getHostAddress();
+
+        return authService.attemptLogin(request, clientIp).map(outcome -> switch (outcome) {
+            case AuthOutcome.Authenticated authenticated -> ResponseEntity.ok(authenticated.response());
+            case AuthOutcome.Rejected rejection -> loginFailures.of(rejection, httpRequest.getPath().value());
+        });
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<AuthResponse>> refresh(@RequestBody Token refreshToken) {
+        return authService.refresh(refreshToken).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(@RequestBody Token refreshToken) {
+        return authService.logout(refreshToken).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @PutMapping("/password")
+    public Mono<ResponseEntity<AuthResponse>> updatePassword(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                             @RequestBody PasswordUpdateRequest request) {
+        if (request.password() == null || request.password().isBlank()) {
+            return Mono.error(new BadRequestException("Password must not be blank"));
+        }
+        return Mono.defer(() -> authService.updatePassword(AuthController.bearerToken(authorization), request.password()))
+                .map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/user")
+    public Mono<ResponseEntity<Void>> delete(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return Mono.defer(() -> authService.delete(AuthController.bearerToken(authorization)))
+                .thenReturn(ResponseEntity.noContent().build());
+    }
+}
@@ -0,0 +1,34 @@
+package javaloginmodule.controller;
+
+import javaloginmodule.model.TokenIntrospection;
+import javaloginmodule.service.TokenIntrospectionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+// Same route as TokenIntrospectionController. A batch verifies synchronously and waits for its slices,
+// so it runs off the event loop.
+@Controller
+@RequestMapping("/api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTokenIntrospectionController {
+    private final TokenIntrospectionService introspectionService;
+
+    public ReactiveTokenIntrospectionController(TokenIntrospectionService introspectionService) {
+        this.introspectionService = introspectionService;
+    }
+
+    @PostMapping("/introspect")
+    public Mono<ResponseEntity<List<TokenIntrospection>>> introspect(@RequestBody List<String> tokens) {
+        return Mono.fromCallable(() -> introspectionService.introspect(tokens))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,108 @@
+package javaloginmodule.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.BulkRegistrationResult;
+import javaloginmodule.model.UserDetailsResponse;
+import javaloginmodule.model.UserImportResult;
+import javaloginmodule.model.UserPage;
+import javaloginmodule.model.UserRequest;
+import javaloginmodule.service.ReactiveAuthService;
+import javaloginmodule.service.UserDirectoryService;
+import javaloginmodule.service.UserTransferService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// UserAdminController's routes for the WebFlux stack, restricted to the ADMIN role in ReactiveSecurityConfig.
+// Database work runs on ReactiveAuthService's scheduler, never on an event-loop thread.
+@Controller
+@RequestMapping("api/admin/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserAdminController {
+    // Buffers the import body may hold ahead of the parser
+    private static final int IMPORT_DEMAND = 16;
+
+    private final ReactiveAuthService authService;
+    private final UserDirectoryService directoryService;
+    private final UserTransferService transferService;
+
+    public ReactiveUserAdminController(ReactiveAuthService authService, UserDirectoryService directoryService,
+                                       UserTransferService transferService) {
+        this.authService = authService;
+        this.directoryService = directoryService;
+        this.transferService = transferService;
+    }
+
+    // The same {"users": [...], "next": "<cursor>"} body as the servlet route; a page is at most
+    // UserDirectoryService.MAX_PAGE_SIZE users, so it is collected on the database scheduler and written at once
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<UserPage>> list(@RequestParam(required = false) String prefix,
+                                               @RequestParam(required = false) String after,
+                                               @RequestParam(required = false) Integer limit) {
+        return authService.blocking(() -> {
+            List<UserDetailsResponse> users = new ArrayList<>();
+            String next = directoryService.listUsers(prefix, after, limit, users::add);
+            return ResponseEntity.ok(new UserPage(users, next));
+        });
+    }
+
+    // The export pages through the table on a database thread; that thread waits whenever the client is behind,
+    // so memory stays bounded however many users there are
+    @GetMapping(value = "/export", produces = UserAdminController.NDJSON)
+    public ResponseEntity<Flux<DataBuffer>> export(ServerHttpResponse response) {
+        Flux<DataBuffer> body = Flux.from(DataBufferUtils.outputStreamPublisher(out -> {
+            try {
+                transferService.exportTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, response.bufferFactory(), authService.blockingExecutor()));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(UserAdminController.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(body);
+    }
+
+    // The body is read as it arrives, through an InputStream that requests more buffers as the import consumes them
+    @PostMapping(value = "/import", consumes = UserAdminController.NDJSON)
+    public Mono<ResponseEntity<UserImportResult>> importUsers(@RequestBody Flux<DataBuffer> body) {
+        return authService.blocking(() -> {
+                    try (InputStream in = DataBufferUtils.subscriberInputStream(body, IMPORT_DEMAND)) {
+                        return ResponseEntity.ok(transferService.importFrom(in));
+                    }
+                })
+                .onErrorMap(e -> e instanceof JsonProcessingException || e instanceof RuntimeJsonMappingException,
+                        e -> new BadRequestException("Request body must be one JSON user per line"));
+    }
+
+    // Results are written as the chunks complete, in request order
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Flux<BulkRegistrationResult>> registerBulk(@RequestBody Flux<UserRequest> requests) {
+        Flux<BulkRegistrationResult> results = authService.registerAll(requests)
+                .onErrorMap(DecodingException.class, e -> new BadRequestException("Request body must be a JSON array of users"));
+
+        return ResponseEntity.ok(results);
+    }
+}
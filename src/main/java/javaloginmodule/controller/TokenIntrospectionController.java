@@ -0,0 +1,30 @@
+package javaloginmodule.controller;
+
+import javaloginmodule.model.TokenIntrospection;
+import javaloginmodule.service.TokenIntrospectionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.List;
+
+// Restricted to gateway credentials in SecurityConfig
+@Controller
+@RequestMapping("/api/auth")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TokenIntrospectionController {
+    private final TokenIntrospectionService introspectionService;
+
+    public TokenIntrospectionController(TokenIntrospectionService introspectionService) {
+        this.introspectionService = introspectionService;
+    }
+
+    // Results are returned in request order, one per token
+    @PostMapping("/introspect")
+    public ResponseEntity<List<TokenIntrospection>> introspect(@RequestBody List<String> tokens) {
+        return ResponseEntity.ok(introspectionService.introspect(tokens));
+    }
+}
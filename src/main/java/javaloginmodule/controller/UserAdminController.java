@@ -0,0 +1,109 @@
+package javaloginmodule.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import jakarta.servlet.http.HttpServletResponse;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.UserImportResult;
+import javaloginmodule.model.UserRequest;
+import javaloginmodule.service.AuthService;
+import javaloginmodule.service.UserDirectoryService;
+import javaloginmodule.service.UserTransferService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+// Restricted to the ADMIN role in SecurityConfig; the export contains every password hash, and bulk
+// registration creates accounts without the per-request backpressure of /api/auth/register
+@Controller
+@RequestMapping("api/admin/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserAdminController {
+    static final String NDJSON = "application/x-ndjson";
+
+    private final AuthService authService;
+    private final UserTransferService transferService;
+    private final UserDirectoryService directoryService;
+    private final ObjectMapper objectMapper;
+
+    public UserAdminController(AuthService authService, UserTransferService transferService,
+                               UserDirectoryService directoryService, ObjectMapper objectMapper) {
+        this.authService = authService;
+        this.transferService = transferService;
+        this.directoryService = directoryService;
+        this.objectMapper = objectMapper;
+    }
+
+    // {"users": [...], "next": "<cursor>"}; rows are written as the database returns them
+    @GetMapping
+    public void list(@RequestParam(required = false) String prefix,
+                     @RequestParam(required = false) String after,
+                     @RequestParam(required = false) Integer limit,
+                     HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("users");
+            String next = directoryService.listUsers(prefix, after, limit, user -> {
+                try {
+                    generator.writeObject(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeStringField("next", next);
+            generator.writeEndObject();
+        }
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setHeader("Content-Disposition", "attachment; filename=\"users.ndjson\"");
+        transferService.exportTo(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public ResponseEntity<UserImportResult> importUsers(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(transferService.importFrom(body));
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            throw new BadRequestException("Request body must be one JSON user per line");
+        }
+    }
+
+    // Streams a JSON array of users in and a JSON array of per-user results out
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void registerBulk(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        try (MappingIterator<UserRequest> requests = objectMapper.readerFor(UserRequest.class).readValues(body);
+             JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            authService.registerAll(requests, result -> {
+                try {
+                    generator.writeObject(result);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+            throw new BadRequestException("Request body must be a JSON array of users");
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package javaloginmodule.exceptions;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.servlet.http.HttpServletRequest;
 import javaloginmodule.model.ErrorResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
@@ -11,10 +18,27 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    // Slice tests start the web layer without metrics auto-configuration
+    public GlobalExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    private void count(Exception ex, HttpStatus status) {
+        Counter.builder("auth.errors")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+    }
+
     @ExceptionHandler(UserAlreadyExistsException.class)
     public ResponseEntity<ErrorResponse> handleUserAlreadyExists(UserAlreadyExistsException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.CONFLICT);
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
                 HttpStatus.CONFLICT.value(),
@@ -27,6 +51,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ErrorResponse> handleBadRequest(BadRequestException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.BAD_REQUEST);
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
                 HttpStatus.BAD_REQUEST.value(),
@@ -39,6 +64,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(InvalidCredentialsException.class)
     public ResponseEntity<ErrorResponse> handleInvalidCredentials(InvalidCredentialsException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.UNAUTHORIZED);
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
                 HttpStatus.UNAUTHORIZED.value(),
@@ -51,6 +77,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleUserNotFound(UserNotFoundException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.NOT_FOUND);
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
                 HttpStatus.NOT_FOUND.value(),
@@ -63,6 +90,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(UnauthorizedAccessException.class)
     public ResponseEntity<ErrorResponse> handleUserNotFound(UnauthorizedAccessException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.NOT_FOUND);
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
                 HttpStatus.UNAUTHORIZED.value(),
@@ -73,15 +101,78 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    // Only more shards, or reusing the ids of deleted users, lets registration continue
+    @ExceptionHandler(UserIdsExhaustedException.class)
+    public ResponseEntity<ErrorResponse> handleUserIdsExhausted(UserIdsExhaustedException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.INSUFFICIENT_STORAGE);
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                HttpStatus.INSUFFICIENT_STORAGE.value(),
+                "Insufficient Storage",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).body(errorResponse);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.TOO_MANY_REQUESTS);
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too Many Requests",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
+    // A body that is not valid JSON for the endpoint, such as an object where an array is expected
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadableBody(HttpMessageNotReadableException ex, HttpServletRequest request) {
+        count(ex, HttpStatus.BAD_REQUEST);
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request",
+                "Malformed request body",
+                request.getRequestURI()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    // Spring MVC's own errors, such as unknown routes or wrong methods and media types, keep their status
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGeneralErrors(Exception ex, HttpServletRequest request) {
+        HttpStatus status = ex instanceof org.springframework.web.ErrorResponse e
+                ? HttpStatus.valueOf(e.getStatusCode().value())
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+        count(ex, status);
         ErrorResponse errorResponse = new ErrorResponse(
                 LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
-                HttpStatus.INTERNAL_SERVER_ERROR.value(),
-                "Internal Server Error",
+                status.value(),
+                status.getReasonPhrase(),
                 ex.getMessage(),
                 request.getRequestURI()
         );
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        return ResponseEntity.status(status).body(errorResponse);
     }
 }
@@ -0,0 +1,68 @@
+package javaloginmodule.exceptions;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.model.ErrorResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// GlobalExceptionHandler's error bodies and auth.errors counts for the WebFlux stack
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveExceptionHandler(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handle(Exception ex, ServerHttpRequest request) {
+        HttpStatus status = switch (ex) {
+            case UserAlreadyExistsException e -> HttpStatus.CONFLICT;
+            case BadRequestException e -> HttpStatus.BAD_REQUEST;
+            case InvalidCredentialsException e -> HttpStatus.UNAUTHORIZED;
+            case UnauthorizedAccessException e -> HttpStatus.UNAUTHORIZED;
+            case UserNotFoundException e -> HttpStatus.NOT_FOUND;
+            case ServiceUnavailableException e -> HttpStatus.SERVICE_UNAVAILABLE;
+            case TooManyRequestsException e -> HttpStatus.TOO_MANY_REQUESTS;
+            case UserIdsExhaustedException e -> HttpStatus.INSUFFICIENT_STORAGE;
+            // WebFlux's own errors: unknown routes, wrong methods or media types and unreadable bodies
+            case ResponseStatusException e -> HttpStatus.valueOf(e.getStatusCode().value());
+            default -> HttpStatus.INTERNAL_SERVER_ERROR;
+        };
+
+        Counter.builder("auth.errors")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(meterRegistry)
+                .increment();
+        ErrorResponse errorResponse = new ErrorResponse(
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                status.value(),
+                status.getReasonPhrase(),
+                ex.getMessage(),
+                request.getPath().value()
+        );
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (ex instanceof TooManyRequestsException e) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        } else if (status == HttpStatus.SERVICE_UNAVAILABLE) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.body(errorResponse);
+    }
+}
@@ -0,0 +1,15 @@
+package javaloginmodule.exceptions;
+
+// Thrown from a preallocated instance without a stack trace, so rejecting a flood costs no allocation
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
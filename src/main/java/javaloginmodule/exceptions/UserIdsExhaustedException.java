@@ -0,0 +1,7 @@
+package javaloginmodule.exceptions;
+
+public class UserIdsExhaustedException extends RuntimeException {
+    public UserIdsExhaustedException() {
+        super("No user ids are left on this shard");
+    }
+}
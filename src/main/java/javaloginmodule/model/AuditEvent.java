@@ -0,0 +1,13 @@
+package javaloginmodule.model;
+
+// One row of the auth_events audit trail. userId is null when the attempt never resolved to a user.
+public record AuditEvent(long occurredAtMillis, Type type, Outcome outcome, Integer userId, String username, String clientIp) {
+
+    public enum Type {
+        REGISTER, LOGIN, UPDATE_PASSWORD, DELETE
+    }
+
+    public enum Outcome {
+        SUCCESS, DENIED, THROTTLED, ERROR
+    }
+}
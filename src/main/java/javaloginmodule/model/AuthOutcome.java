@@ -0,0 +1,29 @@
+package javaloginmodule.model;
+
+// Result of a login attempt. Unknown usernames and wrong passwords are the normal traffic of a public
+// login endpoint, so they come back as values instead of exceptions.
+public sealed interface AuthOutcome {
+
+    Rejected INVALID_CREDENTIALS = new InvalidCredentials();
+
+    record Authenticated(AuthResponse response) implements AuthOutcome {
+    }
+
+    sealed interface Rejected extends AuthOutcome {
+        String message();
+    }
+
+    record UnknownUser(String username) implements Rejected {
+        @Override
+        public String message() {
+            return "User with username '" + username + "' not found";
+        }
+    }
+
+    record InvalidCredentials() implements Rejected {
+        @Override
+        public String message() {
+            return "Invalid credentials";
+        }
+    }
+}
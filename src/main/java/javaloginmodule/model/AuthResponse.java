@@ -1,4 +1,4 @@
 package javaloginmodule.model;
 
-public record AuthResponse(UserResponse user, Token token) {
+public record AuthResponse(UserResponse user, Token token, Token refreshToken) {
 }
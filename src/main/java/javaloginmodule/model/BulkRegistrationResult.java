@@ -0,0 +1,10 @@
+package javaloginmodule.model;
+
+public record BulkRegistrationResult(String username, Status status, Integer id) {
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID
+    }
+}
@@ -0,0 +1,4 @@
+package javaloginmodule.model;
+
+public record PasswordUpdateRequest(String password) {
+}
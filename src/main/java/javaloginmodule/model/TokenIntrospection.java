@@ -0,0 +1,14 @@
+package javaloginmodule.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Follows the RFC 7662 response shape: an inactive token reveals nothing beyond "active": false
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenIntrospection(boolean active, String sub, String username, Long exp) {
+
+    private static final TokenIntrospection INACTIVE = new TokenIntrospection(false, null, null, null);
+
+    public static TokenIntrospection inactive() {
+        return INACTIVE;
+    }
+}
@@ -1,3 +1,10 @@
 package javaloginmodule.model;
 
-public record User(int id, String username, String passwordHash) {}
+import java.time.LocalDateTime;
+
+public record User(int id, String username, String passwordHash, LocalDateTime createdAt) {
+
+    public User(int id, String username, String passwordHash) {
+        this(id, username, passwordHash, null);
+    }
+}
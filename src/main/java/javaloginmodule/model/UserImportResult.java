@@ -0,0 +1,4 @@
+package javaloginmodule.model;
+
+// existing: username already present, left unchanged; invalid: missing fields or a hash no hasher recognizes
+public record UserImportResult(long read, long imported, long existing, long invalid) {}
@@ -0,0 +1,6 @@
+package javaloginmodule.model;
+
+import java.util.List;
+
+// next is the cursor of the following page, or null on the last page
+public record UserPage(List<UserDetailsResponse> users, String next) {}
@@ -0,0 +1,69 @@
+package javaloginmodule.repository;
+
+import javaloginmodule.model.AuditEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+@Repository
+public class AuditEventRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO auth_events "
+            + "(occurred_at, event_type, outcome, user_id, username, client_ip) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final DatabaseAccess database;
+
+    public AuditEventRepository(JdbcTemplate jdbcTemplate) {
+        this(DatabaseAccess.direct(jdbcTemplate));
+    }
+
+    @Autowired
+    public AuditEventRepository(DatabaseAccess database) {
+        this.database = database;
+    }
+
+    // One transaction per call, whether or not the writes go through the group-commit writer
+    public void insertAll(List<AuditEvent> events) {
+        if (events.isEmpty()) return;
+        database.write(jdbcTemplate -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            insertAll(connection, events);
+            return null;
+        }));
+    }
+
+    private static void insertAll(Connection connection, List<AuditEvent> events) throws SQLException {
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) connection.setAutoCommit(false);
+        try {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                for (AuditEvent event : events) {
+                    ps.setLong(1, event.occurredAtMillis());
+                    ps.setString(2, event.type().name());
+                    ps.setString(3, event.outcome().name());
+                    if (event.userId() != null) {
+                        ps.setInt(4, event.userId());
+                    } else {
+                        ps.setNull(4, Types.INTEGER);
+                    }
+                    ps.setString(5, event.username());
+                    ps.setString(6, event.clientIp());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            if (ownTransaction) connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) connection.rollback();
+            throw e;
+        } finally {
+            if (ownTransaction) connection.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package javaloginmodule.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Function;
+
+public class DatabaseAccess {
+
+    private final JdbcTemplate reads;
+    private final JdbcTemplate writes;
+    private final GroupCommitWriter writer;
+
+    public DatabaseAccess(JdbcTemplate reads, GroupCommitWriter writer) {
+        this(reads, null, writer);
+    }
+
+    private DatabaseAccess(JdbcTemplate reads, JdbcTemplate writes, GroupCommitWriter writer) {
+        this.reads = reads;
+        this.writes = writes;
+        this.writer = writer;
+    }
+
+    public static DatabaseAccess direct(JdbcTemplate jdbcTemplate) {
+        return new DatabaseAccess(jdbcTemplate, jdbcTemplate, null);
+    }
+
+    public JdbcTemplate reads() {
+        return reads;
+    }
+
+    public <T> T write(Function<JdbcTemplate, T> work) {
+        return writer != null ? writer.submit(work) : work.apply(writes);
+    }
+}
@@ -0,0 +1,163 @@
+package javaloginmodule.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Runs every write on one thread and commits queued writes together, one savepoint per write
+public class GroupCommitWriter implements AutoCloseable {
+
+    private record Task<T>(Function<JdbcTemplate, T> work, CompletableFuture<T> result) {}
+
+    private record Outcome(Object value, RuntimeException error) {}
+
+    private final DataSource dataSource;
+    private final SQLExceptionTranslator exceptionTranslator;
+    private final BlockingQueue<Task<?>> queue;
+    private final int maxBatchSize;
+    private final Thread thread;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private volatile boolean running = true;
+
+    public GroupCommitWriter(DataSource dataSource, int queueCapacity, int maxBatchSize) {
+        this.dataSource = dataSource;
+        this.exceptionTranslator = new SQLErrorCodeSQLExceptionTranslator(dataSource);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.thread = Thread.ofPlatform().name("sqlite-writer").daemon(true).start(this::run);
+    }
+
+    public <T> T submit(Function<JdbcTemplate, T> work) {
+        if (!running) throw new IllegalStateException("Writer is closed");
+
+        Task<T> task = new Task<>(work, new CompletableFuture<>());
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing write", e);
+        }
+
+        try {
+            return task.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw e;
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Task<?>> batch) {
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                JdbcTemplate template = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                template.setExceptionTranslator(exceptionTranslator);
+
+                for (Task<?> task : batch) {
+                    outcomes.add(apply(connection, template, task));
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            failAll(batch, exceptionTranslator.translate("Group commit", null, e));
+            return;
+        } catch (RuntimeException e) {
+            failAll(batch, e);
+            return;
+        }
+
+        batches.increment();
+        writes.add(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), outcomes.get(i));
+        }
+    }
+
+    private Outcome apply(Connection connection, JdbcTemplate template, Task<?> task) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            Object value = task.work().apply(template);
+            connection.releaseSavepoint(savepoint);
+            return new Outcome(value, null);
+        } catch (RuntimeException e) {
+            // Only this write is undone; the rest of the batch still commits
+            connection.rollback(savepoint);
+            return new Outcome(null, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void complete(Task<T> task, Outcome outcome) {
+        if (outcome.error() != null) {
+            task.result().completeExceptionally(outcome.error());
+        } else {
+            task.result().complete((T) outcome.value());
+        }
+    }
+
+    private static void failAll(List<Task<?>> batch, RuntimeException error) {
+        RuntimeException failure = error != null ? error : new IllegalStateException("Group commit failed");
+        for (Task<?> task : batch) {
+            task.result().completeExceptionally(failure);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package javaloginmodule.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.OptionalLong;
+
+@Repository
+public class RefreshTokenRepository {
+
+    public record RevokedToken(long id, long expiresAtMillis) {}
+
+    private final DatabaseAccess database;
+
+    public RefreshTokenRepository(JdbcTemplate jdbcTemplate) {
+        this(DatabaseAccess.direct(jdbcTemplate));
+    }
+
+    @Autowired
+    public RefreshTokenRepository(DatabaseAccess database) {
+        this.database = database;
+    }
+
+    public long insert(int userId, long familyId, long expiresAtMillis) {
+        return database.write(jdbcTemplate -> insert(jdbcTemplate, userId, familyId, expiresAtMillis));
+    }
+
+    // Revokes the presented token and issues its successor in one write. Empty means the token was already
+    // revoked, i.e. it is being replayed.
+    public OptionalLong rotate(long tokenId, int userId, long familyId, long expiresAtMillis) {
+        return database.write(jdbcTemplate -> {
+            int revoked = jdbcTemplate.update(
+                    "UPDATE refresh_tokens SET revoked = 1 WHERE id = ? AND user_id = ? AND revoked = 0", tokenId, userId);
+            if (revoked == 0) return OptionalLong.empty();
+            return OptionalLong.of(insert(jdbcTemplate, userId, familyId, expiresAtMillis));
+        });
+    }
+
+    public boolean revoke(long tokenId) {
+        return database.write(jdbcTemplate ->
+                jdbcTemplate.update("UPDATE refresh_tokens SET revoked = 1 WHERE id = ? AND revoked = 0", tokenId)) > 0;
+    }
+
+    public List<RevokedToken> revokeFamily(long familyId) {
+        return revokeWhere("family_id", familyId);
+    }
+
+    public List<RevokedToken> revokeAllForUser(int userId) {
+        return revokeWhere("user_id", userId);
+    }
+
+    // Streams revoked tokens that have not expired yet, used to rebuild the in-memory index at startup
+    public void forEachRevoked(long nowMillis, RowCallbackHandler handler) {
+        database.reads().query("SELECT id, expires_at FROM refresh_tokens WHERE revoked = 1 AND expires_at > ?",
+                handler, nowMillis);
+    }
+
+    // Expired tokens fail verification before their row is read, so their rows can go
+    public int deleteExpired(long nowMillis) {
+        return database.write(jdbcTemplate -> jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at <= ?", nowMillis));
+    }
+
+    private List<RevokedToken> revokeWhere(String column, long value) {
+        return database.write(jdbcTemplate -> {
+            List<RevokedToken> tokens = jdbcTemplate.query(
+                    "SELECT id, expires_at FROM refresh_tokens WHERE " + column + " = ? AND revoked = 0",
+                    (rs, rowNum) -> new RevokedToken(rs.getLong("id"), rs.getLong("expires_at")),
+                    value);
+            jdbcTemplate.update("UPDATE refresh_tokens SET revoked = 1 WHERE " + column + " = ? AND revoked = 0", value);
+            return tokens;
+        });
+    }
+
+    private static long insert(JdbcTemplate jdbcTemplate, int userId, long familyId, long expiresAtMillis) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO refresh_tokens (user_id, family_id, expires_at) VALUES (?, ?, ?)", new String[]{"id"});
+            ps.setInt(1, userId);
+            ps.setLong(2, familyId);
+            ps.setLong(3, expiresAtMillis);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKeyAs(Number.class).longValue();
+    }
+}
@@ -0,0 +1,57 @@
+package javaloginmodule.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// ES256 key pairs shared by every node, one row per generation. Keys arrive encoded and sealed by
+// SqliteSigningKeyStore; this class only moves rows.
+@Repository
+public class SigningKeyRepository {
+
+    public record Row(long generation, String keyId, String publicKey, String sealedPrivateKey, long activatesAtMillis) {}
+
+    private final DatabaseAccess database;
+
+    public SigningKeyRepository(JdbcTemplate jdbcTemplate) {
+        this(DatabaseAccess.direct(jdbcTemplate));
+    }
+
+    @Autowired
+    public SigningKeyRepository(DatabaseAccess database) {
+        this.database = database;
+    }
+
+    public List<Row> latest(int count) {
+        return database.reads().query(
+                "SELECT generation, key_id, public_key, private_key, activates_at FROM signing_keys ORDER BY generation DESC LIMIT ?",
+                (rs, rowNum) -> new Row(rs.getLong("generation"), rs.getString("key_id"), rs.getString("public_key"),
+                        rs.getString("private_key"), rs.getLong("activates_at")),
+                count);
+    }
+
+    // The generation is the primary key, so of several nodes storing the same generation only the first succeeds
+    public boolean insertIfAbsent(Row row) {
+        try {
+            database.write(jdbcTemplate -> jdbcTemplate.update(
+                    "INSERT INTO signing_keys (generation, key_id, public_key, private_key, activates_at) VALUES (?, ?, ?, ?, ?)",
+                    row.generation(), row.keyId(), row.publicKey(), row.sealedPrivateKey(), row.activatesAtMillis()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public void activate(long generation, long activatesAtMillis) {
+        database.write(jdbcTemplate -> jdbcTemplate.update(
+                "UPDATE signing_keys SET activates_at = ? WHERE generation = ? AND activates_at > ?",
+                activatesAtMillis, generation, activatesAtMillis));
+    }
+
+    public void deleteBefore(long generation) {
+        database.write(jdbcTemplate -> jdbcTemplate.update("DELETE FROM signing_keys WHERE generation < ?", generation));
+    }
+}
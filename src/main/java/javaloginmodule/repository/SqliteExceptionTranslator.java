@@ -0,0 +1,28 @@
+package javaloginmodule.repository;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.support.AbstractFallbackSQLExceptionTranslator;
+import org.sqlite.SQLiteException;
+
+import java.sql.SQLException;
+
+// Spring ships no error codes for SQLite; registered for it in sql-error-codes.xml
+public class SqliteExceptionTranslator extends AbstractFallbackSQLExceptionTranslator {
+
+    @Override
+    protected DataAccessException doTranslate(String task, String sql, SQLException ex) {
+        if (!(ex instanceof SQLiteException sqliteException)) return null;
+
+        String message = buildMessage(task, sql, ex);
+        return switch (sqliteException.getResultCode()) {
+            case SQLITE_CONSTRAINT_UNIQUE, SQLITE_CONSTRAINT_PRIMARYKEY -> new DuplicateKeyException(message, ex);
+            case SQLITE_CONSTRAINT, SQLITE_CONSTRAINT_NOTNULL, SQLITE_CONSTRAINT_CHECK, SQLITE_CONSTRAINT_FOREIGNKEY ->
+                    new DataIntegrityViolationException(message, ex);
+            case SQLITE_BUSY, SQLITE_BUSY_SNAPSHOT, SQLITE_LOCKED -> new PessimisticLockingFailureException(message, ex);
+            default -> null;
+        };
+    }
+}
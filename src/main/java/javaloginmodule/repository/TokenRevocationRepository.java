@@ -0,0 +1,39 @@
+package javaloginmodule.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+// Access token cut-offs shared by every node, in epoch microseconds. Ids only grow, so the highest id a node has applied is the
+// version of its view, and catching up is a range scan on the primary key.
+@Repository
+public class TokenRevocationRepository {
+
+    private final DatabaseAccess database;
+
+    public TokenRevocationRepository(JdbcTemplate jdbcTemplate) {
+        this(DatabaseAccess.direct(jdbcTemplate));
+    }
+
+    @Autowired
+    public TokenRevocationRepository(DatabaseAccess database) {
+        this.database = database;
+    }
+
+    public void insert(int userId, long revokedBeforeMicros) {
+        database.write(jdbcTemplate -> jdbcTemplate.update(
+                "INSERT INTO token_revocations (user_id, revoked_before) VALUES (?, ?)", userId, revokedBeforeMicros));
+    }
+
+    // Rows past afterId in id order, as id, user_id, revoked_before
+    public void forEachAfter(long afterId, RowCallbackHandler handler) {
+        database.reads().query("SELECT id, user_id, revoked_before FROM token_revocations WHERE id > ? ORDER BY id",
+                handler, afterId);
+    }
+
+    public int deleteRevokedBefore(long cutoffMicros) {
+        return database.write(jdbcTemplate ->
+                jdbcTemplate.update("DELETE FROM token_revocations WHERE revoked_before < ?", cutoffMicros));
+    }
+}
@@ -0,0 +1,148 @@
+package javaloginmodule.repository;
+
+import javaloginmodule.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class UserCache {
+
+    private record Entry(User user, long expiresAtNanos) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Integer, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> byUsername = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UserCache(@Value("${auth.user-cache.max-size:0}") int maxSize,
+                     @Value("${auth.user-cache.ttl:PT5M}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public static UserCache disabled() {
+        return new UserCache(0, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0 && ttlNanos > 0;
+    }
+
+    public Optional<User> getById(int id) {
+        return hit(byId.get(id));
+    }
+
+    public Optional<User> getByUsername(String username) {
+        if (username == null) return Optional.empty();
+        return hit(byUsername.get(username));
+    }
+
+    // Taken before reading from the database; a write in between makes the read unsafe to cache
+    public long stamp() {
+        return generation.get();
+    }
+
+    public void put(User user, long stamp) {
+        if (!isEnabled() || generation.get() != stamp) return;
+
+        if (byId.size() >= maxSize) {
+            evict();
+        }
+
+        Entry entry = new Entry(user, System.nanoTime() + ttlNanos);
+        byId.put(user.id(), entry);
+        byUsername.put(user.username(), entry);
+
+        if (generation.get() != stamp) {
+            remove(entry);
+        }
+    }
+
+    public void invalidateId(int id) {
+        generation.incrementAndGet();
+        Entry entry = byId.get(id);
+        if (entry != null) remove(entry);
+    }
+
+    public void invalidateUsername(String username) {
+        generation.incrementAndGet();
+        if (username == null) return;
+        Entry entry = byUsername.get(username);
+        if (entry != null) remove(entry);
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        byId.clear();
+        byUsername.clear();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private Optional<User> hit(Entry entry) {
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (entry.expiresAtNanos() - System.nanoTime() <= 0) {
+            if (remove(entry)) evictions.increment();
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry.user());
+    }
+
+    private boolean remove(Entry entry) {
+        boolean removed = byId.remove(entry.user().id(), entry);
+        byUsername.remove(entry.user().username(), entry);
+        return removed;
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        for (Entry entry : byId.values()) {
+            if (entry.expiresAtNanos() - now <= 0 && remove(entry)) {
+                evictions.increment();
+            }
+        }
+
+        // Trim an extra tenth so a full cache does not rescan on every put
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<Entry> iterator = byId.values().iterator();
+        while (byId.size() > target && iterator.hasNext()) {
+            if (remove(iterator.next())) evictions.increment();
+        }
+    }
+}
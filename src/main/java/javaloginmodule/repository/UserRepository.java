@@ -1,120 +1,644 @@
 package javaloginmodule.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import javaloginmodule.exceptions.UserAlreadyExistsException;
+import javaloginmodule.exceptions.UserIdsExhaustedException;
 import javaloginmodule.exceptions.UserNotFoundException;
 import javaloginmodule.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 public class UserRepository {
-    private final JdbcTemplate jdbcTemplate;
+    private static final int ID_LOOKUP_CHUNK = 500;
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    // Same text as SQLite's datetime('now'), which H2 also parses into its TIMESTAMP column. H2 keeps
+    // fractional seconds, which are appended only when present so SQLite's text still compares in order.
+    private static final DateTimeFormatter CREATED_AT_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd HH:mm:ss")
+            .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
+            .toFormatter();
+
+    private static final RowMapper<User> USER_ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new User(
+                rs.getInt("id"),
+                rs.getString("username"),
+                rs.getString("password"),
+                createdAt == null ? null : createdAt.toLocalDateTime()
+        );
+    };
+
+    // Writes hand back the affected row in the same statement: SQLite uses RETURNING, H2 reads a data change delta table.
+    // New ids are sequence * BUCKETS + bucket, with sequence values reserved from the shard's user_id_sequence
+    // row in one atomic update, so concurrent writers never share a value and deleted ids are never handed out again.
+    private record WriteStatements(String insert, String updateByUsername, String updateById, String delete,
+                                   String reserveIds) {}
+
+    private static final WriteStatements RETURNING = new WriteStatements(
+            "INSERT INTO users (id, username, password) VALUES (?, ?, ?) RETURNING *",
+            "UPDATE users SET password = ? WHERE username = ? RETURNING *",
+            "UPDATE users SET password = ? WHERE id = ? RETURNING *",
+            "DELETE FROM users WHERE id = ? RETURNING *",
+            "UPDATE user_id_sequence SET allocated = allocated + ? RETURNING allocated"
+    );
+
+    private static final WriteStatements DELTA_TABLE = new WriteStatements(
+            "SELECT * FROM FINAL TABLE (INSERT INTO users (id, username, password) VALUES (?, ?, ?))",
+            "SELECT * FROM FINAL TABLE (UPDATE users SET password = ? WHERE username = ?)",
+            "SELECT * FROM FINAL TABLE (UPDATE users SET password = ? WHERE id = ?)",
+            "SELECT * FROM OLD TABLE (DELETE FROM users WHERE id = ?)",
+            "SELECT allocated FROM FINAL TABLE (UPDATE user_id_sequence SET allocated = allocated + ?)"
+    );
+
+    private final UserShards shards;
+    private final UserCache userCache;
+    private final UsernameBloomFilter usernameFilter;
+    private final WriteStatements writeStatements;
+
+    // Time spent in the database only; cache hits and filtered misses are not recorded
+    private final Timer insertTimer;
+    private final Timer insertBatchTimer;
+    private final Timer updateTimer;
+    private final Timer deleteTimer;
+    private final Timer selectByUsernameTimer;
+    private final Timer selectByIdTimer;
+    private final Timer selectCreatedAtTimer;
+    private final Timer selectPageTimer;
 
     public UserRepository(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+        this(DatabaseAccess.direct(jdbcTemplate), UserCache.disabled(), UsernameBloomFilter.disabled());
     }
 
-    public User save(User user) {
-        String sql = "INSERT INTO users (username, password) VALUES (?,?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
+    public UserRepository(DatabaseAccess database, UserCache userCache, UsernameBloomFilter usernameFilter) {
+        this(UserShards.single(database), userCache, usernameFilter, Metrics.globalRegistry);
+    }
 
-        try {
-            jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
-                ps.setString(1, user.username());
-                ps.setString(2, user.passwordHash());
+    @Autowired
+    public UserRepository(UserShards shards, UserCache userCache, UsernameBloomFilter usernameFilter,
+                          MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.userCache = userCache;
+        this.usernameFilter = usernameFilter;
+        this.writeStatements = writeStatementsFor(shards.get(0).reads());
+        this.insertTimer = queryTimer(meterRegistry, "insert");
+        this.insertBatchTimer = queryTimer(meterRegistry, "insert_batch");
+        this.updateTimer = queryTimer(meterRegistry, "update");
+        this.deleteTimer = queryTimer(meterRegistry, "delete");
+        this.selectByUsernameTimer = queryTimer(meterRegistry, "select_by_username");
+        this.selectByIdTimer = queryTimer(meterRegistry, "select_by_id");
+        this.selectCreatedAtTimer = queryTimer(meterRegistry, "select_created_at");
+        this.selectPageTimer = queryTimer(meterRegistry, "select_page");
+    }
+
+    private static Timer queryTimer(MeterRegistry meterRegistry, String query) {
+        return Timer.builder("auth.db.query")
+                .tag("query", query)
+                .register(meterRegistry);
+    }
+
+    private static WriteStatements writeStatementsFor(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.execute((ConnectionCallback<WriteStatements>) UserRepository::writeStatementsFor);
+    }
+
+    private static WriteStatements writeStatementsFor(Connection connection) throws SQLException {
+        return "H2".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()) ? DELTA_TABLE : RETURNING;
+    }
+
+    // Reserves count consecutive values of the shard's id sequence and returns the first
+    static long reserveIds(Connection connection, int count) throws SQLException {
+        return reserveIds(connection, writeStatementsFor(connection), count);
+    }
+
+    private static long reserveIds(Connection connection, WriteStatements statements, int count) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(statements.reserveIds())) {
+            ps.setInt(1, count);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new IllegalStateException("The user_id_sequence row is missing");
+                return rs.getLong(1) - count + 1;
+            }
+        }
+    }
+
+    // Moves the shard's id sequence past ids that were written with a value of their own
+    static void advanceIdsPast(Connection connection, long sequence) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("UPDATE user_id_sequence SET allocated = ? WHERE allocated < ?")) {
+            ps.setLong(1, sequence);
+            ps.setLong(2, sequence);
+            ps.executeUpdate();
+        }
+    }
+
+    // Ids stay ints, which leaves each shard about 33.5 million sequence values. Running out rolls back the
+    // write that needed the id, so the failed attempt does not use a value up.
+    static int idOf(long sequence, int bucket) {
+        long id = sequence * UserShards.BUCKETS + bucket;
+        if (id > Integer.MAX_VALUE) throw new UserIdsExhaustedException();
+        return (int) id;
+    }
+
+    @PostConstruct
+    public void loadUsernameFilter() {
+        if (!usernameFilter.isEnabled()) return;
+
+        long userCount = 0;
+        for (DatabaseAccess shard : shards.all()) {
+            Long shardCount = shard.reads().queryForObject("SELECT COUNT(*) FROM users", Long.class);
+            userCount += shardCount == null ? 0 : shardCount;
+        }
+        usernameFilter.reset(userCount);
+        for (DatabaseAccess shard : shards.all()) {
+            shard.reads().query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        "SELECT username FROM users", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(1000);
                 return ps;
-            }, keyHolder);
+            }, (RowCallbackHandler) rs -> usernameFilter.put(rs.getString(1)));
+        }
+        usernameFilter.markReady();
+    }
 
-            Map<String, Object> keys = keyHolder.getKeys();
-            int id = ((Number) keys.get("ID")).intValue();
+    public User save(User user) {
+        // Added before the insert so the new user is never a definite miss; a failed insert only costs a false positive
+        usernameFilter.put(user.username());
 
-            return new User(id, user.username(), user.passwordHash());
+        try {
+            return insertTimer.record(() -> shards.forUsername(user.username()).write(jdbcTemplate ->
+                    jdbcTemplate.execute((ConnectionCallback<User>) connection -> insert(connection, user))));
         } catch (DuplicateKeyException e) {
             throw new UserAlreadyExistsException(user.username());
+        } finally {
+            userCache.invalidateUsername(user.username());
         }
     }
 
-    public User update(User user) {
-        String sql = "UPDATE users SET password = ? WHERE username = ?";
+    // Inserts in one batched transaction per shard; conflicting usernames come back empty instead of aborting the batch
+    public List<Optional<User>> saveAll(List<User> users) {
+        if (users.isEmpty()) return List.of();
+        users.forEach(user -> usernameFilter.put(user.username()));
 
-        int rowsAffected = jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setString(1, user.passwordHash());
-            ps.setString(2, user.username());
-            return ps;
-        });
+        try {
+            if (shards.size() == 1) return insertShard(shards.get(0), users);
+
+            List<List<Integer>> positions = new ArrayList<>(shards.size());
+            for (int shard = 0; shard < shards.size(); shard++) positions.add(new ArrayList<>());
+            for (int i = 0; i < users.size(); i++) {
+                positions.get(shards.shardOfUsername(users.get(i).username())).add(i);
+            }
+
+            List<Optional<User>> results = new ArrayList<>(Collections.nCopies(users.size(), Optional.empty()));
+            for (int shard = 0; shard < shards.size(); shard++) {
+                List<Integer> shardPositions = positions.get(shard);
+                if (shardPositions.isEmpty()) continue;
+
+                List<Optional<User>> inserted = insertShard(shards.get(shard), shardPositions.stream().map(users::get).toList());
+                for (int i = 0; i < shardPositions.size(); i++) {
+                    results.set(shardPositions.get(i), inserted.get(i));
+                }
+            }
+            return results;
+        } finally {
+            users.forEach(user -> userCache.invalidateUsername(user.username()));
+        }
+    }
+
+    private List<Optional<User>> insertShard(DatabaseAccess shard, List<User> users) {
+        try {
+            return insertBatchTimer.record(() -> shard.write(jdbcTemplate ->
+                    jdbcTemplate.execute((ConnectionCallback<List<Optional<User>>>) connection -> insertAll(connection, users))));
+        } catch (DuplicateKeyException e) {
+            // A concurrent insert won the race after the existence check; settle each row on its own
+            List<Optional<User>> results = new ArrayList<>(users.size());
+            for (User user : users) {
+                try {
+                    results.add(Optional.of(save(user)));
+                } catch (UserAlreadyExistsException conflict) {
+                    results.add(Optional.empty());
+                }
+            }
+            return results;
+        }
+    }
+
+    // Restores exported users with their stored hash and creation time. A user keeps its id unless that id is
+    // taken or does not carry the username's bucket; usernames that already exist are left alone.
+    // Returns how many users were inserted.
+    public int importAll(List<User> users) {
+        if (users.isEmpty()) return 0;
+        users.forEach(user -> usernameFilter.put(user.username()));
+
+        try {
+            List<List<User>> byShard = new ArrayList<>(shards.size());
+            for (int shard = 0; shard < shards.size(); shard++) byShard.add(new ArrayList<>());
+            for (User user : users) {
+                byShard.get(shards.shardOfUsername(user.username())).add(user);
+            }
+
+            int imported = 0;
+            for (int shard = 0; shard < shards.size(); shard++) {
+                List<User> shardUsers = byShard.get(shard);
+                if (shardUsers.isEmpty()) continue;
 
-        if (rowsAffected == 0) {
-            throw new UserNotFoundException(user.username());
+                DatabaseAccess target = shards.get(shard);
+                imported += insertBatchTimer.record(() -> target.write(jdbcTemplate ->
+                        jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> importAll(connection, shardUsers))));
+            }
+            return imported;
+        } finally {
+            users.forEach(user -> userCache.invalidateUsername(user.username()));
         }
+    }
 
-        return fetchByUsername(user.username());
+    // Walks each shard in id order one keyset page at a time, so memory stays flat and no read holds a
+    // snapshot of the whole table while the sink writes out a slow response
+    public long exportAll(Consumer<User> sink) {
+        long exported = 0;
+        for (DatabaseAccess shard : shards.all()) {
+            int[] lastId = {Integer.MIN_VALUE};
+            int[] pageRows = new int[1];
+            do {
+                pageRows[0] = 0;
+                shard.reads().query(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(
+                            "SELECT id, username, password, created_at FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setInt(1, lastId[0]);
+                    ps.setInt(2, EXPORT_PAGE_SIZE);
+                    ps.setFetchSize(EXPORT_PAGE_SIZE);
+                    return ps;
+                }, (RowCallbackHandler) rs -> {
+                    User user = USER_ROW_MAPPER.mapRow(rs, pageRows[0]++);
+                    lastId[0] = user.id();
+                    sink.accept(user);
+                });
+                exported += pageRows[0];
+            } while (pageRows[0] == EXPORT_PAGE_SIZE);
+        }
+        return exported;
     }
 
-    public void delete(int id) {
-        String sql = "DELETE FROM users WHERE id = ?";
-        int rowsAffected = jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql);
-            ps.setInt(1, id);
-            return ps;
+    // Up to limit users in (created_at, id) order after the given position, or from the start when
+    // afterCreatedAt is null. The position is a seek into idx_users_created_at_id rather than an OFFSET,
+    // so a deep page reads as few rows as the first. A single shard streams rows straight to the sink;
+    // with several, each shard's page is merged in order.
+    public void listPage(String usernamePrefix, LocalDateTime afterCreatedAt, int afterId, int limit, Consumer<User> sink) {
+        StringBuilder sql = new StringBuilder("SELECT id, username, password, created_at FROM users WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (afterCreatedAt != null) {
+            sql.append(" AND (created_at, id) > (?, ?)");
+            parameters.add(afterCreatedAt.format(CREATED_AT_FORMAT));
+            parameters.add(afterId);
+        }
+        if (usernamePrefix != null && !usernamePrefix.isEmpty()) {
+            // A range instead of LIKE, which SQLite cannot serve from the username index
+            sql.append(" AND username >= ?");
+            parameters.add(usernamePrefix);
+            String upperBound = prefixUpperBound(usernamePrefix);
+            if (upperBound != null) {
+                sql.append(" AND username < ?");
+                parameters.add(upperBound);
+            }
+        }
+        sql.append(" ORDER BY created_at, id LIMIT ?");
+        parameters.add(limit);
+        Object[] arguments = parameters.toArray();
+
+        selectPageTimer.record(() -> {
+            if (shards.size() == 1) {
+                int[] rowNum = new int[1];
+                shards.get(0).reads().query(sql.toString(),
+                        (RowCallbackHandler) rs -> sink.accept(USER_ROW_MAPPER.mapRow(rs, rowNum[0]++)), arguments);
+                return;
+            }
+
+            List<User> merged = new ArrayList<>();
+            for (DatabaseAccess shard : shards.all()) {
+                merged.addAll(shard.reads().query(sql.toString(), USER_ROW_MAPPER, arguments));
+            }
+            merged.stream()
+                    .sorted(Comparator.comparing(User::createdAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                            .thenComparingInt(User::id))
+                    .limit(limit)
+                    .forEach(sink);
         });
+    }
 
-        if (rowsAffected == 0) {
-            throw new UserNotFoundException(id);
+    // The least string above every string that starts with prefix, or null when there is none. SQLite
+    // compares UTF-8 text bytewise, which is code point order, so the last code point below the maximum
+    // is incremented, skipping the surrogate range, and any maximal code points after it are dropped.
+    static String prefixUpperBound(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int codePoint = prefix.codePointBefore(end);
+            end -= Character.charCount(codePoint);
+            if (codePoint < Character.MAX_CODE_POINT) {
+                int next = codePoint + 1;
+                if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+                    next = Character.MAX_SURROGATE + 1;
+                }
+                return prefix.substring(0, end) + Character.toString(next);
+            }
         }
+        return null;
     }
 
-    public User fetchByUsername(String username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
+    public User update(User user) {
+        Optional<User> updated;
         try {
-            return jdbcTemplate.queryForObject(
-                    sql,
-                    (rs, rowNum) -> new User(
-                            rs.getInt("id"),
-                            rs.getString("username"),
-                            rs.getString("password")
-                    ),
-                    username
-            );
-        } catch (EmptyResultDataAccessException e) {
-            throw new UserNotFoundException(username);
+            updated = updateTimer.record(() -> shards.forUsername(user.username()).write(jdbcTemplate -> jdbcTemplate.query(
+                    writeStatements.updateByUsername(), USER_ROW_MAPPER, user.passwordHash(), user.username())
+                    .stream().findFirst()));
+        } finally {
+            // Invalidate after the write so a concurrent read of the old row cannot be cached
+            userCache.invalidateUsername(user.username());
         }
+
+        return updated.orElseThrow(() -> new UserNotFoundException(user.username()));
+    }
+
+    public User updatePassword(int id, String passwordHash) {
+        Optional<User> updated;
+        try {
+            updated = updateTimer.record(() -> shards.forId(id).write(jdbcTemplate -> jdbcTemplate.query(
+                    writeStatements.updateById(), USER_ROW_MAPPER, passwordHash, id)
+                    .stream().findFirst()));
+        } finally {
+            userCache.invalidateId(id);
+        }
+
+        return updated.orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    public User delete(int id) {
+        Optional<User> deleted;
+        try {
+            deleted = deleteTimer.record(() -> shards.forId(id).write(jdbcTemplate -> jdbcTemplate.query(
+                    writeStatements.delete(), USER_ROW_MAPPER, id)
+                    .stream().findFirst()));
+        } finally {
+            userCache.invalidateId(id);
+        }
+
+        return deleted.orElseThrow(() -> new UserNotFoundException(id));
+    }
+
+    public User fetchByUsername(String username) {
+        return findByUsername(username).orElseThrow(() -> new UserNotFoundException(username));
+    }
+
+    // Unknown usernames are expected on the login path, so a miss is an empty result rather than an exception
+    public Optional<User> findByUsername(String username) {
+        if (username == null) return Optional.empty();
+
+        Optional<User> cached = userCache.getByUsername(username);
+        if (cached.isPresent()) return cached;
+
+        if (!usernameFilter.mightContain(username)) {
+            return Optional.empty();
+        }
+
+        String sql = "SELECT * FROM users WHERE username = ?";
+        long stamp = userCache.stamp();
+        List<User> found = selectByUsernameTimer.record(() -> shards.forUsername(username).reads().query(sql, USER_ROW_MAPPER, username));
+        if (found.isEmpty()) return Optional.empty();
+
+        User user = found.getFirst();
+        userCache.put(user, stamp);
+        return Optional.of(user);
     }
 
     public Optional<User> fetchById(int id) {
+        Optional<User> cached = userCache.getById(id);
+        if (cached.isPresent()) return cached;
+
         String sql = "SELECT * FROM users WHERE id = ?";
+        long stamp = userCache.stamp();
         try {
-            User user = jdbcTemplate.queryForObject(
-                    sql,
-                    (rs, rowNum) -> new User(
-                            rs.getInt("id"),
-                            rs.getString("username"),
-                            rs.getString("password")
-                    ),
-                    id
-            );
+            User user = selectByIdTimer.record(() -> shards.forId(id).reads().queryForObject(sql, USER_ROW_MAPPER, id));
+            userCache.put(user, stamp);
             return Optional.of(user);
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    // The sequence value is reserved in the same transaction as the insert, so a failed insert rolls it back
+    // and it is handed out again
+    private User insert(Connection connection, User user) throws SQLException {
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) connection.setAutoCommit(false);
+        try {
+            long sequence = reserveIds(connection, writeStatements, 1);
+            User inserted;
+            try (PreparedStatement ps = connection.prepareStatement(writeStatements.insert())) {
+                ps.setInt(1, idOf(sequence, UserShards.bucketOf(user.username())));
+                ps.setString(2, user.username());
+                ps.setString(3, user.passwordHash());
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    inserted = USER_ROW_MAPPER.mapRow(rs, 0);
+                }
+            }
+            if (ownTransaction) connection.commit();
+            return inserted;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) connection.rollback();
+            throw e;
+        } finally {
+            if (ownTransaction) connection.setAutoCommit(true);
+        }
+    }
+
+    private List<Optional<User>> insertAll(Connection connection, List<User> users) throws SQLException {
+        String insertSql = "INSERT INTO users (id, username, password) "
+                + "SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = ?)";
+
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) connection.setAutoCommit(false);
+        try {
+            // Only usernames that are still free get a sequence value, so conflicts do not use up the shard's ids.
+            // The NOT EXISTS guard stays for a writer outside the group-commit queue.
+            Set<String> taken = new HashSet<>(fetchByUsernames(connection, users.stream().map(User::username).toList()).keySet());
+            List<User> fresh = new ArrayList<>(users.size());
+            for (User user : users) {
+                if (taken.add(user.username())) fresh.add(user);
+            }
+
+            List<String> inserted = new ArrayList<>(fresh.size());
+            if (!fresh.isEmpty()) {
+                long sequence = reserveIds(connection, writeStatements, fresh.size());
+                int[] counts;
+                try (PreparedStatement ps = connection.prepareStatement(insertSql)) {
+                    for (User user : fresh) {
+                        ps.setInt(1, idOf(sequence++, UserShards.bucketOf(user.username())));
+                        ps.setString(2, user.username());
+                        ps.setString(3, user.passwordHash());
+                        ps.setString(4, user.username());
+                        ps.addBatch();
+                    }
+                    counts = ps.executeBatch();
+                }
+                for (int i = 0; i < fresh.size(); i++) {
+                    if (counts[i] != 0) inserted.add(fresh.get(i).username());
+                }
+            }
+            Map<String, User> rows = fetchByUsernames(connection, inserted);
+
+            if (ownTransaction) connection.commit();
+
+            // A username listed twice comes back once, for its first occurrence
+            List<Optional<User>> results = new ArrayList<>(users.size());
+            for (User user : users) {
+                results.add(Optional.ofNullable(rows.remove(user.username())));
+            }
+            return results;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) connection.rollback();
+            throw e;
+        } finally {
+            if (ownTransaction) connection.setAutoCommit(true);
+        }
+    }
+
+    private int importAll(Connection connection, List<User> users) throws SQLException {
+        String importSql = "INSERT INTO users (id, username, password, created_at) "
+                + "SELECT ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM users WHERE username = ?)";
+        String now = LocalDateTime.now(ZoneOffset.UTC).format(CREATED_AT_FORMAT);
+
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) connection.setAutoCommit(false);
+        try {
+            // Usernames that exist are left alone, so restoring the same backup again reserves nothing
+            Set<String> takenUsernames = new HashSet<>(fetchByUsernames(connection, users.stream().map(User::username).toList()).keySet());
+            List<User> importing = new ArrayList<>(users.size());
+            for (User user : users) {
+                if (takenUsernames.add(user.username())) importing.add(user);
+            }
+
+            // A user keeps its id when the id carries the username's bucket and no stored row or earlier user has it.
+            // Only the others take a sequence value, and kept ids must stay behind the sequence.
+            Set<Integer> takenIds = fetchIds(connection, importing.stream()
+                    .filter(UserRepository::carriesOwnBucket).map(User::id).toList());
+            boolean[] keepsId = new boolean[importing.size()];
+            int fresh = 0;
+            long keptSequence = 0;
+            for (int i = 0; i < importing.size(); i++) {
+                User user = importing.get(i);
+                keepsId[i] = carriesOwnBucket(user) && takenIds.add(user.id());
+                if (keepsId[i]) {
+                    keptSequence = Math.max(keptSequence, Math.floorDiv(user.id(), UserShards.BUCKETS));
+                } else {
+                    fresh++;
+                }
+            }
+            advanceIdsPast(connection, keptSequence);
+            long sequence = fresh == 0 ? 0 : reserveIds(connection, writeStatements, fresh);
+
+            int imported = 0;
+            try (PreparedStatement ps = connection.prepareStatement(importSql)) {
+                for (int i = 0; i < importing.size(); i++) {
+                    User user = importing.get(i);
+                    ps.setInt(1, keepsId[i] ? user.id() : idOf(sequence++, UserShards.bucketOf(user.username())));
+                    ps.setString(2, user.username());
+                    ps.setString(3, user.passwordHash());
+                    ps.setString(4, user.createdAt() == null ? now : user.createdAt().format(CREATED_AT_FORMAT));
+                    ps.setString(5, user.username());
+                    ps.addBatch();
+                }
+                for (int count : ps.executeBatch()) {
+                    if (count != 0) imported++;
+                }
+            }
+            if (ownTransaction) connection.commit();
+            return imported;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) connection.rollback();
+            throw e;
+        } finally {
+            if (ownTransaction) connection.setAutoCommit(true);
+        }
+    }
+
+    private static boolean carriesOwnBucket(User user) {
+        return user.id() > 0 && UserShards.bucketOf(user.id()) == UserShards.bucketOf(user.username());
+    }
+
+    private Set<Integer> fetchIds(Connection connection, List<Integer> ids) throws SQLException {
+        Set<Integer> found = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += ID_LOOKUP_CHUNK) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + ID_LOOKUP_CHUNK, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id FROM users WHERE id IN (" + placeholders + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) found.add(rs.getInt(1));
+                }
+            }
+        }
+        return found;
+    }
+
+    private Map<String, User> fetchByUsernames(Connection connection, List<String> usernames) throws SQLException {
+        Map<String, User> rows = new HashMap<>(usernames.size() * 2);
+        for (int from = 0; from < usernames.size(); from += ID_LOOKUP_CHUNK) {
+            List<String> chunk = usernames.subList(from, Math.min(from + ID_LOOKUP_CHUNK, usernames.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT * FROM users WHERE username IN (" + placeholders + ")")) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        User user = USER_ROW_MAPPER.mapRow(rs, rows.size());
+                        rows.put(user.username(), user);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
     public Optional<LocalDateTime> getUserCreationTimestamp(int id) {
         String sql = "SELECT created_at FROM users WHERE id = ?";
         try {
-            Timestamp timestamp = jdbcTemplate.queryForObject(sql, Timestamp.class, id);
+            Timestamp timestamp = selectCreatedAtTimer.record(() -> shards.forId(id).reads().queryForObject(sql, Timestamp.class, id));
             return Optional.of(timestamp.toLocalDateTime());
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
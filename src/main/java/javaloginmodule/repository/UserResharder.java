@@ -0,0 +1,245 @@
+package javaloginmodule.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Streams users from one shard layout into another. copy() can run while the service keeps serving from
+// the source layout, including when the primary database is also shard 0 of the target. At cutover the
+// service is stopped, copy() and prune() run again to catch up, and it restarts on the target layout.
+// Users keep their ids, except rows created before sharding whose id does not carry their bucket: those
+// get a fresh id and their refresh tokens are revoked.
+public class UserResharder {
+    private static final int BATCH_SIZE = 500;
+
+    public record Result(long copied, long rekeyed) {}
+
+    private record Row(int id, String username, String password, Object createdAt, int bucket) {
+        boolean needsNewId() {
+            return UserShards.bucketOf(id) != bucket;
+        }
+    }
+
+    private final UserShards source;
+    private final UserShards target;
+
+    public UserResharder(UserShards source, UserShards target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    public Result copy() {
+        // Fresh ids come from each target shard's sequence, which first moves past every id in either layout
+        // so they never collide with a row still to be copied
+        long floor = Math.max(maxId(source), maxId(target)) / UserShards.BUCKETS;
+        for (DatabaseAccess shard : target.all()) {
+            shard.write(jdbcTemplate -> jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                UserRepository.advanceIdsPast(connection, floor);
+                return null;
+            }));
+        }
+        List<List<Row>> pending = new ArrayList<>(target.size());
+        for (int shard = 0; shard < target.size(); shard++) pending.add(new ArrayList<>(BATCH_SIZE));
+        List<Integer> rekeyedIds = new ArrayList<>();
+        long[] copied = {0};
+
+        for (DatabaseAccess shard : source.all()) {
+            stream(shard.reads(), "SELECT id, username, password, created_at FROM users", rs -> {
+                String username = rs.getString("username");
+                Row row = new Row(rs.getInt("id"), username, rs.getString("password"), rs.getObject("created_at"),
+                        UserShards.bucketOf(username));
+
+                int targetShard = row.bucket() % target.size();
+                List<Row> batch = pending.get(targetShard);
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    rekeyedIds.addAll(upsert(target.get(targetShard), batch));
+                    batch.clear();
+                }
+                copied[0]++;
+            });
+        }
+        for (int shard = 0; shard < target.size(); shard++) {
+            if (!pending.get(shard).isEmpty()) rekeyedIds.addAll(upsert(target.get(shard), pending.get(shard)));
+        }
+
+        // Refresh tokens stay on the primary database and still point at the old ids
+        for (int from = 0; from < rekeyedIds.size(); from += BATCH_SIZE) {
+            List<Object[]> ids = rekeyedIds.subList(from, Math.min(from + BATCH_SIZE, rekeyedIds.size())).stream()
+                    .map(id -> new Object[]{id})
+                    .toList();
+            source.get(0).write(jdbcTemplate -> jdbcTemplate.batchUpdate("UPDATE refresh_tokens SET revoked = 1 WHERE user_id = ?", ids));
+        }
+        return new Result(copied[0], rekeyedIds.size());
+    }
+
+    // Deletes target users that no longer exist in the source or that belong to another shard.
+    // Only safe once the service has stopped, since the primary database may be one of the targets.
+    public long prune() {
+        List<Long> hashes = new ArrayList<>();
+        for (DatabaseAccess shard : source.all()) {
+            stream(shard.reads(), "SELECT username FROM users", rs -> hashes.add(usernameHash(rs.getString(1))));
+        }
+        long[] known = hashes.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        long pruned = 0;
+        for (int shardIndex = 0; shardIndex < target.size(); shardIndex++) {
+            int owner = shardIndex;
+            DatabaseAccess shard = target.get(shardIndex);
+            List<Object[]> stale = new ArrayList<>();
+            stream(shard.reads(), "SELECT username FROM users", rs -> {
+                String username = rs.getString(1);
+                if (Arrays.binarySearch(known, usernameHash(username)) < 0 || target.shardOfUsername(username) != owner) {
+                    stale.add(new Object[]{username});
+                }
+            });
+            for (int from = 0; from < stale.size(); from += BATCH_SIZE) {
+                List<Object[]> batch = stale.subList(from, Math.min(from + BATCH_SIZE, stale.size()));
+                shard.write(jdbcTemplate -> jdbcTemplate.batchUpdate("DELETE FROM users WHERE username = ?", batch));
+            }
+            pruned += stale.size();
+        }
+        return pruned;
+    }
+
+    // A row counts as present when its username is there under an id that carries the right bucket.
+    // Anything else is replaced, which also clears a pre-sharding row when source and target share a file.
+    // Returns the old ids of rows that were given a new id.
+    private static List<Integer> upsert(DatabaseAccess shard, List<Row> rows) {
+        List<Row> batch = List.copyOf(rows);
+        return shard.write(jdbcTemplate -> jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            boolean ownTransaction = connection.getAutoCommit();
+            if (ownTransaction) connection.setAutoCommit(false);
+            try {
+                int[] updated;
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE users SET password = ? WHERE username = ? AND id % " + UserShards.BUCKETS + " = ?")) {
+                    for (Row row : batch) {
+                        ps.setString(1, row.password());
+                        ps.setString(2, row.username());
+                        ps.setInt(3, row.bucket());
+                        ps.addBatch();
+                    }
+                    updated = ps.executeBatch();
+                }
+
+                List<Row> missing = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    if (updated[i] == 0) missing.add(batch.get(i));
+                }
+                List<Integer> rekeyed = insert(connection, missing);
+                if (ownTransaction) connection.commit();
+                return rekeyed;
+            } catch (SQLException | RuntimeException e) {
+                if (ownTransaction) connection.rollback();
+                throw e;
+            } finally {
+                if (ownTransaction) connection.setAutoCommit(true);
+            }
+        }));
+    }
+
+    private static List<Integer> insert(Connection connection, List<Row> rows) throws SQLException {
+        if (rows.isEmpty()) return List.of();
+
+        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM users WHERE username = ?")) {
+            for (Row row : rows) {
+                ps.setString(1, row.username());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        // Rows registered in the source since the copy started keep ids the target's sequence has not seen yet
+        long keptSequence = 0;
+        int fresh = 0;
+        for (Row row : rows) {
+            if (row.needsNewId()) {
+                fresh++;
+            } else {
+                keptSequence = Math.max(keptSequence, Math.floorDiv(row.id(), UserShards.BUCKETS));
+            }
+        }
+        UserRepository.advanceIdsPast(connection, keptSequence);
+        long sequence = fresh == 0 ? 0 : UserRepository.reserveIds(connection, fresh);
+
+        List<Integer> rekeyed = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO users (id, username, password, created_at) VALUES (?, ?, ?, ?)")) {
+            for (Row row : rows) {
+                int id = row.id();
+                if (row.needsNewId()) {
+                    rekeyed.add(row.id());
+                    id = UserRepository.idOf(sequence++, row.bucket());
+                }
+                ps.setInt(1, id);
+                ps.setString(2, row.username());
+                ps.setString(3, row.password());
+                ps.setObject(4, row.createdAt());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return rekeyed;
+    }
+
+    private static long maxId(UserShards shards) {
+        long max = 0;
+        for (DatabaseAccess shard : shards.all()) {
+            Long shardMax = shard.reads().queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+            max = Math.max(max, shardMax == null ? 0 : shardMax);
+        }
+        return max;
+    }
+
+    private static void stream(JdbcTemplate jdbcTemplate, String sql, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(1000);
+            return ps;
+        }, handler);
+    }
+
+    private static long usernameHash(String username) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < username.length(); i++) {
+            hash ^= username.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // java -cp app.jar -Dloader.main=javaloginmodule.repository.UserResharder \
+    //     org.springframework.boot.loader.launch.PropertiesLauncher --from <urls> --to <urls> [--prune]
+    public static void main(String[] args) {
+        List<String> from = List.of();
+        List<String> to = List.of();
+        boolean prune = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--from" -> from = List.of(args[++i].split(","));
+                case "--to" -> to = List.of(args[++i].split(","));
+                case "--prune" -> prune = true;
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (from.isEmpty() || to.isEmpty()) {
+            throw new IllegalArgumentException("Usage: --from <jdbc urls> --to <jdbc urls> [--prune]");
+        }
+
+        UserResharder resharder = new UserResharder(UserShards.open(from, false), UserShards.open(to, true));
+        Result result = resharder.copy();
+        System.out.printf("Copied %d users, %d given new ids%n", result.copied(), result.rekeyed());
+        if (prune) {
+            System.out.printf("Pruned %d users%n", resharder.prune());
+        }
+    }
+}
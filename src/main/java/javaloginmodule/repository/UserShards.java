@@ -0,0 +1,111 @@
+package javaloginmodule.repository;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Users spread over one or more databases. A username hashes to one of BUCKETS virtual buckets and the
+// id keeps that bucket in its low bits, so lookups by username and by id both go straight to the owning
+// database. Bucket b lives in shard b % size(); resharding moves whole buckets and keeps ids unchanged.
+public class UserShards implements AutoCloseable {
+    public static final int BUCKETS = 64;
+
+    private final List<DatabaseAccess> shards;
+    private final List<AutoCloseable> resources;
+
+    public UserShards(List<DatabaseAccess> shards) {
+        this(shards, List.of());
+    }
+
+    public UserShards(List<DatabaseAccess> shards, List<AutoCloseable> resources) {
+        if (shards.isEmpty() || shards.size() > BUCKETS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + BUCKETS);
+        }
+        this.shards = List.copyOf(shards);
+        this.resources = List.copyOf(resources);
+    }
+
+    public static UserShards single(DatabaseAccess database) {
+        return new UserShards(List.of(database));
+    }
+
+    // Plain connections for the command-line tools that run beside or instead of the service
+    public static UserShards open(List<String> urls, boolean createSchema) {
+        List<DatabaseAccess> shards = new ArrayList<>();
+        for (String url : urls) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource(url.trim());
+            // The tools may read a file the running service writes to, which needs WAL
+            if (url.trim().startsWith("jdbc:sqlite:")) {
+                new JdbcTemplate(dataSource).execute("PRAGMA journal_mode=WAL");
+            }
+            if (createSchema) {
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+            }
+            shards.add(DatabaseAccess.direct(new JdbcTemplate(dataSource)));
+        }
+        return new UserShards(shards);
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public DatabaseAccess get(int shard) {
+        return shards.get(shard);
+    }
+
+    public List<DatabaseAccess> all() {
+        return shards;
+    }
+
+    public int shardOfUsername(String username) {
+        return bucketOf(username) % shards.size();
+    }
+
+    public int shardOfId(int id) {
+        return bucketOf(id) % shards.size();
+    }
+
+    public DatabaseAccess forUsername(String username) {
+        return shards.get(shardOfUsername(username));
+    }
+
+    public DatabaseAccess forId(int id) {
+        return shards.get(shardOfId(id));
+    }
+
+    // Persisted in every id, so this hash must never change
+    public static int bucketOf(String username) {
+        int hash = username.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, BUCKETS);
+    }
+
+    public static int bucketOf(int id) {
+        return Math.floorMod(id, BUCKETS);
+    }
+
+    @Override
+    public void close() throws Exception {
+        // Writers are registered before their pools, so they drain before the connections close
+        List<Exception> failures = new ArrayList<>();
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                failures.add(e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            Exception first = failures.getFirst();
+            failures.subList(1, failures.size()).forEach(first::addSuppressed);
+            throw first;
+        }
+    }
+}
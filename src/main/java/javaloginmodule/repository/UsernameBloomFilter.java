@@ -0,0 +1,158 @@
+package javaloginmodule.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Loaded from the users table at startup and updated by this node's inserts only. Users written by another
+// node or process are definite misses here, so the filter is only safe for single-writer deployments.
+@Component
+public class UsernameBloomFilter {
+
+    private record Bits(AtomicLongArray words, long bitSize, int hashFunctions, long capacity) {}
+
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final LongAdder insertions = new LongAdder();
+    private final LongAdder definiteMisses = new LongAdder();
+    private volatile Bits bits;
+    private volatile boolean ready;
+
+    public UsernameBloomFilter(@Value("${auth.username-filter.enabled:false}") boolean enabled,
+                               @Value("${auth.username-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${auth.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.expectedInsertions = Math.max(1, expectedInsertions);
+        this.falsePositiveRate = falsePositiveRate;
+        this.bits = allocate(this.expectedInsertions);
+    }
+
+    public static UsernameBloomFilter disabled() {
+        return new UsernameBloomFilter(false, 1, 0.01);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Starts a rebuild sized for the current user count; lookups answer "maybe" until markReady()
+    public void reset(long currentUsers) {
+        ready = false;
+        insertions.reset();
+        bits = allocate(Math.max(expectedInsertions, currentUsers * 2));
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public void put(String username) {
+        if (!enabled || username == null) return;
+
+        Bits current = bits;
+        long hash = hash(username);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < current.hashFunctions(); i++) {
+            setBit(current.words(), Math.floorMod(h1 + i * h2, current.bitSize()));
+        }
+        insertions.increment();
+    }
+
+    // False means the username is definitely not stored; true means it may be
+    public boolean mightContain(String username) {
+        if (username == null) return false;
+        if (!enabled || !ready) return true;
+
+        Bits current = bits;
+        long hash = hash(username);
+        long h1 = hash;
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < current.hashFunctions(); i++) {
+            long index = Math.floorMod(h1 + i * h2, current.bitSize());
+            if ((current.words().get((int) (index >>> 6)) & (1L << index)) == 0) {
+                definiteMisses.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getInsertions() {
+        return insertions.sum();
+    }
+
+    public long getDefiniteMisses() {
+        return definiteMisses.sum();
+    }
+
+    public long getBitSize() {
+        return bits.bitSize();
+    }
+
+    public int getHashFunctions() {
+        return bits.hashFunctions();
+    }
+
+    public long getCapacity() {
+        return bits.capacity();
+    }
+
+    public long getMemoryBytes() {
+        return bits.words().length() * (long) Long.BYTES;
+    }
+
+    public double getConfiguredFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    // Rate implied by the current number of insertions, which grows once capacity is exceeded
+    public double getExpectedFalsePositiveRate() {
+        Bits current = bits;
+        double fillRatio = -(double) current.hashFunctions() * insertions.sum() / current.bitSize();
+        return Math.pow(1 - Math.exp(fillRatio), current.hashFunctions());
+    }
+
+    private Bits allocate(long capacity) {
+        long bitSize = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bitSize = Math.max(64, Math.min(bitSize, (long) Integer.MAX_VALUE * Long.SIZE));
+        int hashFunctions = Math.max(1, (int) Math.round((double) bitSize / capacity * Math.log(2)));
+        int words = (int) ((bitSize + 63) >>> 6);
+        return new Bits(new AtomicLongArray(enabled ? words : 1), enabled ? (long) words * 64 : 64, hashFunctions, capacity);
+    }
+
+    private static void setBit(AtomicLongArray words, long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = words.get(word);
+            if ((current & mask) != 0) return;
+        } while (!words.compareAndSet(word, current, current | mask));
+    }
+
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,3 @@
+package javaloginmodule.security;
+
+public record AccessTokenClaims(String subject, String username, long expiresAtMillis, int userId, long issuedAtMicros) {}
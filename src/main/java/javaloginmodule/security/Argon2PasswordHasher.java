@@ -0,0 +1,153 @@
+package javaloginmodule.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Argon2id in the PHC string format: $argon2id$v=19$m=<KiB>,t=<iterations>,p=<lanes>$<salt>$<hash>.
+// Each hash or verify holds memoryKib of heap, so the hashing pool size bounds the total. Stored hashes
+// are only verified within the MAX_* limits and with this hasher's salt and hash lengths, so an imported
+// hash cannot make a login allocate gigabytes or compare a few bytes.
+@Component
+public class Argon2PasswordHasher implements PasswordHasher {
+    private static final String PREFIX = "$argon2id$";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final int MAX_MEMORY_KIB = 262_144;
+    private static final int MAX_ITERATIONS = 10;
+    private static final int MAX_PARALLELISM = 16;
+
+    private final Cost cost;
+    private final SecureRandom random = new SecureRandom();
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+
+    public Argon2PasswordHasher(int memoryKib, int iterations, int parallelism) {
+        this(memoryKib, iterations, parallelism, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public Argon2PasswordHasher(@Value("${argon2.memory-kib:19456}") int memoryKib,
+                                @Value("${argon2.iterations:2}") int iterations,
+                                @Value("${argon2.parallelism:1}") int parallelism,
+                                MeterRegistry meterRegistry) {
+        if (parallelism < 1 || memoryKib < 8 * parallelism || iterations < 1) {
+            throw new IllegalArgumentException("Argon2 needs at least one lane, one iteration and 8 KiB per lane");
+        }
+        if (memoryKib > MAX_MEMORY_KIB || iterations > MAX_ITERATIONS || parallelism > MAX_PARALLELISM) {
+            throw new IllegalArgumentException("Argon2 allows at most " + MAX_MEMORY_KIB + " KiB, "
+                    + MAX_ITERATIONS + " iterations and " + MAX_PARALLELISM + " lanes");
+        }
+        this.cost = new Cost(memoryKib, iterations, parallelism);
+        this.hashTimer = Timer.builder("auth.password.hash")
+                .tag("algorithm", algorithm())
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.password.verify")
+                .tag("algorithm", algorithm())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String algorithm() {
+        return "argon2id";
+    }
+
+    @Override
+    public boolean recognizes(String hash) {
+        return hash != null && hash.startsWith(PREFIX);
+    }
+
+    @Override
+    public boolean accepts(String hash) {
+        return parse(hash) != null;
+    }
+
+    @Override
+    public String hash(String password) {
+        if (password == null) throw new IllegalArgumentException("Password cannot be null");
+        return hashTimer.record(() -> {
+            byte[] salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+            byte[] derived = derive(password, salt, cost, HASH_LENGTH);
+            Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+            return PREFIX + "v=19$m=" + cost.memoryKib() + ",t=" + cost.iterations() + ",p=" + cost.parallelism()
+                    + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(derived);
+        });
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        return verifyTimer.record(() -> {
+            Stored stored = parse(hash);
+            if (stored == null || password == null) return false;
+            byte[] derived = derive(password, stored.salt(), stored.cost(), stored.hash().length);
+            return MessageDigest.isEqual(derived, stored.hash());
+        });
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        Stored stored = parse(hash);
+        return stored != null && !stored.cost().equals(cost);
+    }
+
+    private static byte[] derive(String password, byte[] salt, Cost cost, int length) {
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withMemoryAsKB(cost.memoryKib())
+                .withIterations(cost.iterations())
+                .withParallelism(cost.parallelism())
+                .withSalt(salt)
+                .build());
+        byte[] derived = new byte[length];
+        generator.generateBytes(password.toCharArray(), derived);
+        return derived;
+    }
+
+    // Null for anything that isn't a well-formed Argon2id v19 hash within the limits
+    private static Stored parse(String hash) {
+        if (hash == null || !hash.startsWith(PREFIX)) return null;
+        String[] parts = hash.split("\\$");
+        if (parts.length != 6 || !parts[2].equals("v=19")) return null;
+        try {
+            int memoryKib = -1, iterations = -1, parallelism = -1;
+            for (String parameter : parts[3].split(",")) {
+                int value = Integer.parseInt(parameter.substring(2));
+                switch (parameter.substring(0, 2)) {
+                    case "m=" -> memoryKib = value;
+                    case "t=" -> iterations = value;
+                    case "p=" -> parallelism = value;
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (parallelism < 1 || parallelism > MAX_PARALLELISM || memoryKib < 8 * parallelism || memoryKib > MAX_MEMORY_KIB
+                    || iterations < 1 || iterations > MAX_ITERATIONS) {
+                return null;
+            }
+            byte[] salt = Base64.getDecoder().decode(parts[4]);
+            byte[] derived = Base64.getDecoder().decode(parts[5]);
+            if (salt.length != SALT_LENGTH || derived.length != HASH_LENGTH) return null;
+            return new Stored(new Cost(memoryKib, iterations, parallelism), salt, derived);
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private record Cost(int memoryKib, int iterations, int parallelism) {
+    }
+
+    private record Stored(Cost cost, byte[] salt, byte[] hash) {
+    }
+}
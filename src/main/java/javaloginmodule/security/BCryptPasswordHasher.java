@@ -1,18 +1,132 @@
 package javaloginmodule.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 public class BCryptPasswordHasher implements PasswordHasher {
+    private static final int DEFAULT_STRENGTH = 10;
+    private static final int MIN_CALIBRATED_STRENGTH = 10;
+    private static final int MAX_CALIBRATED_STRENGTH = 16;
+    private static final int HASH_LENGTH = 60;
+
+    private final int strength;
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+
+    public BCryptPasswordHasher() {
+        this(DEFAULT_STRENGTH);
+    }
+
+    @Autowired
+    public BCryptPasswordHasher(@Value("${bcrypt.strength:0}") int strength,
+                                @Value("${bcrypt.calibration.target-ms:0}") long targetMillis,
+                                MeterRegistry meterRegistry) {
+        this(strength > 0 ? strength
+                : targetMillis > 0 ? calibrate(Duration.ofMillis(targetMillis))
+                : DEFAULT_STRENGTH, meterRegistry);
+    }
+
+    public BCryptPasswordHasher(int strength) {
+        this(strength, Metrics.globalRegistry);
+    }
+
+    public BCryptPasswordHasher(int strength, MeterRegistry meterRegistry) {
+        if (strength < 4 || strength > 31) throw new IllegalArgumentException("BCrypt strength must be between 4 and 31");
+        this.strength = strength;
+        this.hashTimer = Timer.builder("auth.password.hash")
+                .tag("algorithm", "bcrypt")
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.password.verify")
+                .tag("algorithm", "bcrypt")
+                .register(meterRegistry);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String algorithm() {
+        return "bcrypt";
+    }
+
+    @Override
+    public boolean recognizes(String hash) {
+        return costOf(hash) > 0;
+    }
+
     @Override
     public String hash(String password) {
         if (password == null) throw new IllegalArgumentException("Password cannot be null");
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+        return hashTimer.record(() -> BCrypt.hashpw(password, BCrypt.gensalt(strength)));
+    }
+
+    // Every cost doubles the work, so imports are held to what calibration could pick or this node uses
+    @Override
+    public boolean accepts(String hash) {
+        int cost = costOf(hash);
+        return hash != null && hash.length() == HASH_LENGTH && cost >= 4 && cost <= Math.max(MAX_CALIBRATED_STRENGTH, strength);
     }
 
     @Override
     public boolean verify(String password, String hash) {
-        return BCrypt.checkpw(password, hash);
+        return verifyTimer.record(() -> BCrypt.checkpw(password, hash));
+    }
+
+    // Only upgrades: calibrated nodes may settle on different strengths, and downgrading would make them
+    // rehash the same users back and forth
+    @Override
+    public boolean needsRehash(String hash) {
+        int cost = costOf(hash);
+        return cost > 0 && cost < strength;
+    }
+
+    // Highest strength whose verify time fits the budget, but never below the default strength
+    public static int calibrate(Duration budget) {
+        long budgetNanos = budget.toNanos();
+
+        // Let the JIT compile BCrypt before timing anything
+        String warmupHash = BCrypt.hashpw("calibration", BCrypt.gensalt(4));
+        for (int i = 0; i < 20; i++) {
+            BCrypt.checkpw("calibration", warmupHash);
+        }
+
+        int strength = MIN_CALIBRATED_STRENGTH;
+        long elapsed = measureVerify(strength);
+        while (strength < MAX_CALIBRATED_STRENGTH && elapsed * 2 <= budgetNanos) {
+            strength++;
+            elapsed = measureVerify(strength);
+        }
+        return elapsed <= budgetNanos ? strength : Math.max(MIN_CALIBRATED_STRENGTH, strength - 1);
+    }
+
+    static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(1) != '2' || hash.charAt(3) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(hash, 4, 6, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long measureVerify(int strength) {
+        String hash = BCrypt.hashpw("calibration", BCrypt.gensalt(strength));
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.checkpw("calibration", hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
     }
 }
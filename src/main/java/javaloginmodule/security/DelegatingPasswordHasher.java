@@ -0,0 +1,75 @@
+package javaloginmodule.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// New hashes use the algorithm chosen by auth.password.algorithm; stored hashes are verified by whichever
+// algorithm their prefix names. A table can hold a mix while logins rehash it to the active algorithm.
+@Primary
+@Component
+public class DelegatingPasswordHasher implements PasswordHasher {
+
+    private final PasswordHasher active;
+    private final List<PasswordHasher> hashers;
+
+    @Autowired
+    public DelegatingPasswordHasher(@Value("${auth.password.algorithm:bcrypt}") String algorithm,
+                                    BCryptPasswordHasher bcrypt, Argon2PasswordHasher argon2,
+                                    ScryptPasswordHasher scrypt) {
+        this(algorithm, List.of(bcrypt, argon2, scrypt));
+    }
+
+    public DelegatingPasswordHasher(String algorithm, List<PasswordHasher> hashers) {
+        this.hashers = List.copyOf(hashers);
+        this.active = this.hashers.stream()
+                .filter(hasher -> hasher.algorithm().equals(algorithm))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown password algorithm: " + algorithm));
+    }
+
+    @Override
+    public String algorithm() {
+        return active.algorithm();
+    }
+
+    @Override
+    public boolean recognizes(String hash) {
+        return hasherFor(hash) != null;
+    }
+
+    @Override
+    public boolean accepts(String hash) {
+        PasswordHasher hasher = hasherFor(hash);
+        return hasher != null && hasher.accepts(hash);
+    }
+
+    @Override
+    public String hash(String password) {
+        return active.hash(password);
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        PasswordHasher hasher = hasherFor(hash);
+        return hasher != null && hasher.verify(password, hash);
+    }
+
+    // Unknown formats are left alone, as the single-algorithm hashers do
+    @Override
+    public boolean needsRehash(String hash) {
+        PasswordHasher hasher = hasherFor(hash);
+        if (hasher == null) return false;
+        return hasher != active || active.needsRehash(hash);
+    }
+
+    private PasswordHasher hasherFor(String hash) {
+        for (PasswordHasher hasher : hashers) {
+            if (hasher.recognizes(hash)) return hasher;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,200 @@
+package javaloginmodule.security;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.ECDSAKeyProvider;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// P-256 key pairs rotated on a fixed interval. The next key is published in the JWKS one interval before it
+// signs anything and the previous key stays published for one interval after, so verifiers that cache the
+// JWKS for less than an interval always know the key a live token was signed with. The keys live in a
+// SigningKeyStore; with a shared store every node derives the same ring from it.
+public class EcSigningKeyRing implements ECDSAKeyProvider {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    // Reloads after a failed read or an unknown key id happen at most this often, so forged key ids cannot
+    // flood the store
+    private static final long RELOAD_INTERVAL_MILLIS = 1000;
+
+    public record SigningKey(String keyId, ECPublicKey publicKey, ECPrivateKey privateKey, Algorithm algorithm) {}
+
+    private record Ring(SigningKey previous, SigningKey current, SigningKey next, long nextGeneration,
+                        long rotateAtMillis, Map<String, SigningKey> byKeyId, String jwks) {}
+
+    private final Duration rotationInterval;
+    private final SigningKeyStore store;
+    private volatile Ring ring;
+    private volatile long lastReloadMillis;
+
+    public EcSigningKeyRing(Duration rotationInterval) {
+        this(rotationInterval, new InMemorySigningKeyStore());
+    }
+
+    public EcSigningKeyRing(Duration rotationInterval, SigningKeyStore store) {
+        if (rotationInterval.isNegative() || rotationInterval.isZero()) {
+            throw new IllegalArgumentException("Key rotation interval must be positive");
+        }
+        this.rotationInterval = rotationInterval;
+        this.store = store;
+        this.ring = sync(System.currentTimeMillis());
+    }
+
+    public SigningKey current(long nowMillis) {
+        Ring current = ring;
+        if (nowMillis >= current.rotateAtMillis() && nowMillis - lastReloadMillis >= RELOAD_INTERVAL_MILLIS) {
+            current = reload(current, nowMillis);
+        }
+        return current.current();
+    }
+
+    // Starts signing with the published next key now. Other nodes sharing the store pick the new ring up
+    // at their next rotation or the first time they see a token signed with a key they do not know.
+    public synchronized void rotate() {
+        long now = System.currentTimeMillis();
+        store.activate(ring.nextGeneration(), now);
+        ring = sync(now);
+    }
+
+    public String jwks() {
+        return ring.jwks();
+    }
+
+    public Duration getRotationInterval() {
+        return rotationInterval;
+    }
+
+    @Override
+    public ECPublicKey getPublicKeyById(String keyId) {
+        if (keyId == null) return null;
+
+        Ring current = ring;
+        SigningKey key = current.byKeyId().get(keyId);
+        long now = System.currentTimeMillis();
+        if (key == null && now - lastReloadMillis >= RELOAD_INTERVAL_MILLIS) {
+            key = reload(current, now).byKeyId().get(keyId);
+        }
+        return key == null ? null : key.publicKey();
+    }
+
+    @Override
+    public ECPrivateKey getPrivateKey() {
+        return ring.current().privateKey();
+    }
+
+    @Override
+    public String getPrivateKeyId() {
+        return ring.current().keyId();
+    }
+
+    private synchronized Ring reload(Ring seen, long nowMillis) {
+        // Another thread may have reloaded while this one waited for the lock
+        if (ring != seen) return ring;
+
+        lastReloadMillis = nowMillis;
+        try {
+            ring = sync(nowMillis);
+        } catch (RuntimeException e) {
+            // The current key stays published for another interval, so signing carries on and the read is retried
+        }
+        return ring;
+    }
+
+    // Reads the newest keys and stores whichever of the current and the next key is missing. Nodes may race
+    // to store a generation; the first insert wins and the others read it back.
+    private Ring sync(long nowMillis) {
+        while (true) {
+            List<SigningKeyStore.StoredKey> keys = store.latest(3);
+            if (keys.isEmpty()) {
+                store.insertIfAbsent(generate(1, nowMillis));
+                continue;
+            }
+
+            SigningKeyStore.StoredKey newest = keys.getFirst();
+            if (newest.activatesAtMillis() <= nowMillis) {
+                // The newest key already signs, so its successor is published now and signs one interval later
+                if (store.insertIfAbsent(generate(newest.generation() + 1, nowMillis + rotationInterval.toMillis()))) {
+                    store.deleteBefore(newest.generation() - 1);
+                }
+                continue;
+            }
+
+            SigningKey next = signingKey(newest);
+            SigningKey current = keys.size() > 1 ? signingKey(keys.get(1)) : next;
+            SigningKey previous = keys.size() > 2 ? signingKey(keys.get(2)) : null;
+            return ring(previous, current, next, newest.generation(), newest.activatesAtMillis());
+        }
+    }
+
+    private Ring ring(SigningKey previous, SigningKey current, SigningKey next, long nextGeneration, long rotateAtMillis) {
+        List<SigningKey> published = new ArrayList<>(3);
+        published.add(current);
+        if (next != current) published.add(next);
+        if (previous != null) published.add(previous);
+
+        Map<String, SigningKey> byKeyId = new HashMap<>();
+        List<Map<String, String>> jwks = new ArrayList<>(published.size());
+        for (SigningKey key : published) {
+            byKeyId.put(key.keyId(), key);
+            jwks.add(jwk(key));
+        }
+
+        try {
+            return new Ring(previous, current, next, nextGeneration, rotateAtMillis,
+                    Map.copyOf(byKeyId), JSON.writeValueAsString(Map.of("keys", jwks)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the JWK set", e);
+        }
+    }
+
+    private static SigningKey signingKey(SigningKeyStore.StoredKey key) {
+        return new SigningKey(key.keyId(), key.publicKey(), key.privateKey(), Algorithm.ECDSA256(key.publicKey(), key.privateKey()));
+    }
+
+    private static SigningKeyStore.StoredKey generate(long generation, long activatesAtMillis) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair pair = generator.generateKeyPair();
+            return new SigningKeyStore.StoredKey(generation, UUID.randomUUID().toString(),
+                    (ECPublicKey) pair.getPublic(), (ECPrivateKey) pair.getPrivate(), activatesAtMillis);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("P-256 key generation is not available", e);
+        }
+    }
+
+    private static Map<String, String> jwk(SigningKey key) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", key.keyId());
+        jwk.put("use", "sig");
+        jwk.put("alg", "ES256");
+        jwk.put("x", coordinate(key.publicKey().getW().getAffineX()));
+        jwk.put("y", coordinate(key.publicKey().getW().getAffineY()));
+        return jwk;
+    }
+
+    // Unsigned, left-padded to the 32-byte field size as RFC 7518 requires
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
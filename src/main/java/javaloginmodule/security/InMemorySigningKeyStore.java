@@ -0,0 +1,32 @@
+package javaloginmodule.security;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Keys of this process only: every node publishes its own JWKS and a restart invalidates every token
+public class InMemorySigningKeyStore implements SigningKeyStore {
+
+    private final NavigableMap<Long, StoredKey> keys = new TreeMap<>();
+
+    @Override
+    public synchronized List<StoredKey> latest(int count) {
+        return keys.descendingMap().values().stream().limit(count).toList();
+    }
+
+    @Override
+    public synchronized boolean insertIfAbsent(StoredKey key) {
+        return keys.putIfAbsent(key.generation(), key) == null;
+    }
+
+    @Override
+    public synchronized void activate(long generation, long activatesAtMillis) {
+        keys.computeIfPresent(generation, (ignored, key) -> key.activatesAtMillis() <= activatesAtMillis ? key
+                : new StoredKey(key.generation(), key.keyId(), key.publicKey(), key.privateKey(), activatesAtMillis));
+    }
+
+    @Override
+    public synchronized void deleteBefore(long generation) {
+        keys.headMap(generation).clear();
+    }
+}
@@ -0,0 +1,103 @@
+package javaloginmodule.security;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Cut-offs of this node only, in an open-addressing table from user id to cut-off. Lookups read one array
+// without locking or allocating; writers are serialized. A cut-off matters until every token issued before
+// it has expired, so older entries are dropped whenever the table is rebuilt.
+public class InMemoryTokenRevocationStore implements TokenRevocationStore {
+    private static final long EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    // The user id is written before the cut-off is published through the atomic array, so readers that see
+    // the cut-off see its user id
+    private record Table(int[] userIds, AtomicLongArray cutoffs, int mask) {}
+
+    private final long retentionMicros;
+    private volatile Table table = new Table(new int[MIN_CAPACITY], new AtomicLongArray(MIN_CAPACITY), MIN_CAPACITY - 1);
+    private int size;
+
+    public InMemoryTokenRevocationStore(Duration retention) {
+        this.retentionMicros = TimeUnit.NANOSECONDS.toMicros(retention.toNanos());
+    }
+
+    @Override
+    public boolean isRevoked(int userId, long issuedAtMicros) {
+        Table current = table;
+        int index = index(userId, current.mask());
+        while (true) {
+            long cutoff = current.cutoffs().get(index);
+            if (cutoff == EMPTY) return false;
+            if (current.userIds()[index] == userId) return issuedAtMicros < cutoff;
+            index = (index + 1) & current.mask();
+        }
+    }
+
+    // A later cut-off replaces an earlier one; an earlier one arriving late is ignored
+    @Override
+    public synchronized void revokeIssuedBefore(int userId, long cutoffMicros) {
+        if (cutoffMicros <= EMPTY) throw new IllegalArgumentException("Cut-offs must be positive");
+
+        int index = slot(table, userId);
+        long existing = table.cutoffs().get(index);
+        if (existing != EMPTY) {
+            if (cutoffMicros > existing) table.cutoffs().set(index, cutoffMicros);
+            return;
+        }
+
+        // Keep the table at most half full so probe sequences stay short
+        if ((size + 1) * 2 > table.cutoffs().length()) {
+            rebuild(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+            index = slot(table, userId);
+        }
+        table.userIds()[index] = userId;
+        table.cutoffs().set(index, cutoffMicros);
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return table.cutoffs().length();
+    }
+
+    private void rebuild(long nowMicros) {
+        Table current = table;
+        int live = 0;
+        for (int i = 0; i < current.cutoffs().length(); i++) {
+            long cutoff = current.cutoffs().get(i);
+            if (cutoff != EMPTY && cutoff + retentionMicros > nowMicros) live++;
+        }
+
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, live + 1) * 4 - 1) << 1);
+        Table rebuilt = new Table(new int[capacity], new AtomicLongArray(capacity), capacity - 1);
+        for (int i = 0; i < current.cutoffs().length(); i++) {
+            long cutoff = current.cutoffs().get(i);
+            if (cutoff != EMPTY && cutoff + retentionMicros > nowMicros) {
+                int index = slot(rebuilt, current.userIds()[i]);
+                rebuilt.userIds()[index] = current.userIds()[i];
+                rebuilt.cutoffs().set(index, cutoff);
+            }
+        }
+        table = rebuilt;
+        size = live;
+    }
+
+    // The slot holding userId, or the empty slot where it belongs
+    private static int slot(Table target, int userId) {
+        int index = index(userId, target.mask());
+        while (target.cutoffs().get(index) != EMPTY && target.userIds()[index] != userId) {
+            index = (index + 1) & target.mask();
+        }
+        return index;
+    }
+
+    private static int index(int userId, int mask) {
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -1,56 +1,250 @@
 package javaloginmodule.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import javaloginmodule.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 public class JWTTokenService implements TokenService {
 
-    private final String jwtSecret;
+    // HS256 shares jwt.secret with every verifier; ES256 signs with rotating key pairs published as a JWKS
+    public enum SigningAlgorithm { HS256, ES256 }
 
-    public JWTTokenService(@Value("${jwt.secret}") String jwtSecret) {
-        this.jwtSecret = jwtSecret;
+    public static final Duration TOKEN_LIFETIME = Duration.ofMinutes(15);
+    // A revocation cut-off outlives every token issued before it, with a minute to spare for clock skew between nodes
+    public static final Duration REVOCATION_RETENTION = TOKEN_LIFETIME.plus(Duration.ofMinutes(1));
+    // iat only has whole seconds, which cannot order a token against a revocation made in the same second
+    private static final String ISSUED_AT_MICROS = "iat_us";
+    private static final String TOKEN_USE = "token_use";
+    private static final String REFRESH = "refresh";
+
+    private record SigningKeys(Algorithm algorithm, JWTVerifier verifier) {}
+
+    private final AtomicReference<SigningKeys> signingKeys = new AtomicReference<>();
+    // Refresh tokens are only ever read by this service, so they stay on jwt.secret whatever signs access tokens
+    private final AtomicReference<SigningKeys> refreshKeys = new AtomicReference<>();
+    private final EcSigningKeyRing keyRing;
+    private final VerifiedTokenCache verifiedTokens;
+    private final TokenRevocationStore revocations;
+    // Issue times and revocation cut-offs come from one strictly increasing clock, so on this node every
+    // token falls clearly before or after a revocation, including the token issued right after one
+    private final AtomicLong lastTickMicros = new AtomicLong();
+    private final Timer signTimer;
+    private final Timer verifyTimer;
+
+    public JWTTokenService(String jwtSecret) {
+        this(jwtSecret, 0);
     }
 
-    @Override
-    public String generateToken(User user) {
+    public JWTTokenService(String jwtSecret, int verifiedCacheSize) {
+        this(jwtSecret, verifiedCacheSize, SigningAlgorithm.HS256, Duration.ofDays(1), Metrics.globalRegistry);
+    }
+
+    public JWTTokenService(String jwtSecret, int verifiedCacheSize, SigningAlgorithm signingAlgorithm,
+                           Duration rotationInterval, MeterRegistry meterRegistry) {
+        this(jwtSecret, verifiedCacheSize, signingAlgorithm, rotationInterval, meterRegistry,
+                new InMemoryTokenRevocationStore(REVOCATION_RETENTION), new InMemorySigningKeyStore());
+    }
+
+    @Autowired
+    public JWTTokenService(@Value("${jwt.secret}") String jwtSecret,
+                           @Value("${jwt.verified-cache.max-size:0}") int verifiedCacheSize,
+                           @Value("${jwt.signing.algorithm:HS256}") SigningAlgorithm signingAlgorithm,
+                           @Value("${jwt.signing.rotation-interval:P1D}") Duration rotationInterval,
+                           MeterRegistry meterRegistry,
+                           TokenRevocationStore revocations,
+                           SigningKeyStore signingKeyStore) {
+        this.verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
+        this.revocations = revocations;
+        // Verification is timed only when the signature is actually checked; cache hits are counted separately
+        this.signTimer = Timer.builder("auth.token.sign").tag("algorithm", signingAlgorithm.name()).register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.token.verify").tag("algorithm", signingAlgorithm.name()).register(meterRegistry);
+
+        if (signingAlgorithm == SigningAlgorithm.ES256) {
+            // A retired key leaves the JWKS one interval later, which must outlive every token it signed
+            if (rotationInterval.compareTo(TOKEN_LIFETIME) < 0) {
+                throw new IllegalArgumentException("jwt.signing.rotation-interval must be at least the token lifetime of " + TOKEN_LIFETIME);
+            }
+            this.keyRing = new EcSigningKeyRing(rotationInterval, signingKeyStore);
+            signingKeys.set(keys(Algorithm.ECDSA256(keyRing)));
+            refreshKeys.set(refreshKeys(Algorithm.HMAC256(jwtSecret)));
+        } else {
+            this.keyRing = null;
+            rotateSecret(jwtSecret);
+        }
+    }
+
+    public void rotateSecret(String jwtSecret) {
+        if (keyRing != null) throw new IllegalStateException("ES256 keys rotate through the key ring, not a shared secret");
+
         Algorithm algorithm = Algorithm.HMAC256(jwtSecret);
+        signingKeys.set(keys(algorithm));
+        refreshKeys.set(refreshKeys(algorithm));
+        verifiedTokens.clear();
+    }
 
-        return JWT.create()
-                .withSubject(String.valueOf(user.id()))
-                .withClaim("username", user.username())
+    // Tokens signed with the replaced key stay valid until they expire, so the verified-token cache is kept
+    public void rotateSigningKey() {
+        if (keyRing == null) throw new IllegalStateException("HS256 tokens rotate through rotateSecret");
+        keyRing.rotate();
+    }
+
+    public Optional<EcSigningKeyRing> getKeyRing() {
+        return Optional.ofNullable(keyRing);
+    }
+
+    private static SigningKeys keys(Algorithm algorithm) {
+        JWTVerifier verifier = JWT.require(algorithm)
+                .withIssuer("login-app")
+                .acceptExpiresAt(1)
+                .build();
+        return new SigningKeys(algorithm, verifier);
+    }
+
+    private static SigningKeys refreshKeys(Algorithm algorithm) {
+        JWTVerifier verifier = JWT.require(algorithm)
                 .withIssuer("login-app")
-                .withExpiresAt(Date.from(Instant.now().plus(15, ChronoUnit.MINUTES)))
-                .sign(algorithm);
+                .withClaim(TOKEN_USE, REFRESH)
+                .acceptExpiresAt(1)
+                .build();
+        return new SigningKeys(algorithm, verifier);
+    }
+
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokens;
+    }
+
+    @Override
+    public String generateToken(User user) {
+        return signTimer.record(() -> {
+            Instant now = Instant.now();
+            JWTCreator.Builder builder = JWT.create()
+                    .withSubject(String.valueOf(user.id()))
+                    .withClaim("username", user.username())
+                    .withIssuer("login-app")
+                    .withIssuedAt(now)
+                    .withClaim(ISSUED_AT_MICROS, tickMicros(now))
+                    .withExpiresAt(Date.from(now.plus(TOKEN_LIFETIME)));
+
+            if (keyRing == null) {
+                return builder.sign(signingKeys.get().algorithm());
+            }
+            // Key id and signature come from the same key even if a rotation happens mid-call
+            EcSigningKeyRing.SigningKey key = keyRing.current(now.toEpochMilli());
+            return builder.withKeyId(key.keyId()).sign(key.algorithm());
+        });
     }
 
     @Override
     public Optional<String> verifyToken(String token) {
-        try {
-            Algorithm algorithm = Algorithm.HMAC256(jwtSecret);
+        return introspectToken(token).map(AccessTokenClaims::subject);
+    }
 
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer("login-app")
-                    .acceptExpiresAt(1)
-                    .build();
+    // Verifiers are built once per key and are thread-safe, so concurrent callers share them
+    @Override
+    public Optional<AccessTokenClaims> introspectToken(String token) {
+        long now = System.currentTimeMillis();
+        if (verifiedTokens.isEnabled()) {
+            Optional<AccessTokenClaims> cached = verifiedTokens.get(token, now);
+            if (cached.isPresent()) return isRevoked(cached.get()) ? Optional.empty() : cached;
+        }
 
-            DecodedJWT decoded = verifier.verify(token);
-            String subject = decoded.getSubject();
+        long start = System.nanoTime();
+        try {
+            SigningKeys keys = signingKeys.get();
+            DecodedJWT decoded = keys.verifier().verify(token);
+            if (!decoded.getClaim(TOKEN_USE).isMissing() || decoded.getExpiresAt() == null) return Optional.empty();
+            // Tokens issued before iat_us existed count as issued at 0, so any cut-off of their user rejects them
+            Long issuedAt = decoded.getClaim(ISSUED_AT_MICROS).asLong();
+            AccessTokenClaims claims = new AccessTokenClaims(decoded.getSubject(), decoded.getClaim("username").asString(),
+                    decoded.getExpiresAt().getTime(), userIdOf(decoded.getSubject()), issuedAt == null ? 0 : issuedAt);
+            if (isRevoked(claims)) return Optional.empty();
 
-            return Optional.of(subject);
+            // Skip caching if the secret was rotated while this token was being verified
+            if (signingKeys.get() == keys) {
+                verifiedTokens.put(token, claims, now);
+            }
+            return Optional.of(claims);
         } catch (JWTVerificationException e) {
             return Optional.empty();
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Checked after the cache as well, since a cached token can be revoked after it was verified
+    private boolean isRevoked(AccessTokenClaims claims) {
+        return revocations.isRevoked(claims.userId(), claims.issuedAtMicros());
+    }
+
+    // Parsed once at verification so cache hits check revocation without touching the subject string;
+    // no user is ever revoked under -1
+    private static int userIdOf(String subject) {
+        try {
+            return subject == null ? -1 : Integer.parseInt(subject);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Every access token of the user issued until now stops verifying, on every node sharing the store.
+    // Tokens issued from here on, such as the one handed out with a new password, are not affected.
+    @Override
+    public void revokeAccessTokens(int userId) {
+        revocations.revokeIssuedBefore(userId, tickMicros(Instant.now()));
+    }
+
+    private long tickMicros(Instant now) {
+        long micros = TimeUnit.SECONDS.toMicros(now.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(now.getNano());
+        return lastTickMicros.accumulateAndGet(micros, (last, candidate) -> Math.max(last + 1, candidate));
+    }
+
+    @Override
+    public String generateRefreshToken(RefreshTokenClaims claims) {
+        return JWT.create()
+                .withJWTId(String.valueOf(claims.tokenId()))
+                .withSubject(String.valueOf(claims.userId()))
+                .withClaim("username", claims.username())
+                .withClaim("family", claims.familyId())
+                .withClaim(TOKEN_USE, REFRESH)
+                .withIssuer("login-app")
+                .withExpiresAt(Instant.ofEpochMilli(claims.expiresAtMillis()))
+                .sign(refreshKeys.get().algorithm());
+    }
+
+    @Override
+    public Optional<RefreshTokenClaims> verifyRefreshToken(String token) {
+        try {
+            DecodedJWT decoded = refreshKeys.get().verifier().verify(token);
+            Long familyId = decoded.getClaim("family").asLong();
+            String username = decoded.getClaim("username").asString();
+            // Tokens issued before the username claim existed cannot be tied to a user and must log in again
+            if (decoded.getId() == null || familyId == null || username == null || decoded.getExpiresAt() == null) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new RefreshTokenClaims(Long.parseLong(decoded.getId()), Integer.parseInt(decoded.getSubject()),
+                    username, familyId, decoded.getExpiresAtAsInstant().toEpochMilli()));
+        } catch (JWTVerificationException | NumberFormatException e) {
+            return Optional.empty();
         }
     }
 }
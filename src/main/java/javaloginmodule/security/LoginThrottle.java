@@ -0,0 +1,80 @@
+package javaloginmodule.security;
+
+import javaloginmodule.exceptions.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Token buckets per username and per client IP, checked before any password hashing
+@Component
+public class LoginThrottle {
+
+    private final boolean enabled;
+    private final TokenBucketTable byUsername;
+    private final TokenBucketTable byClientIp;
+    private final TooManyRequestsException rejection;
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder rejectedByClientIp = new LongAdder();
+
+    public LoginThrottle(@Value("${auth.throttle.enabled:false}") boolean enabled,
+                         @Value("${auth.throttle.slots:65536}") int slots,
+                         @Value("${auth.throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${auth.throttle.username.refill-per-minute:10}") double usernameRefillPerMinute,
+                         @Value("${auth.throttle.ip.capacity:100}") int clientIpCapacity,
+                         @Value("${auth.throttle.ip.refill-per-minute:300}") double clientIpRefillPerMinute) {
+        this.enabled = enabled;
+        this.byUsername = new TokenBucketTable(enabled ? slots : 4, usernameCapacity, usernameRefillPerMinute / 60);
+        this.byClientIp = new TokenBucketTable(enabled ? slots : 4, clientIpCapacity, clientIpRefillPerMinute / 60);
+
+        // Time until the slower bucket has a token again
+        double slowestRefillPerMinute = Math.min(usernameRefillPerMinute, clientIpRefillPerMinute);
+        this.rejection = new TooManyRequestsException("Too many login attempts, please try again later",
+                Math.max(1, (long) Math.ceil(60 / slowestRefillPerMinute)));
+    }
+
+    public static LoginThrottle disabled() {
+        return new LoginThrottle(false, 4, 1, 1, 1, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // The client IP may be null when the caller has none, in which case only the username is limited
+    public void acquire(String username, String clientIp) {
+        if (!enabled) return;
+
+        long now = System.nanoTime();
+        if (clientIp != null && !byClientIp.tryAcquire(clientIp, now)) {
+            rejectedByClientIp.increment();
+            throw rejection;
+        }
+        if (username != null && !byUsername.tryAcquire(username, now)) {
+            rejectedByUsername.increment();
+            throw rejection;
+        }
+        allowed.increment();
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getRejectedByUsernameCount() {
+        return rejectedByUsername.sum();
+    }
+
+    public long getRejectedByClientIpCount() {
+        return rejectedByClientIp.sum();
+    }
+
+    public long getEvictionCount() {
+        return byUsername.evictions() + byClientIp.evictions();
+    }
+
+    public long getMemoryBytes() {
+        return byUsername.memoryBytes() + byClientIp.memoryBytes();
+    }
+}
@@ -3,4 +3,20 @@ package javaloginmodule.security;
 public interface PasswordHasher {
     String hash(String password);
     boolean verify(String password, String hash);
+
+    // Tag value of the auth.password.* timers, e.g. "bcrypt"
+    String algorithm();
+
+    // Whether the stored hash was made by this algorithm, whatever its parameters
+    boolean recognizes(String hash);
+
+    // Whether a hash from outside, such as an import, is well-formed and within the limits this hasher will
+    // spend on one verify; verify trusts the parameters stored in the hash
+    default boolean accepts(String hash) {
+        return recognizes(hash);
+    }
+
+    default boolean needsRehash(String hash) {
+        return false;
+    }
 }
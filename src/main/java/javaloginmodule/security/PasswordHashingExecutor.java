@@ -0,0 +1,183 @@
+package javaloginmodule.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import javaloginmodule.exceptions.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final Timer waitTimer;
+
+    public PasswordHashingExecutor(int threads, int queueCapacity) {
+        this(threads, queueCapacity, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public PasswordHashingExecutor(@Value("${auth.hashing.threads:0}") int threads,
+                                   @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        // Time a task spends queued before a hashing thread picks it up
+        this.waitTimer = Timer.builder("auth.hashing.wait").register(meterRegistry);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                // Always platform threads, so BCrypt never monopolizes virtual-thread carriers
+                Thread.ofPlatform().name("password-hashing-", 1).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    public <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.increment();
+            throw new ServiceUnavailableException("Server is busy, please try again later");
+        }
+        return await(future);
+    }
+
+    // For non-blocking callers: completes on a hashing thread, or fails right away with 503 when the queue is full
+    public <T> CompletableFuture<T> executeAsync(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    completedTasks.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.increment();
+            result.completeExceptionally(new ServiceUnavailableException("Server is busy, please try again later"));
+        }
+        return result;
+    }
+
+    // Bulk work keeps at most one task per worker in flight and waits instead of failing when the
+    // queue is full, so interactive logins keep their share of the queue
+    public <T> List<T> executeAll(List<? extends Callable<T>> tasks) {
+        int maxInFlight = getPoolSize();
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        int awaited = 0;
+
+        for (Callable<T> task : tasks) {
+            while (futures.size() - awaited >= maxInFlight) {
+                waitFor(futures.get(awaited++));
+            }
+            while (true) {
+                try {
+                    futures.add(submit(task));
+                    break;
+                } catch (RejectedExecutionException e) {
+                    if (awaited < futures.size()) {
+                        waitFor(futures.get(awaited++));
+                    } else {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    }
+                }
+            }
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        return executor.submit(() -> {
+            waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+            return task.call();
+        });
+    }
+
+    private void waitFor(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            // Reported when the results are collected
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            completedTasks.increment();
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejectedTasks.sum();
+    }
+
+    public long getCompletedCount() {
+        return completedTasks.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,3 @@
+package javaloginmodule.security;
+
+public record RefreshTokenClaims(long tokenId, int userId, String username, long familyId, long expiresAtMillis) {}
@@ -0,0 +1,81 @@
+package javaloginmodule.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Open-addressing set of revoked token ids (positive longs) with their expiry. Lookups read one array
+// without locking or allocating; writers are serialized. Entries are only dropped when the table is
+// rebuilt, which keeps just the ids that have not expired, since an expired token fails verification anyway.
+public class RevokedTokenIndex {
+    private static final long EMPTY = 0;
+    private static final int MIN_CAPACITY = 16;
+
+    // The expiry is written before the id is published through the atomic array, so readers that see the id see its expiry
+    private record Table(AtomicLongArray ids, long[] expiresAtMillis, int mask) {}
+
+    private volatile Table table = new Table(new AtomicLongArray(MIN_CAPACITY), new long[MIN_CAPACITY], MIN_CAPACITY - 1);
+    private int size;
+
+    public boolean contains(long tokenId) {
+        Table current = table;
+        int index = index(tokenId, current.mask());
+        while (true) {
+            long id = current.ids().get(index);
+            if (id == tokenId) return true;
+            if (id == EMPTY) return false;
+            index = (index + 1) & current.mask();
+        }
+    }
+
+    public synchronized void add(long tokenId, long expiresAtMillis, long nowMillis) {
+        if (tokenId <= 0) throw new IllegalArgumentException("Token ids must be positive");
+        if (expiresAtMillis <= nowMillis || contains(tokenId)) return;
+
+        // Keep the table at most half full so probe sequences stay short
+        if ((size + 1) * 2 > table.ids().length()) {
+            rebuild(nowMillis);
+        }
+        insert(table, tokenId, expiresAtMillis);
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return table.ids().length();
+    }
+
+    private void rebuild(long nowMillis) {
+        Table current = table;
+        int live = 0;
+        for (int i = 0; i < current.ids().length(); i++) {
+            if (current.ids().get(i) != EMPTY && current.expiresAtMillis()[i] > nowMillis) live++;
+        }
+
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, live + 1) * 4 - 1) << 1);
+        Table rebuilt = new Table(new AtomicLongArray(capacity), new long[capacity], capacity - 1);
+        for (int i = 0; i < current.ids().length(); i++) {
+            long id = current.ids().get(i);
+            if (id != EMPTY && current.expiresAtMillis()[i] > nowMillis) {
+                insert(rebuilt, id, current.expiresAtMillis()[i]);
+            }
+        }
+        table = rebuilt;
+        size = live;
+    }
+
+    private static void insert(Table target, long tokenId, long expiresAtMillis) {
+        int index = index(tokenId, target.mask());
+        while (target.ids().get(index) != EMPTY) {
+            index = (index + 1) & target.mask();
+        }
+        target.expiresAtMillis()[index] = expiresAtMillis;
+        target.ids().set(index, tokenId);
+    }
+
+    private static int index(long tokenId, int mask) {
+        long hash = tokenId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
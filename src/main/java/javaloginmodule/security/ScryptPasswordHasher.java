@@ -0,0 +1,143 @@
+package javaloginmodule.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// scrypt as $scrypt$ln=<log2 N>,r=<block size>,p=<parallelism>$<salt>$<hash>. Each hash or verify
+// holds 128 * N * r bytes of heap, so the hashing pool size bounds the total. Stored hashes are only
+// verified within MAX_MEMORY_BYTES and MAX_PARALLELISM and with this hasher's salt and hash lengths, so an
+// imported hash cannot make a login allocate gigabytes or compare a few bytes.
+@Component
+public class ScryptPasswordHasher implements PasswordHasher {
+    private static final String PREFIX = "$scrypt$";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final long MAX_MEMORY_BYTES = 256L << 20;
+    private static final int MAX_PARALLELISM = 16;
+
+    private final Cost cost;
+    private final SecureRandom random = new SecureRandom();
+    private final Timer hashTimer;
+    private final Timer verifyTimer;
+
+    public ScryptPasswordHasher(int log2Cost, int blockSize, int parallelism) {
+        this(log2Cost, blockSize, parallelism, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public ScryptPasswordHasher(@Value("${scrypt.log2-cost:15}") int log2Cost,
+                                @Value("${scrypt.block-size:8}") int blockSize,
+                                @Value("${scrypt.parallelism:1}") int parallelism,
+                                MeterRegistry meterRegistry) {
+        if (!withinLimits(log2Cost, blockSize, parallelism)) {
+            throw new IllegalArgumentException("scrypt needs a log2 cost of at least 1, a positive block size, at most "
+                    + MAX_PARALLELISM + " parallelism and at most " + MAX_MEMORY_BYTES + " bytes per hash");
+        }
+        this.cost = new Cost(log2Cost, blockSize, parallelism);
+        this.hashTimer = Timer.builder("auth.password.hash")
+                .tag("algorithm", algorithm())
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.password.verify")
+                .tag("algorithm", algorithm())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String algorithm() {
+        return "scrypt";
+    }
+
+    @Override
+    public boolean recognizes(String hash) {
+        return hash != null && hash.startsWith(PREFIX);
+    }
+
+    @Override
+    public boolean accepts(String hash) {
+        return parse(hash) != null;
+    }
+
+    @Override
+    public String hash(String password) {
+        if (password == null) throw new IllegalArgumentException("Password cannot be null");
+        return hashTimer.record(() -> {
+            byte[] salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+            byte[] derived = derive(password, salt, cost, HASH_LENGTH);
+            Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+            return PREFIX + "ln=" + cost.log2Cost() + ",r=" + cost.blockSize() + ",p=" + cost.parallelism()
+                    + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(derived);
+        });
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        return verifyTimer.record(() -> {
+            Stored stored = parse(hash);
+            if (stored == null || password == null) return false;
+            byte[] derived = derive(password, stored.salt(), stored.cost(), stored.hash().length);
+            return MessageDigest.isEqual(derived, stored.hash());
+        });
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        Stored stored = parse(hash);
+        return stored != null && !stored.cost().equals(cost);
+    }
+
+    private static byte[] derive(String password, byte[] salt, Cost cost, int length) {
+        return SCrypt.generate(password.getBytes(StandardCharsets.UTF_8), salt,
+                1 << cost.log2Cost(), cost.blockSize(), cost.parallelism(), length);
+    }
+
+    // Null for anything that isn't a well-formed scrypt hash within the limits
+    private static Stored parse(String hash) {
+        if (hash == null || !hash.startsWith(PREFIX)) return null;
+        String[] parts = hash.split("\\$");
+        if (parts.length != 5) return null;
+        try {
+            int log2Cost = -1, blockSize = -1, parallelism = -1;
+            for (String parameter : parts[2].split(",")) {
+                int separator = parameter.indexOf('=');
+                int value = Integer.parseInt(parameter.substring(separator + 1));
+                switch (parameter.substring(0, Math.max(0, separator))) {
+                    case "ln" -> log2Cost = value;
+                    case "r" -> blockSize = value;
+                    case "p" -> parallelism = value;
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+            if (!withinLimits(log2Cost, blockSize, parallelism)) return null;
+            byte[] salt = Base64.getDecoder().decode(parts[3]);
+            byte[] derived = Base64.getDecoder().decode(parts[4]);
+            if (salt.length != SALT_LENGTH || derived.length != HASH_LENGTH) return null;
+            return new Stored(new Cost(log2Cost, blockSize, parallelism), salt, derived);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean withinLimits(int log2Cost, int blockSize, int parallelism) {
+        return log2Cost >= 1 && log2Cost < 31 && blockSize >= 1 && parallelism >= 1 && parallelism <= MAX_PARALLELISM
+                && 128L * (1L << log2Cost) * blockSize <= MAX_MEMORY_BYTES;
+    }
+
+    private record Cost(int log2Cost, int blockSize, int parallelism) {
+    }
+
+    private record Stored(Cost cost, byte[] salt, byte[] hash) {
+    }
+}
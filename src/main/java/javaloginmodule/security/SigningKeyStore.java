@@ -0,0 +1,24 @@
+package javaloginmodule.security;
+
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.List;
+
+// Where EcSigningKeyRing keeps its key pairs. Nodes that share a store sign with and publish the same keys,
+// and a persistent store keeps them across restarts.
+public interface SigningKeyStore {
+
+    // Generations only grow; a key signs from activatesAtMillis until the next generation activates
+    record StoredKey(long generation, String keyId, ECPublicKey publicKey, ECPrivateKey privateKey, long activatesAtMillis) {}
+
+    // Newest generation first
+    List<StoredKey> latest(int count);
+
+    // False if the generation already exists, i.e. another node stored it first
+    boolean insertIfAbsent(StoredKey key);
+
+    // Brings a key that has not started signing yet forward to activatesAtMillis
+    void activate(long generation, long activatesAtMillis);
+
+    void deleteBefore(long generation);
+}
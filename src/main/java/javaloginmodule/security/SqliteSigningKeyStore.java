@@ -0,0 +1,112 @@
+package javaloginmodule.security;
+
+import javaloginmodule.repository.SigningKeyRepository;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.List;
+
+// Keys shared by every node through the signing_keys table of the primary database. Private keys are sealed
+// with AES-GCM under a key derived from jwt.secret, which every node already shares, so a copy of the
+// database alone cannot sign tokens.
+public class SqliteSigningKeyStore implements SigningKeyStore {
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SigningKeyRepository repository;
+    private final SecretKeySpec sealingKey;
+    private final SecureRandom random = new SecureRandom();
+
+    public SqliteSigningKeyStore(SigningKeyRepository repository, String jwtSecret) {
+        this.repository = repository;
+        this.sealingKey = new SecretKeySpec(deriveKey(jwtSecret), "AES");
+    }
+
+    @Override
+    public List<StoredKey> latest(int count) {
+        return repository.latest(count).stream()
+                .map(row -> new StoredKey(row.generation(), row.keyId(), publicKey(row.publicKey()),
+                        privateKey(row.keyId(), row.sealedPrivateKey()), row.activatesAtMillis()))
+                .toList();
+    }
+
+    @Override
+    public boolean insertIfAbsent(StoredKey key) {
+        return repository.insertIfAbsent(new SigningKeyRepository.Row(key.generation(), key.keyId(),
+                Base64.getEncoder().encodeToString(key.publicKey().getEncoded()),
+                seal(key.keyId(), key.privateKey().getEncoded()), key.activatesAtMillis()));
+    }
+
+    @Override
+    public void activate(long generation, long activatesAtMillis) {
+        repository.activate(generation, activatesAtMillis);
+    }
+
+    @Override
+    public void deleteBefore(long generation) {
+        repository.deleteBefore(generation);
+    }
+
+    // The key id is bound as associated data, so a sealed key cannot be moved to another row
+    private String seal(String keyId, byte[] pkcs8) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, sealingKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(pkcs8);
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not seal signing key " + keyId, e);
+        }
+    }
+
+    private ECPrivateKey privateKey(String keyId, String sealed) {
+        byte[] bytes = Base64.getDecoder().decode(sealed);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, sealingKey, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] pkcs8 = cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES);
+            return (ECPrivateKey) KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+        } catch (AEADBadTagException e) {
+            throw new IllegalStateException("Signing key " + keyId + " was sealed with a different jwt.secret", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not read signing key " + keyId, e);
+        }
+    }
+
+    private static ECPublicKey publicKey(String encoded) {
+        try {
+            return (ECPublicKey) KeyFactory.getInstance("EC")
+                    .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encoded)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not read signing public key", e);
+        }
+    }
+
+    // HMAC-SHA256 with a fixed label, so the sealing key differs from the key that signs refresh tokens
+    private static byte[] deriveKey(String jwtSecret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal("signing-keys".getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
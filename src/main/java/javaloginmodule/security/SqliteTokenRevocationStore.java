@@ -0,0 +1,107 @@
+package javaloginmodule.security;
+
+import javaloginmodule.repository.TokenRevocationRepository;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+// Cut-offs shared by all nodes through the token_revocations table of the primary database. Verification
+// only reads the in-memory view. A revocation applies to the view of the node that made it at once, and a
+// poller thread pulls rows past the highest id seen, so the other nodes apply it within one poll interval.
+// Each applied row is also passed to onRevoked, so a node can drop state it keeps for that user, such as a
+// cached password hash that would otherwise still sign the user in with the old password.
+public class SqliteTokenRevocationStore implements TokenRevocationStore, AutoCloseable {
+
+    private final TokenRevocationRepository repository;
+    private final InMemoryTokenRevocationStore view;
+    private final IntConsumer onRevoked;
+    private final long retentionMillis;
+    private final long pollIntervalNanos;
+    private final Thread poller;
+    private final LongAdder pollFailures = new LongAdder();
+    private volatile long version;
+    private volatile boolean running = true;
+    private long lastPruneMillis;
+
+    public SqliteTokenRevocationStore(TokenRevocationRepository repository, Duration retention, Duration pollInterval) {
+        this(repository, retention, pollInterval, userId -> {});
+    }
+
+    public SqliteTokenRevocationStore(TokenRevocationRepository repository, Duration retention, Duration pollInterval,
+                                      IntConsumer onRevoked) {
+        this.repository = repository;
+        this.view = new InMemoryTokenRevocationStore(retention);
+        this.onRevoked = onRevoked;
+        this.retentionMillis = retention.toMillis();
+        this.pollIntervalNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), pollInterval.toNanos());
+        // The first load runs on the caller, so no request is verified against an empty view
+        poll();
+        this.poller = Thread.ofPlatform().name("token-revocation-poller").daemon(true).start(this::run);
+    }
+
+    @Override
+    public void revokeIssuedBefore(int userId, long cutoffMicros) {
+        view.revokeIssuedBefore(userId, cutoffMicros);
+        repository.insert(userId, cutoffMicros);
+    }
+
+    @Override
+    public boolean isRevoked(int userId, long issuedAtMicros) {
+        return view.isRevoked(userId, issuedAtMicros);
+    }
+
+    // Highest token_revocations id applied to this node's view
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return view.size();
+    }
+
+    public long getPollFailureCount() {
+        return pollFailures.sum();
+    }
+
+    // Only the poller thread and the constructor call this
+    void poll() {
+        long[] applied = {version};
+        repository.forEachAfter(applied[0], rs -> {
+            int userId = rs.getInt("user_id");
+            view.revokeIssuedBefore(userId, rs.getLong("revoked_before"));
+            onRevoked.accept(userId);
+            applied[0] = rs.getLong("id");
+        });
+        version = applied[0];
+
+        // Any node may prune; rows past the retention cannot reject a live token
+        long now = System.currentTimeMillis();
+        if (now - lastPruneMillis >= retentionMillis) {
+            repository.deleteRevokedBefore(TimeUnit.MILLISECONDS.toMicros(now - retentionMillis));
+            lastPruneMillis = now;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(poller);
+        poller.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        while (running) {
+            LockSupport.parkNanos(pollIntervalNanos);
+            if (!running) return;
+            try {
+                poll();
+            } catch (RuntimeException e) {
+                // The view stays as it was and catches up on the next successful poll
+                pollFailures.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package javaloginmodule.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size table of token buckets keyed by a seeded string hash. Each key probes a group of four slots;
+// when the group is full the least recently used bucket is replaced, so memory never grows with the number
+// of keys. A bucket untouched for longer than a full refill is back at capacity, so replacing it loses nothing.
+final class TokenBucketTable {
+    private static final int GROUP_SIZE = 4;
+    private static final int MAX_LOCKS = 1024;
+
+    private final long[] keys;
+    private final double[] tokens;
+    private final long[] updatedAt;
+    private final Object[] locks;
+    private final int groupMask;
+    private final int lockMask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long fullRefillNanos;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private final LongAdder evictions = new LongAdder();
+
+    TokenBucketTable(int slots, int capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0) throw new IllegalArgumentException("Bucket capacity and refill rate must be positive");
+
+        int groups = Integer.highestOneBit(Math.max(GROUP_SIZE, slots) / GROUP_SIZE);
+        this.keys = new long[groups * GROUP_SIZE];
+        this.tokens = new double[groups * GROUP_SIZE];
+        this.updatedAt = new long[groups * GROUP_SIZE];
+        this.locks = new Object[Math.min(groups, MAX_LOCKS)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.groupMask = groups - 1;
+        this.lockMask = locks.length - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerSecond / 1_000_000_000d;
+        this.fullRefillNanos = (long) Math.ceil(capacity / tokensPerNano);
+    }
+
+    boolean tryAcquire(String key, long nowNanos) {
+        long hash = hash(key);
+        int group = (int) (hash ^ (hash >>> 32)) & groupMask;
+        int base = group * GROUP_SIZE;
+
+        synchronized (locks[group & lockMask]) {
+            int slot = -1;
+            int victim = base;
+            for (int i = base; i < base + GROUP_SIZE; i++) {
+                if (keys[i] == hash) {
+                    slot = i;
+                    break;
+                }
+                if (keys[victim] != 0 && (keys[i] == 0 || updatedAt[i] - updatedAt[victim] < 0)) {
+                    victim = i;
+                }
+            }
+
+            if (slot < 0) {
+                if (keys[victim] != 0 && nowNanos - updatedAt[victim] < fullRefillNanos) {
+                    evictions.increment();
+                }
+                slot = victim;
+                keys[slot] = hash;
+                tokens[slot] = capacity;
+            } else {
+                tokens[slot] = Math.min(capacity, tokens[slot] + (nowNanos - updatedAt[slot]) * tokensPerNano);
+            }
+            updatedAt[slot] = nowNanos;
+
+            if (tokens[slot] >= 1) {
+                tokens[slot] -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    int slots() {
+        return keys.length;
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    long memoryBytes() {
+        return (long) keys.length * (Long.BYTES + Double.BYTES + Long.BYTES);
+    }
+
+    // FNV-1a over the chars with a per-table seed, finished with a splitmix64 step; never returns 0 (empty slot)
+    private long hash(String key) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash == 0 ? 1 : hash;
+    }
+}
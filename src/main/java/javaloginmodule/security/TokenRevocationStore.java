@@ -0,0 +1,10 @@
+package javaloginmodule.security;
+
+// Access tokens are not recorded when issued, so they are revoked per user: every token of the user issued
+// before the cut-off is rejected. Times are epoch microseconds. isRevoked runs on every token verification
+// and must answer from memory.
+public interface TokenRevocationStore {
+    void revokeIssuedBefore(int userId, long cutoffMicros);
+
+    boolean isRevoked(int userId, long issuedAtMicros);
+}
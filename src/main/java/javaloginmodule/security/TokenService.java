@@ -7,4 +7,9 @@ import java.util.Optional;
 public interface TokenService {
     String generateToken(User user);
     Optional<String> verifyToken(String token);
+    Optional<AccessTokenClaims> introspectToken(String token);
+    void revokeAccessTokens(int userId);
+
+    String generateRefreshToken(RefreshTokenClaims claims);
+    Optional<RefreshTokenClaims> verifyRefreshToken(String token);
 }
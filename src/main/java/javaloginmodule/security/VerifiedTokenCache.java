@@ -0,0 +1,74 @@
+package javaloginmodule.security;
+
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, AccessTokenClaims> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public Optional<AccessTokenClaims> get(String token, long nowMillis) {
+        AccessTokenClaims entry = entries.get(token);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (entry.expiresAtMillis() <= nowMillis) {
+            entries.remove(token, entry);
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(entry);
+    }
+
+    public void put(String token, AccessTokenClaims claims, long nowMillis) {
+        if (!isEnabled() || claims.expiresAtMillis() <= nowMillis) return;
+
+        if (entries.size() >= maxSize) {
+            evict(nowMillis);
+        }
+        entries.put(token, claims);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void evict(long nowMillis) {
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= nowMillis);
+
+        // Trim an extra tenth so a full cache does not rescan on every put
+        int target = maxSize - Math.max(1, maxSize / 10);
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+}
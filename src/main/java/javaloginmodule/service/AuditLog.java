@@ -0,0 +1,217 @@
+package javaloginmodule.service;
+
+import jakarta.annotation.PreDestroy;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.exceptions.InvalidCredentialsException;
+import javaloginmodule.exceptions.TooManyRequestsException;
+import javaloginmodule.exceptions.UnauthorizedAccessException;
+import javaloginmodule.exceptions.UserAlreadyExistsException;
+import javaloginmodule.exceptions.UserNotFoundException;
+import javaloginmodule.model.AuditEvent;
+import javaloginmodule.repository.AuditEventRepository;
+import javaloginmodule.security.AccessTokenClaims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Audit trail of registrations, logins, password changes and deletes. Request threads only copy a few
+// references into the ring buffer; one writer thread drains it and inserts the events in batched
+// transactions, so auditing adds no synchronous write to any request.
+@Component
+public class AuditLog {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    public enum OverflowPolicy {
+        // Count and discard the event; the request never waits on the audit writer
+        DROP,
+        // Wait for the writer to free a slot; no event is lost while the application runs
+        BLOCK
+    }
+
+    private final boolean enabled;
+    private final AuditRingBuffer buffer;
+    private final AuditEventRepository repository;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long pollIntervalNanos;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long written;
+    private volatile long batches;
+    private volatile long lagMillis;
+    private volatile boolean running = true;
+    // Writer thread only
+    private long reportedDrops;
+    private long lastDropReportNanos;
+
+    @Autowired
+    public AuditLog(@Value("${auth.audit.enabled:true}") boolean enabled,
+                    @Value("${auth.audit.buffer-size:8192}") int bufferSize,
+                    @Value("${auth.audit.batch-size:512}") int batchSize,
+                    @Value("${auth.audit.overflow-policy:drop}") String overflowPolicy,
+                    @Value("${auth.audit.poll-interval-ms:10}") long pollIntervalMillis,
+                    AuditEventRepository repository) {
+        if (batchSize < 1) throw new IllegalArgumentException("Audit batch size must be positive");
+        this.enabled = enabled;
+        this.buffer = new AuditRingBuffer(enabled ? bufferSize : 2);
+        this.repository = repository;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase(Locale.ROOT));
+        this.batchSize = batchSize;
+        this.pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, pollIntervalMillis));
+        this.writer = enabled ? Thread.ofPlatform().name("audit-writer").daemon(true).start(this::run) : null;
+    }
+
+    public static AuditLog disabled() {
+        return new AuditLog(false, 2, 1, "drop", 10, null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(AuditEvent.Type type, AuditEvent.Outcome outcome, int userId, String username, String clientIp) {
+        if (!enabled) return;
+
+        long now = System.currentTimeMillis();
+        while (!buffer.tryPublish(now, type, outcome, userId, username, clientIp)) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    // For attempts that never resolved to a user
+    public void record(AuditEvent.Type type, AuditEvent.Outcome outcome, String username, String clientIp) {
+        record(type, outcome, AuditRingBuffer.NO_USER, username, clientIp);
+    }
+
+    // For requests that carried an access token; they are attributed to the user the token names even when
+    // the request itself failed
+    public void record(AuditEvent.Type type, AuditEvent.Outcome outcome, Optional<AccessTokenClaims> claims) {
+        if (claims.isPresent()) {
+            record(type, outcome, claims.get().userId(), claims.get().username(), null);
+        } else {
+            record(type, outcome, null, null);
+        }
+    }
+
+    static AuditEvent.Outcome outcomeOf(RuntimeException e) {
+        return switch (e) {
+            case TooManyRequestsException rejected -> AuditEvent.Outcome.THROTTLED;
+            case BadRequestException rejected -> AuditEvent.Outcome.DENIED;
+            case UserAlreadyExistsException rejected -> AuditEvent.Outcome.DENIED;
+            case InvalidCredentialsException rejected -> AuditEvent.Outcome.DENIED;
+            case UserNotFoundException rejected -> AuditEvent.Outcome.DENIED;
+            case UnauthorizedAccessException rejected -> AuditEvent.Outcome.DENIED;
+            default -> AuditEvent.Outcome.ERROR;
+        };
+    }
+
+    public long getPendingCount() {
+        return buffer.size();
+    }
+
+    public long getPublishedCount() {
+        return buffer.publishedCount();
+    }
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    public long getBatchCount() {
+        return batches;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // Age of the oldest event in the last committed batch
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    // Writes out everything published before shutdown began
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (writer == null) return;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            // Read before draining, so events published before close() are always drained
+            boolean stopping = !running;
+            int drained = buffer.drainTo(batch, batchSize);
+            if (drained > 0) {
+                write(batch);
+                batch.clear();
+                reportDrops(false);
+            } else if (stopping) {
+                reportDrops(true);
+                return;
+            } else {
+                reportDrops(false);
+                LockSupport.parkNanos(pollIntervalNanos);
+            }
+        }
+    }
+
+    // The audit trail must not take logins down with it, so a batch that still fails after a few attempts
+    // is logged, counted and skipped
+    private void write(List<AuditEvent> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                repository.insertAll(batch);
+                written += batch.size();
+                batches++;
+                lagMillis = System.currentTimeMillis() - batch.getFirst().occurredAtMillis();
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == WRITE_ATTEMPTS) {
+                    failed.add(batch.size());
+                    log.error("Lost {} audit events after {} failed attempts to write them", batch.size(), attempt, e);
+                    return;
+                }
+                log.warn("Could not write {} audit events, retrying: {}", batch.size(), e.toString());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_BACKOFF_MILLIS << (attempt - 1)));
+            }
+        }
+    }
+
+    // Drops happen on request threads, so they are summed up here instead of logged one by one
+    private void reportDrops(boolean force) {
+        long total = dropped.sum();
+        long now = System.nanoTime();
+        if (total == reportedDrops || (!force && now - lastDropReportNanos < DROP_REPORT_INTERVAL_NANOS)) return;
+
+        log.warn("Dropped {} audit events because the buffer was full", total - reportedDrops);
+        reportedDrops = total;
+        lastDropReportNanos = now;
+    }
+}
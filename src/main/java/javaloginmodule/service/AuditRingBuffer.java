@@ -0,0 +1,105 @@
+package javaloginmodule.service;
+
+import javaloginmodule.model.AuditEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded multi-producer, single-consumer ring of preallocated slots. A producer claims a position with
+// one CAS, fills the slot in place and publishes it by advancing the slot's sequence, so publishing
+// allocates nothing and never takes a lock. Only the consumer thread may call drainTo.
+final class AuditRingBuffer {
+
+    private static final class Slot {
+        long occurredAtMillis;
+        AuditEvent.Type type;
+        AuditEvent.Outcome outcome;
+        int userId;
+        String username;
+        String clientIp;
+    }
+
+    static final int NO_USER = -1;
+
+    private final Slot[] slots;
+    // Slot i is free for position p when its sequence is p, and holds the event of position p at p + 1
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    AuditRingBuffer(int minimumCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minimumCapacity) * 2 - 1);
+        this.slots = new Slot[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    // Events published but not yet drained
+    long size() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    long publishedCount() {
+        return tail.get();
+    }
+
+    boolean tryPublish(long occurredAtMillis, AuditEvent.Type type, AuditEvent.Outcome outcome, int userId,
+                       String username, String clientIp) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long sequence = sequences.getAcquire(index);
+            if (sequence == position) {
+                long witnessed = tail.compareAndExchange(position, position + 1);
+                if (witnessed == position) {
+                    Slot slot = slots[index];
+                    slot.occurredAtMillis = occurredAtMillis;
+                    slot.type = type;
+                    slot.outcome = outcome;
+                    slot.userId = userId;
+                    slot.username = username;
+                    slot.clientIp = clientIp;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+                position = witnessed;
+            } else if (sequence < position) {
+                // The consumer has not freed this slot from the previous lap yet
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // Stops at the first claimed slot that is not published yet, so events come out in claim order
+    int drainTo(List<AuditEvent> batch, int maxEvents) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxEvents) {
+            int index = (int) (position & mask);
+            if (sequences.getAcquire(index) != position + 1) break;
+
+            Slot slot = slots[index];
+            batch.add(new AuditEvent(slot.occurredAtMillis, slot.type, slot.outcome,
+                    slot.userId == NO_USER ? null : slot.userId, slot.username, slot.clientIp));
+            slot.username = null;
+            slot.clientIp = null;
+            sequences.setRelease(index, position + slots.length);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+}
@@ -1,90 +1,318 @@
 package javaloginmodule.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import javaloginmodule.exceptions.BadRequestException;
 import javaloginmodule.exceptions.InvalidCredentialsException;
+import javaloginmodule.exceptions.ServiceUnavailableException;
 import javaloginmodule.exceptions.UnauthorizedAccessException;
 import javaloginmodule.exceptions.UserNotFoundException;
 import javaloginmodule.model.*;
 import javaloginmodule.security.PasswordHasher;
 import javaloginmodule.repository.UserRepository;
+import javaloginmodule.security.AccessTokenClaims;
+import javaloginmodule.security.LoginThrottle;
+import javaloginmodule.security.PasswordHashingExecutor;
 import javaloginmodule.security.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
 
 @Service
 public class AuthService {
+    private static final int BULK_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
     private final PasswordHasher passwordHasher;
     private final TokenService tokenService;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final LoginThrottle loginThrottle;
+    private final RefreshTokenService refreshTokens;
+    private final AuditLog auditLog;
+
+    private final OperationTimer registerTimer;
+    private final OperationTimer registerBulkTimer;
+    private final OperationTimer loginTimer;
+    private final OperationTimer updatePasswordTimer;
+    private final OperationTimer deleteTimer;
+    private final OperationTimer refreshTimer;
+
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, TokenService tokenService,
+                       PasswordHashingExecutor hashingExecutor, RefreshTokenService refreshTokens) {
+        this(userRepository, passwordHasher, tokenService, hashingExecutor, LoginThrottle.disabled(), refreshTokens,
+                Metrics.globalRegistry);
+    }
+
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, TokenService tokenService,
+                       PasswordHashingExecutor hashingExecutor, LoginThrottle loginThrottle,
+                       RefreshTokenService refreshTokens, MeterRegistry meterRegistry) {
+        this(userRepository, passwordHasher, tokenService, hashingExecutor, loginThrottle, refreshTokens,
+                AuditLog.disabled(), meterRegistry);
+    }
 
     @Autowired
-    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, TokenService tokenService) {
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, TokenService tokenService,
+                       PasswordHashingExecutor hashingExecutor, LoginThrottle loginThrottle,
+                       RefreshTokenService refreshTokens, AuditLog auditLog, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
         this.passwordHasher = passwordHasher;
         this.tokenService = tokenService;
+        this.hashingExecutor = hashingExecutor;
+        this.loginThrottle = loginThrottle;
+        this.refreshTokens = refreshTokens;
+        this.auditLog = auditLog;
+        this.registerTimer = OperationTimer.register(meterRegistry, "register");
+        this.registerBulkTimer = OperationTimer.register(meterRegistry, "register_bulk");
+        this.loginTimer = OperationTimer.register(meterRegistry, "login");
+        this.updatePasswordTimer = OperationTimer.register(meterRegistry, "update_password");
+        this.deleteTimer = OperationTimer.register(meterRegistry, "delete");
+        this.refreshTimer = OperationTimer.register(meterRegistry, "refresh");
     }
 
     public UserDetailsResponse register(UserRequest request) {
-        String username = request.username();
-        String password = request.password();
+        UserDetailsResponse registered;
+        try {
+            registered = registerTimer.record(() -> createUser(request));
+        } catch (RuntimeException e) {
+            auditLog.record(AuditEvent.Type.REGISTER, AuditLog.outcomeOf(e), request.username(), null);
+            throw e;
+        }
+        auditLog.record(AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS, registered.id(), registered.username(), null);
+        return registered;
+    }
 
-        if (username == null || username.isBlank() || password == null || password.isBlank()) {
-            throw new BadRequestException("Username or password cannot be null");
+    private UserDetailsResponse createUser(UserRequest request) {
+        requireValid(request);
+        String hashedPassword = hashingExecutor.execute(() -> passwordHasher.hash(request.password()));
+        return saveUser(request.username(), hashedPassword);
+    }
+
+    public void registerAll(Iterator<UserRequest> requests, Consumer<BulkRegistrationResult> results) {
+        List<UserRequest> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        while (requests.hasNext()) {
+            chunk.add(requests.next());
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                registerBulkTimer.record(() -> registerChunk(chunk, results));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            registerBulkTimer.record(() -> registerChunk(chunk, results));
         }
+    }
 
-        String hashedPassword = passwordHasher.hash(password);
-        User savedUser = userRepository.save(new User(0, username, hashedPassword));
-        LocalDateTime createdAt = userRepository.getUserCreationTimestamp(savedUser.id())
-                .orElseThrow(() -> new IllegalStateException("User was created but creation timestamp is missing"));
+    private void registerChunk(List<UserRequest> chunk, Consumer<BulkRegistrationResult> results) {
+        List<UserRequest> valid = chunk.stream().filter(AuthService::isValid).toList();
+        List<String> hashes = hashingExecutor.executeAll(valid.stream()
+                .map(request -> (Callable<String>) () -> passwordHasher.hash(request.password()))
+                .toList());
 
-        return new UserDetailsResponse(savedUser.id(), savedUser.username(), createdAt);
+        List<User> users = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            users.add(new User(0, valid.get(i).username(), hashes.get(i)));
+        }
+        Iterator<Optional<User>> saved = userRepository.saveAll(users).iterator();
+
+        for (UserRequest request : chunk) {
+            BulkRegistrationResult result = !isValid(request)
+                    ? new BulkRegistrationResult(request == null ? null : request.username(), BulkRegistrationResult.Status.INVALID, null)
+                    : saved.next()
+                            .map(user -> new BulkRegistrationResult(user.username(), BulkRegistrationResult.Status.CREATED, user.id()))
+                            .orElseGet(() -> new BulkRegistrationResult(request.username(), BulkRegistrationResult.Status.CONFLICT, null));
+            if (result.status() == BulkRegistrationResult.Status.CREATED) {
+                auditLog.record(AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS, result.id(), result.username(), null);
+            } else {
+                auditLog.record(AuditEvent.Type.REGISTER, AuditEvent.Outcome.DENIED, result.username(), null);
+            }
+            results.accept(result);
+        }
+    }
+
+    static boolean isValid(UserRequest request) {
+        return request != null
+                && request.username() != null && !request.username().isBlank()
+                && request.password() != null && !request.password().isBlank();
+    }
+
+    static void requireValid(UserRequest request) {
+        if (!isValid(request)) {
+            throw new BadRequestException("Username or password cannot be null");
+        }
     }
 
     public AuthResponse authenticate(UserRequest request) {
-        User user = validateUserCredentials(request);
-        Token token = new Token(tokenService.generateToken(user));
-        UserResponse response = new UserResponse(user.id(), user.username());
-        return new AuthResponse(response, token);
+        return authenticate(request, null);
+    }
+
+    // Throwing form of attemptLogin for callers that treat a failed login as an error
+    public AuthResponse authenticate(UserRequest request, String clientIp) {
+        return switch (attemptLogin(request, clientIp)) {
+            case AuthOutcome.Authenticated authenticated -> authenticated.response();
+            case AuthOutcome.UnknownUser unknown -> throw new UserNotFoundException(unknown.username());
+            case AuthOutcome.InvalidCredentials invalid -> throw new InvalidCredentialsException(invalid.message());
+        };
+    }
+
+    public AuthOutcome attemptLogin(UserRequest request, String clientIp) {
+        AuthOutcome outcome;
+        try {
+            outcome = loginTimer.record(() -> login(request, clientIp), AuthOutcome.Authenticated.class::isInstance);
+        } catch (RuntimeException e) {
+            auditLog.record(AuditEvent.Type.LOGIN, AuditLog.outcomeOf(e), request.username(), clientIp);
+            throw e;
+        }
+        auditLogin(outcome, request, clientIp);
+        return outcome;
+    }
+
+    private AuthOutcome login(UserRequest request, String clientIp) {
+        admitLogin(request, clientIp);
+        Optional<User> found = userRepository.findByUsername(request.username());
+        if (found.isEmpty()) {
+            return new AuthOutcome.UnknownUser(request.username());
+        }
+        User targetUser = found.get();
+        if (!hashingExecutor.execute(() -> passwordHasher.verify(request.password(), targetUser.passwordHash()))) {
+            return AuthOutcome.INVALID_CREDENTIALS;
+        }
+        return new AuthOutcome.Authenticated(signIn(rehashIfNeeded(targetUser, request.password())));
+    }
+
+    // Mints a new access token from a refresh token without touching the password hasher
+    public AuthResponse refresh(Token refreshToken) {
+        return refreshTimer.record(() -> exchange(refreshToken));
+    }
+
+    public void logout(Token refreshToken) {
+        refreshTokens.revoke(refreshToken);
     }
 
     public AuthResponse updatePassword(Token token, String newPassword) {
-        String userId = tokenService.verifyToken(token.value())
-                .orElseThrow(() -> new UnauthorizedAccessException("Invalid or expired token"));
+        Optional<AccessTokenClaims> claims = tokenService.introspectToken(token.value());
+        AuthResponse updated;
+        try {
+            updated = updatePasswordTimer.record(() -> changePassword(claims, newPassword));
+        } catch (RuntimeException e) {
+            auditLog.record(AuditEvent.Type.UPDATE_PASSWORD, AuditLog.outcomeOf(e), claims);
+            throw e;
+        }
+        auditLog.record(AuditEvent.Type.UPDATE_PASSWORD, AuditEvent.Outcome.SUCCESS, updated.user().id(), updated.user().username(), null);
+        return updated;
+    }
 
-        int id = parseUserId(userId);
-        User user = userRepository.fetchById(id).orElseThrow(() -> new UserNotFoundException(id));
-        User updatedUser = userRepository.update(new User(user.id(), user.username(), passwordHasher.hash(newPassword)));
+    private AuthResponse changePassword(Optional<AccessTokenClaims> claims, String newPassword) {
+        User user = authenticatedUser(claims);
+        String hashedPassword = hashingExecutor.execute(() -> passwordHasher.hash(newPassword));
+        return storePassword(user, hashedPassword);
+    }
+
+    private User rehashIfNeeded(User user, String password) {
+        if (!passwordHasher.needsRehash(user.passwordHash())) {
+            return user;
+        }
+        try {
+            String hashedPassword = hashingExecutor.execute(() -> passwordHasher.hash(password));
+            return userRepository.updatePassword(user.id(), hashedPassword);
+        } catch (ServiceUnavailableException e) {
+            // The login already succeeded; the upgrade is retried on a later login
+            return user;
+        }
+    }
+
+    public void delete(Token token) {
+        Optional<AccessTokenClaims> claims = tokenService.introspectToken(token.value());
+        User deleted;
+        try {
+            deleted = deleteTimer.record(() -> deleteUser(claims));
+        } catch (RuntimeException e) {
+            auditLog.record(AuditEvent.Type.DELETE, AuditLog.outcomeOf(e), claims);
+            throw e;
+        }
+        auditLog.record(AuditEvent.Type.DELETE, AuditEvent.Outcome.SUCCESS, deleted.id(), deleted.username(), null);
+    }
+
+    // The steps below are shared with ReactiveAuthService, which runs the blocking ones on its database
+    // scheduler and hashes on its own. None of them records a timer, and only auditLogin records an audit event.
 
-        UserResponse response = new UserResponse(updatedUser.id(), updatedUser.username());
-        Token newToken = new Token(tokenService.generateToken(updatedUser));
-        return new AuthResponse(response, newToken);
+    UserDetailsResponse saveUser(String username, String hashedPassword) {
+        User savedUser = userRepository.save(new User(0, username, hashedPassword));
+        return new UserDetailsResponse(savedUser.id(), savedUser.username(), savedUser.createdAt());
+    }
+
+    // Does not block, so the reactive front rejects invalid and throttled logins on the event loop
+    void admitLogin(UserRequest request, String clientIp) {
+        requireValid(request);
+        // Throttled before the user lookup so a flood never reaches BCrypt
+        loginThrottle.acquire(request.username(), clientIp);
+    }
+
+    AuthResponse signIn(User user) {
+        return response(user, refreshTokens.issue(user));
     }
 
-    private User validateUserCredentials(UserRequest request) {
-        User targetUser = userRepository.fetchByUsername(request.username());
-        if (passwordHasher.verify(request.password(), targetUser.passwordHash())) {
-            return targetUser;
+    void auditLogin(AuthOutcome outcome, UserRequest request, String clientIp) {
+        if (outcome instanceof AuthOutcome.Authenticated authenticated) {
+            UserResponse user = authenticated.response().user();
+            auditLog.record(AuditEvent.Type.LOGIN, AuditEvent.Outcome.SUCCESS, user.id(), user.username(), clientIp);
         } else {
-            throw new InvalidCredentialsException("Invalid credentials");
+            auditLog.record(AuditEvent.Type.LOGIN, AuditEvent.Outcome.DENIED, request.username(), clientIp);
         }
     }
 
-    public void delete(Token token) {
-        String userId = tokenService.verifyToken(token.value())
-                .orElseThrow(() -> new UnauthorizedAccessException("Invalid or expired token"));
+    AuthResponse exchange(Token refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(refreshToken);
+        User user = userRepository.fetchById(rotation.userId())
+                .filter(found -> found.username().equals(rotation.username()))
+                .orElseThrow(() -> new UnauthorizedAccessException("Invalid or expired refresh token"));
+        return response(user, rotation.refreshToken());
+    }
+
+    AuthResponse storePassword(User user, String hashedPassword) {
+        User updatedUser = userRepository.updatePassword(user.id(), hashedPassword);
+        // Sessions opened with the old password end here, including access tokens that have not expired yet
+        refreshTokens.revokeAll(updatedUser.id());
+        tokenService.revokeAccessTokens(updatedUser.id());
+        return signIn(updatedUser);
+    }
 
-        int id = parseUserId(userId);
+    User deleteUser(Optional<AccessTokenClaims> claims) {
+        User user;
         try {
-            userRepository.delete(id);
+            user = authenticatedUser(claims);
+            userRepository.delete(user.id());
         } catch (UserNotFoundException e) {
             throw new UnauthorizedAccessException("Invalid or expired token");
         }
+        refreshTokens.revokeAll(user.id());
+        tokenService.revokeAccessTokens(user.id());
+        return user;
+    }
+
+    // Imports restore users under the ids they were exported with, so a token only stands for the user
+    // whose username it was issued to
+    User authenticatedUser(Optional<AccessTokenClaims> token) {
+        AccessTokenClaims claims = token.orElseThrow(() -> new UnauthorizedAccessException("Invalid or expired token"));
+
+        int id = parseUserId(claims.subject());
+        User user = userRepository.fetchById(id).orElseThrow(() -> new UserNotFoundException(id));
+        if (!user.username().equals(claims.username())) {
+            throw new UnauthorizedAccessException("Invalid or expired token");
+        }
+        return user;
+    }
+
+    private AuthResponse response(User user, Token refreshToken) {
+        Token token = new Token(tokenService.generateToken(user));
+        return new AuthResponse(new UserResponse(user.id(), user.username()), token, refreshToken);
     }
 
-    private int parseUserId(String subject) {
+    private static int parseUserId(String subject) {
         try {
             return Integer.parseInt(subject);
         } catch (NumberFormatException e) {
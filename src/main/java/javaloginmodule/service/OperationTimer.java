@@ -0,0 +1,65 @@
+package javaloginmodule.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Successful and failed calls are timed apart so fast rejections don't hide slow logins
+record OperationTimer(Timer success, Timer failure) {
+
+    static OperationTimer register(MeterRegistry meterRegistry, String operation) {
+        return new OperationTimer(
+                Timer.builder("auth.operation").tag("operation", operation).tag("outcome", "success").register(meterRegistry),
+                Timer.builder("auth.operation").tag("operation", operation).tag("outcome", "failure").register(meterRegistry));
+    }
+
+    <T> T record(Supplier<T> operation) {
+        return record(operation, result -> true);
+    }
+
+    // For operations that report an expected failure as their result instead of throwing
+    <T> T record(Supplier<T> operation, Predicate<T> succeeded) {
+        long start = System.nanoTime();
+        boolean completed = false;
+        T result = null;
+        try {
+            result = operation.get();
+            completed = true;
+            return result;
+        } finally {
+            (completed && succeeded.test(result) ? success : failure).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void record(Runnable operation) {
+        record(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // Timed from subscription; a cancelled call counts as a failure
+    <T> Mono<T> record(Mono<T> operation) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return operation.doFinally(signal -> (signal == SignalType.ON_COMPLETE ? success : failure)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    <T> Mono<T> record(Mono<T> operation, Predicate<T> succeeded) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            boolean[] accepted = {true};
+            return operation
+                    .doOnNext(result -> accepted[0] = succeeded.test(result))
+                    .doFinally(signal -> (signal == SignalType.ON_COMPLETE && accepted[0] ? success : failure)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+}
@@ -0,0 +1,196 @@
+package javaloginmodule.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import javaloginmodule.exceptions.ServiceUnavailableException;
+import javaloginmodule.model.*;
+import javaloginmodule.repository.UserRepository;
+import javaloginmodule.security.AccessTokenClaims;
+import javaloginmodule.security.PasswordHasher;
+import javaloginmodule.security.PasswordHashingExecutor;
+import javaloginmodule.security.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+// Non-blocking front of the same auth flows as AuthService, used when the application runs on WebFlux.
+// The flow steps themselves live in AuthService. SQLite only has a blocking driver, so every step that
+// touches the database runs on a bounded scheduler, and BCrypt runs on the shared hashing pool without a
+// thread waiting for it. Event-loop threads only parse, sign tokens
+// and write responses.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthService {
+    private static final int BULK_CHUNK_SIZE = 500;
+
+    private final AuthService authService;
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final TokenService tokenService;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final RefreshTokenService refreshTokens;
+    private final AuditLog auditLog;
+    private final Scheduler database;
+
+    private final OperationTimer registerTimer;
+    private final OperationTimer loginTimer;
+    private final OperationTimer updatePasswordTimer;
+    private final OperationTimer deleteTimer;
+    private final OperationTimer refreshTimer;
+
+    public ReactiveAuthService(AuthService authService, UserRepository userRepository, PasswordHasher passwordHasher,
+                               TokenService tokenService, PasswordHashingExecutor hashingExecutor,
+                               RefreshTokenService refreshTokens, AuditLog auditLog,
+                               @Value("${auth.reactive.db-threads:64}") int databaseThreads,
+                               @Value("${auth.reactive.db-queue-capacity:10000}") int databaseQueueCapacity,
+                               MeterRegistry meterRegistry) {
+        this.authService = authService;
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.tokenService = tokenService;
+        this.hashingExecutor = hashingExecutor;
+        this.refreshTokens = refreshTokens;
+        this.auditLog = auditLog;
+        // Writes wait on the group-commit writer, so enough threads are needed to fill its batches
+        this.database = Schedulers.newBoundedElastic(databaseThreads, databaseQueueCapacity, "auth-db");
+        this.registerTimer = OperationTimer.register(meterRegistry, "register");
+        this.loginTimer = OperationTimer.register(meterRegistry, "login");
+        this.updatePasswordTimer = OperationTimer.register(meterRegistry, "update_password");
+        this.deleteTimer = OperationTimer.register(meterRegistry, "delete");
+        this.refreshTimer = OperationTimer.register(meterRegistry, "refresh");
+    }
+
+    public Mono<UserDetailsResponse> register(UserRequest request) {
+        return registerTimer.record(Mono.defer(() -> {
+            AuthService.requireValid(request);
+            return hash(request.password())
+                    .flatMap(hashedPassword -> blocking(() -> authService.saveUser(request.username(), hashedPassword)));
+        })).doOnSuccess(registered -> auditLog.record(AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS,
+                        registered.id(), registered.username(), null))
+                .doOnError(RuntimeException.class, e -> auditLog.record(AuditEvent.Type.REGISTER, AuditLog.outcomeOf(e),
+                        request.username(), null));
+    }
+
+    // Chunks run one after another through the blocking bulk path, which already paces itself against logins
+    public Flux<BulkRegistrationResult> registerAll(Flux<UserRequest> requests) {
+        return requests.buffer(BULK_CHUNK_SIZE)
+                .concatMap(chunk -> blocking(() -> {
+                    List<BulkRegistrationResult> results = new ArrayList<>(chunk.size());
+                    authService.registerAll(chunk.iterator(), results::add);
+                    return results;
+                }))
+                .concatMapIterable(results -> results);
+    }
+
+    public Mono<AuthOutcome> attemptLogin(UserRequest request, String clientIp) {
+        return loginTimer.record(Mono.defer(() -> {
+            authService.admitLogin(request, clientIp);
+            return blocking(() -> userRepository.findByUsername(request.username()))
+                    .flatMap(found -> found.isEmpty()
+                            ? Mono.<AuthOutcome>just(new AuthOutcome.UnknownUser(request.username()))
+                            : login(found.get(), request.password()));
+        }), AuthOutcome.Authenticated.class::isInstance)
+                .doOnSuccess(outcome -> authService.auditLogin(outcome, request, clientIp))
+                .doOnError(RuntimeException.class, e -> auditLog.record(AuditEvent.Type.LOGIN, AuditLog.outcomeOf(e),
+                        request.username(), clientIp));
+    }
+
+    private Mono<AuthOutcome> login(User user, String password) {
+        return verify(password, user.passwordHash())
+                .flatMap(matches -> !matches
+                        ? Mono.<AuthOutcome>just(AuthOutcome.INVALID_CREDENTIALS)
+                        : rehashIfNeeded(user, password)
+                                .flatMap(current -> blocking(() -> (AuthOutcome) new AuthOutcome.Authenticated(authService.signIn(current)))));
+    }
+
+    public Mono<AuthResponse> refresh(Token refreshToken) {
+        return refreshTimer.record(blocking(() -> authService.exchange(refreshToken)));
+    }
+
+    public Mono<Void> logout(Token refreshToken) {
+        return blocking(() -> {
+            refreshTokens.revoke(refreshToken);
+            return true;
+        }).then();
+    }
+
+    public Mono<AuthResponse> updatePassword(Token token, String newPassword) {
+        return Mono.defer(() -> {
+            Optional<AccessTokenClaims> claims = tokenService.introspectToken(token.value());
+            return updatePassword(claims, newPassword)
+                    .doOnError(RuntimeException.class, e -> auditLog.record(AuditEvent.Type.UPDATE_PASSWORD, AuditLog.outcomeOf(e), claims));
+        });
+    }
+
+    private Mono<AuthResponse> updatePassword(Optional<AccessTokenClaims> claims, String newPassword) {
+        return updatePasswordTimer.record(blocking(() -> authService.authenticatedUser(claims))
+                .flatMap(user -> hash(newPassword)
+                        .flatMap(hashedPassword -> blocking(() -> authService.storePassword(user, hashedPassword)))))
+                .doOnSuccess(updated -> auditLog.record(AuditEvent.Type.UPDATE_PASSWORD, AuditEvent.Outcome.SUCCESS,
+                        updated.user().id(), updated.user().username(), null));
+    }
+
+    public Mono<Void> delete(Token token) {
+        return Mono.defer(() -> {
+            Optional<AccessTokenClaims> claims = tokenService.introspectToken(token.value());
+            return delete(claims)
+                    .doOnError(RuntimeException.class, e -> auditLog.record(AuditEvent.Type.DELETE, AuditLog.outcomeOf(e), claims));
+        });
+    }
+
+    private Mono<Void> delete(Optional<AccessTokenClaims> claims) {
+        return deleteTimer.record(blocking(() -> authService.deleteUser(claims))
+                .doOnNext(deleted -> auditLog.record(AuditEvent.Type.DELETE, AuditEvent.Outcome.SUCCESS,
+                        deleted.id(), deleted.username(), null))
+                .then());
+    }
+
+    private Mono<User> rehashIfNeeded(User user, String password) {
+        if (!passwordHasher.needsRehash(user.passwordHash())) {
+            return Mono.just(user);
+        }
+        return hash(password)
+                .flatMap(hashedPassword -> blocking(() -> userRepository.updatePassword(user.id(), hashedPassword)))
+                // The login already succeeded; the upgrade is retried on a later login
+                .onErrorResume(ServiceUnavailableException.class, e -> Mono.just(user));
+    }
+
+    private Mono<String> hash(String password) {
+        return Mono.fromFuture(() -> hashingExecutor.executeAsync(() -> passwordHasher.hash(password)));
+    }
+
+    private Mono<Boolean> verify(String password, String passwordHash) {
+        return Mono.fromFuture(() -> hashingExecutor.executeAsync(() -> passwordHasher.verify(password, passwordHash)));
+    }
+
+    // Also runs the blocking admin routes of ReactiveUserAdminController, so they share this scheduler's bound
+    public <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call)
+                .subscribeOn(database)
+                // Signals leave the database thread, so it is free for the next call and an error response is not
+                // written on a worker that is interrupted once the call terminates
+                .publishOn(Schedulers.parallel())
+                .onErrorMap(RejectedExecutionException.class, e -> new ServiceUnavailableException("Server is busy, please try again later"));
+    }
+
+    // For work that streams through a blocking InputStream or OutputStream, such as the admin export
+    public Executor blockingExecutor() {
+        return task -> database.schedule(task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        database.dispose();
+    }
+}
@@ -0,0 +1,126 @@
+package javaloginmodule.service;
+
+import jakarta.annotation.PostConstruct;
+import javaloginmodule.exceptions.UnauthorizedAccessException;
+import javaloginmodule.model.Token;
+import javaloginmodule.model.User;
+import javaloginmodule.repository.RefreshTokenRepository;
+import javaloginmodule.security.RefreshTokenClaims;
+import javaloginmodule.security.RevokedTokenIndex;
+import javaloginmodule.security.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Long-lived refresh tokens that are single use: each refresh revokes the presented token and issues its
+// successor in the same family. Presenting a revoked token again revokes the whole family.
+@Service
+public class RefreshTokenService {
+
+    public record Rotation(int userId, String username, Token refreshToken) {}
+
+    private final RefreshTokenRepository repository;
+    private final TokenService tokenService;
+    private final Duration ttl;
+    private final long pruneIntervalMillis;
+    private final RevokedTokenIndex revokedTokens = new RevokedTokenIndex();
+    private final AtomicLong lastPruneMillis = new AtomicLong();
+
+    public RefreshTokenService(RefreshTokenRepository repository, TokenService tokenService, Duration ttl) {
+        this(repository, tokenService, ttl, Duration.ofHours(1));
+    }
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository repository, TokenService tokenService,
+                               @Value("${jwt.refresh-token.ttl:P30D}") Duration ttl,
+                               @Value("${jwt.refresh-token.prune-interval:PT1H}") Duration pruneInterval) {
+        this.repository = repository;
+        this.tokenService = tokenService;
+        this.ttl = ttl;
+        this.pruneIntervalMillis = pruneInterval.toMillis();
+    }
+
+    @PostConstruct
+    public void loadRevokedTokens() {
+        long now = System.currentTimeMillis();
+        pruneExpiredIfDue(now);
+        repository.forEachRevoked(now, rs -> revokedTokens.add(rs.getLong("id"), rs.getLong("expires_at"), now));
+    }
+
+    public RevokedTokenIndex getRevokedTokens() {
+        return revokedTokens;
+    }
+
+    public Token issue(User user) {
+        long now = System.currentTimeMillis();
+        pruneExpiredIfDue(now);
+
+        long familyId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        long expiresAt = now + ttl.toMillis();
+        long tokenId = repository.insert(user.id(), familyId, expiresAt);
+        return sign(tokenId, user.id(), user.username(), familyId, expiresAt);
+    }
+
+    public Rotation rotate(Token refreshToken) {
+        RefreshTokenClaims claims = verify(refreshToken);
+
+        // Known replays are answered from memory; the conditional update below catches the rest
+        if (revokedTokens.contains(claims.tokenId())) {
+            revokeFamily(claims.familyId());
+            throw new UnauthorizedAccessException("Refresh token has already been used");
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        OptionalLong successor = repository.rotate(claims.tokenId(), claims.userId(), claims.familyId(), expiresAt);
+        if (successor.isEmpty()) {
+            revokeFamily(claims.familyId());
+            throw new UnauthorizedAccessException("Refresh token has already been used");
+        }
+        revokedTokens.add(claims.tokenId(), claims.expiresAtMillis(), System.currentTimeMillis());
+
+        return new Rotation(claims.userId(), claims.username(),
+                sign(successor.getAsLong(), claims.userId(), claims.username(), claims.familyId(), expiresAt));
+    }
+
+    public void revoke(Token refreshToken) {
+        RefreshTokenClaims claims = verify(refreshToken);
+        if (repository.revoke(claims.tokenId())) {
+            revokedTokens.add(claims.tokenId(), claims.expiresAtMillis(), System.currentTimeMillis());
+        }
+    }
+
+    public void revokeAll(int userId) {
+        long now = System.currentTimeMillis();
+        repository.revokeAllForUser(userId).forEach(token -> revokedTokens.add(token.id(), token.expiresAtMillis(), now));
+    }
+
+    private void revokeFamily(long familyId) {
+        long now = System.currentTimeMillis();
+        repository.revokeFamily(familyId).forEach(token -> revokedTokens.add(token.id(), token.expiresAtMillis(), now));
+    }
+
+    private RefreshTokenClaims verify(Token refreshToken) {
+        if (refreshToken == null || refreshToken.value() == null) {
+            throw new UnauthorizedAccessException("Invalid or expired refresh token");
+        }
+        return tokenService.verifyRefreshToken(refreshToken.value())
+                .orElseThrow(() -> new UnauthorizedAccessException("Invalid or expired refresh token"));
+    }
+
+    // Every row is kept until its token expires, so the table only shrinks here. One caller per interval
+    // deletes the expired rows; the others carry on.
+    private void pruneExpiredIfDue(long nowMillis) {
+        long last = lastPruneMillis.get();
+        if (nowMillis - last < pruneIntervalMillis || !lastPruneMillis.compareAndSet(last, nowMillis)) return;
+        repository.deleteExpired(nowMillis);
+    }
+
+    private Token sign(long tokenId, int userId, String username, long familyId, long expiresAtMillis) {
+        return new Token(tokenService.generateRefreshToken(new RefreshTokenClaims(tokenId, userId, username, familyId, expiresAtMillis)));
+    }
+}
@@ -0,0 +1,120 @@
+package javaloginmodule.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.exceptions.ServiceUnavailableException;
+import javaloginmodule.model.TokenIntrospection;
+import javaloginmodule.security.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Verifies a batch of access tokens for gateways. Large batches are split into one slice per worker,
+// with the calling thread taking the first slice; small batches stay on the caller, where handing off
+// would cost more than verifying.
+@Service
+public class TokenIntrospectionService {
+
+    private final TokenService tokenService;
+    private final int maxBatchSize;
+    private final int parallelThreshold;
+    private final ThreadPoolExecutor executor;
+    private final DistributionSummary batchSizes;
+
+    public TokenIntrospectionService(TokenService tokenService, int threads, int maxBatchSize, int parallelThreshold) {
+        this(tokenService, threads, maxBatchSize, parallelThreshold, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public TokenIntrospectionService(TokenService tokenService,
+                                     @Value("${auth.introspection.threads:0}") int threads,
+                                     @Value("${auth.introspection.max-batch-size:1000}") int maxBatchSize,
+                                     @Value("${auth.introspection.parallel-threshold:64}") int parallelThreshold,
+                                     MeterRegistry meterRegistry) {
+        this.tokenService = tokenService;
+        this.maxBatchSize = maxBatchSize;
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4),
+                Thread.ofPlatform().name("token-introspection-", 1).daemon(true).factory(),
+                // A saturated pool degrades to verifying on the request thread instead of failing the batch
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.batchSizes = DistributionSummary.builder("auth.token.introspect.batch.size").register(meterRegistry);
+    }
+
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        if (tokens == null) throw new BadRequestException("Request body must be a JSON array of tokens");
+        if (tokens.size() > maxBatchSize) {
+            throw new BadRequestException("At most " + maxBatchSize + " tokens can be introspected per request");
+        }
+        batchSizes.record(tokens.size());
+
+        TokenIntrospection[] results = new TokenIntrospection[tokens.size()];
+        int slices = Math.min(executor.getMaximumPoolSize() + 1, Math.ceilDiv(tokens.size(), parallelThreshold));
+        if (slices <= 1) {
+            introspect(tokens, results, 0, tokens.size());
+            return List.of(results);
+        }
+
+        int sliceSize = Math.ceilDiv(tokens.size(), slices);
+        List<Future<?>> futures = new ArrayList<>(slices - 1);
+        for (int from = sliceSize; from < tokens.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(tokens.size(), from + sliceSize);
+            futures.add(executor.submit(() -> introspect(tokens, results, start, end)));
+        }
+        introspect(tokens, results, 0, sliceSize);
+
+        for (Future<?> future : futures) {
+            await(future);
+        }
+        return List.of(results);
+    }
+
+    // Each slice writes a disjoint range; Future.get publishes the writes to the caller
+    private void introspect(List<String> tokens, TokenIntrospection[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            String token = tokens.get(i);
+            results[i] = token == null ? TokenIntrospection.inactive() : tokenService.introspectToken(token)
+                    .map(claims -> new TokenIntrospection(true, claims.subject(), claims.username(),
+                            TimeUnit.MILLISECONDS.toSeconds(claims.expiresAtMillis())))
+                    .orElse(TokenIntrospection.inactive());
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while introspecting tokens");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException("Token introspection failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
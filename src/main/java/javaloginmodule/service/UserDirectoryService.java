@@ -0,0 +1,61 @@
+package javaloginmodule.service;
+
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.User;
+import javaloginmodule.model.UserDetailsResponse;
+import javaloginmodule.repository.UserRepository;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.function.Consumer;
+
+// Account browsing for support tooling, oldest first. A page ends with an opaque cursor holding the
+// (created_at, id) of its last user, and the next page starts right after it.
+@Service
+public class UserDirectoryService {
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final UserRepository userRepository;
+
+    public UserDirectoryService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // Returns the cursor of the next page, or null on the last page
+    public String listUsers(String usernamePrefix, String cursor, Integer pageSize, Consumer<UserDetailsResponse> users) {
+        int limit = pageSize == null ? DEFAULT_PAGE_SIZE : pageSize;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        LocalDateTime afterCreatedAt = null;
+        int afterId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.lastIndexOf('~');
+                afterCreatedAt = LocalDateTime.parse(position.substring(0, separator));
+                afterId = Integer.parseInt(position.substring(separator + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new BadRequestException("Invalid page cursor");
+            }
+        }
+
+        // One extra row tells whether another page follows, without a COUNT over the table
+        int[] listed = new int[1];
+        User[] last = new User[1];
+        userRepository.listPage(usernamePrefix, afterCreatedAt, afterId, limit + 1, user -> {
+            if (listed[0]++ == limit) return;
+            last[0] = user;
+            users.accept(new UserDetailsResponse(user.id(), user.username(), user.createdAt()));
+        });
+
+        if (listed[0] <= limit) return null;
+        String position = last[0].createdAt() + "~" + last[0].id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,136 @@
+package javaloginmodule.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.model.User;
+import javaloginmodule.model.UserImportResult;
+import javaloginmodule.repository.UserCache;
+import javaloginmodule.repository.UserRepository;
+import javaloginmodule.repository.UserShards;
+import javaloginmodule.repository.UsernameBloomFilter;
+import javaloginmodule.security.Argon2PasswordHasher;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.security.DelegatingPasswordHasher;
+import javaloginmodule.security.PasswordHasher;
+import javaloginmodule.security.ScryptPasswordHasher;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Backup and migration of the users table as NDJSON, one {"id","username","passwordHash","createdAt"} object
+// per line. Both directions stream: export pages through the table and import inserts fixed-size batches,
+// so memory does not grow with the number of users. Stored hashes are copied as they are, never rehashed.
+@Service
+public class UserTransferService {
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
+    private final ObjectMapper objectMapper;
+
+    public UserTransferService(UserRepository userRepository, PasswordHasher passwordHasher, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.objectMapper = objectMapper;
+    }
+
+    // Leaves the stream open; the caller owns it
+    public long exportTo(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            return userRepository.exportAll(user -> {
+                try {
+                    generator.writeObject(user);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public UserImportResult importFrom(InputStream in) throws IOException {
+        long read = 0;
+        long imported = 0;
+        long invalid = 0;
+        List<User> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(in)) {
+            while (users.hasNextValue()) {
+                User user = users.nextValue();
+                read++;
+                if (!isImportable(user)) {
+                    invalid++;
+                    continue;
+                }
+                batch.add(user);
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    imported += userRepository.importAll(batch);
+                    batch.clear();
+                }
+            }
+        }
+        imported += userRepository.importAll(batch);
+        return new UserImportResult(read, imported, read - imported - invalid, invalid);
+    }
+
+    // A hash that no configured hasher accepts could never be verified, or would cost every login of that
+    // user far more than the configured parameters
+    private boolean isImportable(User user) {
+        return user != null
+                && user.username() != null && !user.username().isBlank()
+                && user.passwordHash() != null && passwordHasher.accepts(user.passwordHash());
+    }
+
+    // java -cp app.jar -Dloader.main=javaloginmodule.service.UserTransferService \
+    //     org.springframework.boot.loader.launch.PropertiesLauncher export|import --db <urls> --file <path>
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "";
+        List<String> urls = List.of();
+        Path file = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--db" -> urls = List.of(args[++i].split(","));
+                case "--file" -> file = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (!List.of("export", "import").contains(command) || urls.isEmpty() || file == null) {
+            throw new IllegalArgumentException("Usage: export|import --db <jdbc urls> --file <path>");
+        }
+
+        try (UserShards shards = UserShards.open(urls, command.equals("import"))) {
+            UserTransferService transfer = new UserTransferService(
+                    new UserRepository(shards, UserCache.disabled(), UsernameBloomFilter.disabled(), Metrics.globalRegistry),
+                    new DelegatingPasswordHasher("bcrypt", List.of(new BCryptPasswordHasher(10),
+                            new Argon2PasswordHasher(19456, 2, 1), new ScryptPasswordHasher(15, 8, 1))),
+                    JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+
+            if (command.equals("export")) {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+                    System.out.printf("Exported %d users%n", transfer.exportTo(out));
+                }
+            } else {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+                    UserImportResult result = transfer.importFrom(in);
+                    System.out.printf("Read %d users: %d imported, %d already present, %d invalid%n",
+                            result.read(), result.imported(), result.existing(), result.invalid());
+                }
+            }
+        }
+    }
+}
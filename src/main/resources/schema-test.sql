@@ -3,4 +3,54 @@ CREATE TABLE IF NOT EXISTS users (
     username VARCHAR(255) NOT NULL UNIQUE,
     password VARCHAR(255) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON users (created_at, id);
+
+CREATE TABLE IF NOT EXISTS user_id_sequence (
+    allocated BIGINT NOT NULL
+);
+
+INSERT INTO user_id_sequence (allocated)
+SELECT (SELECT COALESCE(MAX(id), 0) FROM users) / 64
+WHERE NOT EXISTS (SELECT 1 FROM user_id_sequence);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    family_id BIGINT NOT NULL,
+    expires_at BIGINT NOT NULL,
+    revoked INT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+CREATE TABLE IF NOT EXISTS token_revocations (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id INT NOT NULL,
+    revoked_before BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocations_revoked_before ON token_revocations (revoked_before);
+
+CREATE TABLE IF NOT EXISTS signing_keys (
+    generation BIGINT PRIMARY KEY,
+    key_id VARCHAR(64) NOT NULL,
+    public_key VARCHAR(512) NOT NULL,
+    private_key VARCHAR(1024) NOT NULL,
+    activates_at BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS auth_events (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    occurred_at BIGINT NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    outcome VARCHAR(16) NOT NULL,
+    user_id INT,
+    username VARCHAR(255),
+    client_ip VARCHAR(64)
+);
+
+CREATE INDEX IF NOT EXISTS idx_auth_events_occurred_at ON auth_events (occurred_at);
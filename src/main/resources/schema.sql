@@ -3,4 +3,54 @@ CREATE TABLE IF NOT EXISTS users (
     username TEXT NOT NULL UNIQUE,
     password TEXT NOT NULL,
     created_at TEXT DEFAULT (datetime('now'))
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON users (created_at, id);
+
+CREATE TABLE IF NOT EXISTS user_id_sequence (
+    allocated INTEGER NOT NULL
+);
+
+INSERT INTO user_id_sequence (allocated)
+SELECT (SELECT COALESCE(MAX(id), 0) FROM users) / 64
+WHERE NOT EXISTS (SELECT 1 FROM user_id_sequence);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    user_id INTEGER NOT NULL,
+    family_id INTEGER NOT NULL,
+    expires_at INTEGER NOT NULL,
+    revoked INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires_at ON refresh_tokens (expires_at);
+
+CREATE TABLE IF NOT EXISTS token_revocations (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    user_id INTEGER NOT NULL,
+    revoked_before INTEGER NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_revocations_revoked_before ON token_revocations (revoked_before);
+
+CREATE TABLE IF NOT EXISTS signing_keys (
+    generation INTEGER PRIMARY KEY,
+    key_id TEXT NOT NULL,
+    public_key TEXT NOT NULL,
+    private_key TEXT NOT NULL,
+    activates_at INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS auth_events (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    occurred_at INTEGER NOT NULL,
+    event_type TEXT NOT NULL,
+    outcome TEXT NOT NULL,
+    user_id INTEGER,
+    username TEXT,
+    client_ip TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_auth_events_occurred_at ON auth_events (occurred_at);
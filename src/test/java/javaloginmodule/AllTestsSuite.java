@@ -1,20 +1,54 @@
 package javaloginmodule;
 
+import javaloginmodule.config.SchemaVersionTest;
 import javaloginmodule.controller.AuthControllerTest;
+import javaloginmodule.controller.ReactiveAuthControllerTest;
+import javaloginmodule.controller.TokenIntrospectionControllerTest;
+import javaloginmodule.controller.UserAdminControllerTest;
+import javaloginmodule.repository.GroupCommitWriterTest;
+import javaloginmodule.repository.UserCacheTest;
 import javaloginmodule.repository.UserRepositoryTest;
+import javaloginmodule.repository.UserShardsTest;
+import javaloginmodule.repository.UsernameBloomFilterTest;
 import javaloginmodule.security.PasswordHasherTest;
+import javaloginmodule.security.PasswordHashingExecutorTest;
+import javaloginmodule.security.RevokedTokenIndexTest;
+import javaloginmodule.security.TokenBucketTableTest;
+import javaloginmodule.security.SigningKeyStoreTest;
+import javaloginmodule.security.TokenRevocationStoreTest;
+import javaloginmodule.service.AuditLogTest;
 import javaloginmodule.service.AuthServiceTest;
+import javaloginmodule.service.TokenIntrospectionServiceTest;
 import javaloginmodule.service.TokenServiceTest;
+import javaloginmodule.service.UserDirectoryServiceTest;
+import javaloginmodule.service.UserTransferServiceTest;
 import org.junit.platform.suite.api.SelectClasses;
 import org.junit.platform.suite.api.Suite;
 
 @Suite
 @SelectClasses({
         UserRepositoryTest.class,
+        UserCacheTest.class,
+        UsernameBloomFilterTest.class,
+        GroupCommitWriterTest.class,
+        UserShardsTest.class,
+        SchemaVersionTest.class,
         PasswordHasherTest.class,
+        PasswordHashingExecutorTest.class,
+        TokenBucketTableTest.class,
+        RevokedTokenIndexTest.class,
+        SigningKeyStoreTest.class,
+        TokenRevocationStoreTest.class,
         AuthServiceTest.class,
+        AuditLogTest.class,
         TokenServiceTest.class,
-        AuthControllerTest.class
+        TokenIntrospectionServiceTest.class,
+        UserTransferServiceTest.class,
+        UserDirectoryServiceTest.class,
+        AuthControllerTest.class,
+        ReactiveAuthControllerTest.class,
+        TokenIntrospectionControllerTest.class,
+        UserAdminControllerTest.class
 })
 public class AllTestsSuite {
 }
@@ -0,0 +1,64 @@
+package javaloginmodule.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaVersionTest {
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:schema-version-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+
+    @Test
+    public void applyIfChanged_skipsScripts_ifChecksumIsStored() {
+        List<Resource> schema = script("CREATE TABLE users (id INT); INSERT INTO users VALUES (1);");
+
+        boolean first = SchemaVersion.applyIfChanged(dataSource, schema);
+        boolean second = SchemaVersion.applyIfChanged(dataSource, schema);
+
+        assertAll(
+                () -> assertTrue(first),
+                () -> assertFalse(second, "Expected an unchanged schema to be skipped"),
+                () -> assertEquals(1, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM users", Integer.class))
+        );
+    }
+
+    @Test
+    public void applyIfChanged_rerunsScripts_ifScriptChanged() {
+        SchemaVersion.applyIfChanged(dataSource, script("CREATE TABLE IF NOT EXISTS users (id INT);"));
+
+        boolean rerun = SchemaVersion.applyIfChanged(dataSource,
+                script("CREATE TABLE IF NOT EXISTS users (id INT); CREATE TABLE IF NOT EXISTS events (id INT);"));
+
+        assertAll(
+                () -> assertTrue(rerun),
+                () -> assertEquals(0, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM events", Integer.class)),
+                () -> assertEquals(1, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM schema_version", Integer.class))
+        );
+    }
+
+    @Test
+    public void nativeHints_coverSchemaAndJwtInternals() {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeHintsConfiguration.Hints().registerHints(hints, getClass().getClassLoader());
+
+        assertAll(
+                () -> assertTrue(RuntimeHintsPredicates.resource().forResource("schema.sql").test(hints)),
+                () -> assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of("com.auth0.jwt.impl.PayloadDeserializer")).test(hints))
+        );
+    }
+
+    private static List<Resource> script(String sql) {
+        return List.of(new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)));
+    }
+}
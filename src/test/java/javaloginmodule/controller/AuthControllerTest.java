@@ -1,13 +1,22 @@
 package javaloginmodule.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import javaloginmodule.config.SecurityConfig;
+import javaloginmodule.exceptions.TooManyRequestsException;
+import javaloginmodule.model.AuthOutcome;
+import javaloginmodule.model.AuthResponse;
+import javaloginmodule.model.PasswordUpdateRequest;
+import javaloginmodule.model.Token;
 import javaloginmodule.model.UserDetailsResponse;
 import javaloginmodule.model.UserRequest;
+import javaloginmodule.model.UserResponse;
 import javaloginmodule.service.AuthService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -16,10 +25,12 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDateTime;
 
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthController.class)
+@Import(SecurityConfig.class)
 @ActiveProfiles("test")
 public class AuthControllerTest {
     @Autowired
@@ -41,4 +52,82 @@ public class AuthControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.username").value("sam"));
     }
+
+    @Test
+    public void login_returnsTooManyRequestsWithRetryAfter_ifThrottled() throws Exception {
+        Mockito.when(authService.attemptLogin(Mockito.any(UserRequest.class), Mockito.eq("127.0.0.1")))
+                .thenThrow(new TooManyRequestsException("Too many login attempts, please try again later", 6));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(new UserRequest("sam", "Password123"))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "6"));
+    }
+
+    @Test
+    public void login_returnsErrorBodyWithoutException_ifLoginRejected() throws Exception {
+        Mockito.when(authService.attemptLogin(new UserRequest("pedro", "Password123"), "127.0.0.1"))
+                .thenReturn(new AuthOutcome.UnknownUser("pedro"));
+        Mockito.when(authService.attemptLogin(new UserRequest("sam", "wrong"), "127.0.0.1"))
+                .thenReturn(AuthOutcome.INVALID_CREDENTIALS);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(new UserRequest("pedro", "Password123"))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("User with username 'pedro' not found"))
+                .andExpect(jsonPath("$.path").value("/api/auth/login"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(new UserRequest("sam", "wrong"))))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.status").value(401))
+                .andExpect(jsonPath("$.timestamp").exists());
+    }
+
+    @Test
+    public void login_returnsClientErrors_ifRequestIsMalformed() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/auth/login"))
+                .andExpect(status().isMethodNotAllowed());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("sam"))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    public void updatePassword_returnsNewTokens_ifBearerTokenPresent() throws Exception {
+        AuthResponse mockResponse = new AuthResponse(new UserResponse(1, "sam"), new Token("access"), new Token("refresh"));
+        Mockito.when(authService.updatePassword(new Token("old-access"), "NewPassword123")).thenReturn(mockResponse);
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/auth/password")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer old-access")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(new PasswordUpdateRequest("NewPassword123"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token.value").value("access"));
+    }
+
+    @Test
+    public void delete_returnsNoContent_ifBearerTokenPresent() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/auth/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer access"))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(authService).delete(new Token("access"));
+    }
+
+    @Test
+    public void delete_isRejected_ifBearerTokenMissing() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/auth/user"))
+                .andExpect(jsonPath("$.status").value(401));
+
+        Mockito.verifyNoInteractions(authService);
+    }
 }
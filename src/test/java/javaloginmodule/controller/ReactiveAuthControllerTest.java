@@ -0,0 +1,245 @@
+package javaloginmodule.controller;
+
+import javaloginmodule.model.AuthResponse;
+import javaloginmodule.model.PasswordUpdateRequest;
+import javaloginmodule.model.UserPage;
+import javaloginmodule.model.UserRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+public class ReactiveAuthControllerTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.execute("DELETE FROM refresh_tokens");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    @Test
+    public void updatePasswordAndDelete_succeed_ifLoggedInOnReactiveStack() {
+        client.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("sam", "Password123"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.username").isEqualTo("sam");
+
+        AuthResponse login = login("sam", "Password123");
+        AuthResponse updated = client.put().uri("/api/auth/password")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + login.token().value())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PasswordUpdateRequest("NewPassword123"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthResponse.class).returnResult().getResponseBody();
+        assertNotNull(updated);
+
+        client.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("sam", "Password123"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        client.delete().uri("/api/auth/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + login("sam", "NewPassword123").token().value())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("sam", "NewPassword123"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void registerBulk_returnsResultPerUser_ifAdmin() {
+        client.post().uri("/api/admin/users/bulk")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"username\":\"sam\",\"password\":\"Password123\"},{\"username\":\"sam\",\"password\":\"Password456\"},{\"username\":\"\"}]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo("CREATED")
+                .jsonPath("$[1].status").isEqualTo("CONFLICT")
+                .jsonPath("$[2].status").isEqualTo("INVALID");
+    }
+
+    @Test
+    public void list_returnsPagesWithCursor_ifAdmin() {
+        client.post().uri("/api/admin/users/bulk")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"username\":\"sam\",\"password\":\"Password123\"},{\"username\":\"sasha\",\"password\":\"Password123\"},{\"username\":\"alex\",\"password\":\"Password123\"}]")
+                .exchange()
+                .expectStatus().isOk();
+
+        String next = client.get().uri("/api/admin/users?prefix=sa&limit=1")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserPage.class).returnResult().getResponseBody().next();
+        assertNotNull(next);
+
+        client.get().uri("/api/admin/users?prefix=sa&limit=1&after=" + next)
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.users.length()").isEqualTo(1)
+                .jsonPath("$.users[0].username").isEqualTo("sasha")
+                .jsonPath("$.users[0].password").doesNotExist()
+                .jsonPath("$.next").isEmpty();
+
+        client.get().uri("/api/admin/users?limit=0")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void exportThenImport_restoresUsers_ifAdmin() {
+        client.post().uri("/api/admin/users/bulk")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"username\":\"sam\",\"password\":\"Password123\"},{\"username\":\"alex\",\"password\":\"Password123\"}]")
+                .exchange()
+                .expectStatus().isOk();
+
+        String export = client.get().uri("/api/admin/users/export")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson")
+                .expectBody(String.class).returnResult().getResponseBody();
+        assertNotNull(export);
+        assertEquals(2, export.lines().count());
+        jdbcTemplate.execute("DELETE FROM users WHERE username = 'sam'");
+
+        client.post().uri("/api/admin/users/import")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .bodyValue(export)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.imported").isEqualTo(1)
+                .jsonPath("$.existing").isEqualTo(1);
+        login("sam", "Password123");
+
+        client.post().uri("/api/admin/users/import")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .bodyValue("{\"username\":")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void registerBulk_returnsUnauthorized_ifNoAdminCredentials() {
+        client.post().uri("/api/admin/users/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"username\":\"sam\",\"password\":\"Password123\"}]")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+
+    @Test
+    public void introspect_requiresGatewayCredentials_onReactiveStack() {
+        client.post().uri("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest("sam", "Password123"))
+                .exchange()
+                .expectStatus().isOk();
+        String token = login("sam", "Password123").token().value();
+
+        client.post().uri("/api/auth/introspect")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new String[]{token})
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        client.post().uri("/api/auth/introspect")
+                .headers(headers -> headers.setBasicAuth("gateway", "test-gateway-password"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new String[]{token, "not-a-jwt"})
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].username").isEqualTo("sam")
+                .jsonPath("$[1].active").isEqualTo(false);
+    }
+
+    @Test
+    public void requests_returnClientErrors_ifMalformedOrUnrouted() {
+        client.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"username\":")
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/api/auth/login")
+                .exchange()
+                .expectStatus().isEqualTo(405);
+        client.post().uri("/api/auth/login")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("sam")
+                .exchange()
+                .expectStatus().isEqualTo(415);
+        client.get().uri("/api/admin/users?limit=abc")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/api/admin/nothing-here")
+                .headers(headers -> headers.setBasicAuth("admin", "test-admin-password"))
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.status").isEqualTo(404);
+        client.post().uri("/api/auth/introspect")
+                .headers(headers -> headers.setBasicAuth("gateway", "test-gateway-password"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"token\":\"abc\"}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void delete_returnsUnauthorized_ifBearerTokenMissing() {
+        client.delete().uri("/api/auth/user")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.path").isEqualTo("/api/auth/user");
+    }
+
+    private AuthResponse login(String username, String password) {
+        AuthResponse response = client.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserRequest(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthResponse.class).returnResult().getResponseBody();
+        assertNotNull(response);
+        return response;
+    }
+}
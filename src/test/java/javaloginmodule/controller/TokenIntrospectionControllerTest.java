@@ -0,0 +1,61 @@
+package javaloginmodule.controller;
+
+import javaloginmodule.config.SecurityConfig;
+import javaloginmodule.model.TokenIntrospection;
+import javaloginmodule.service.TokenIntrospectionService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TokenIntrospectionController.class)
+@Import(SecurityConfig.class)
+@ActiveProfiles("test")
+public class TokenIntrospectionControllerTest {
+    private static final String GATEWAY = "Basic " + Base64.getEncoder()
+            .encodeToString("gateway:test-gateway-password".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TokenIntrospectionService introspectionService;
+
+    @Test
+    public void introspect_returnsUnauthorized_ifNoGatewayCredentials() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/introspect")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"token\"]"))
+                .andExpect(status().isUnauthorized());
+
+        Mockito.verifyNoInteractions(introspectionService);
+    }
+
+    @Test
+    public void introspect_returnsResultPerToken_ifGatewayClient() throws Exception {
+        Mockito.when(introspectionService.introspect(List.of("token", "garbage")))
+                .thenReturn(List.of(new TokenIntrospection(true, "1", "sam", 1_700_000_000L), TokenIntrospection.inactive()));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/introspect")
+                        .header(HttpHeaders.AUTHORIZATION, GATEWAY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"token\",\"garbage\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("sam"))
+                .andExpect(jsonPath("$[1].active").value(false));
+    }
+}
@@ -0,0 +1,168 @@
+package javaloginmodule.controller;
+
+import javaloginmodule.config.SecurityConfig;
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.BulkRegistrationResult;
+import javaloginmodule.model.UserDetailsResponse;
+import javaloginmodule.model.UserImportResult;
+import javaloginmodule.model.UserRequest;
+import javaloginmodule.service.AuthService;
+import javaloginmodule.service.UserDirectoryService;
+import javaloginmodule.service.UserTransferService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserAdminController.class)
+@Import(SecurityConfig.class)
+@ActiveProfiles("test")
+public class UserAdminControllerTest {
+    private static final String ADMIN = "Basic " + Base64.getEncoder()
+            .encodeToString("admin:test-admin-password".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private AuthService authService;
+
+    @MockitoBean
+    private UserTransferService transferService;
+
+    @MockitoBean
+    private UserDirectoryService directoryService;
+
+    @Test
+    public void export_returnsUnauthorized_ifNoAdminCredentials() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/users/export"))
+                .andExpect(status().isUnauthorized());
+
+        Mockito.verifyNoInteractions(transferService);
+    }
+
+    @Test
+    public void export_returnsForbidden_ifGatewayClient() throws Exception {
+        String gateway = "Basic " + Base64.getEncoder()
+                .encodeToString("gateway:test-gateway-password".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/users/export").header(HttpHeaders.AUTHORIZATION, gateway))
+                .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(transferService);
+    }
+
+    @Test
+    public void export_streamsNdjson_ifAdmin() throws Exception {
+        Mockito.when(transferService.exportTo(Mockito.any(OutputStream.class))).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1,\"username\":\"sam\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/users/export").header(HttpHeaders.AUTHORIZATION, ADMIN))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(UserAdminController.NDJSON))
+                .andExpect(content().string("{\"id\":1,\"username\":\"sam\"}\n"));
+    }
+
+    @Test
+    public void importUsers_returnsCounts_ifAdmin() throws Exception {
+        Mockito.when(transferService.importFrom(Mockito.any(InputStream.class))).thenReturn(new UserImportResult(3, 2, 1, 0));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/users/import")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .contentType(UserAdminController.NDJSON)
+                        .content("{}\n{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.existing").value(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void list_streamsPageWithNextCursor_ifAdmin() throws Exception {
+        Mockito.when(directoryService.listUsers(Mockito.eq("sa"), Mockito.eq("cursor-1"), Mockito.eq(2), Mockito.any(Consumer.class)))
+                .thenAnswer(invocation -> {
+                    Consumer<UserDetailsResponse> users = invocation.getArgument(3);
+                    users.accept(new UserDetailsResponse(64, "sam", LocalDateTime.of(2024, 3, 1, 10, 0)));
+                    users.accept(new UserDetailsResponse(128, "sasha", LocalDateTime.of(2024, 3, 1, 10, 1)));
+                    return "cursor-2";
+                });
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/users")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .param("prefix", "sa")
+                        .param("after", "cursor-1")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].username").value("sam"))
+                .andExpect(jsonPath("$.users[1].id").value(128))
+                .andExpect(jsonPath("$.next").value("cursor-2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void list_returnsBadRequest_ifCursorIsInvalid() throws Exception {
+        Mockito.when(directoryService.listUsers(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(Consumer.class)))
+                .thenThrow(new BadRequestException("Invalid page cursor"));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/users")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .param("after", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid page cursor"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void registerBulk_streamsResultPerUser_ifAdmin() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Iterator<UserRequest> requests = invocation.getArgument(0);
+            Consumer<BulkRegistrationResult> results = invocation.getArgument(1);
+            int id = 1;
+            while (requests.hasNext()) {
+                results.accept(new BulkRegistrationResult(requests.next().username(), BulkRegistrationResult.Status.CREATED, id++));
+            }
+            return null;
+        }).when(authService).registerAll(Mockito.any(Iterator.class), Mockito.any(Consumer.class));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/users/bulk")
+                        .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"username\":\"sam\",\"password\":\"Password123\"},{\"username\":\"alex\",\"password\":\"Password456\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("sam"))
+                .andExpect(jsonPath("$[1].id").value(2))
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+    }
+
+    @Test
+    public void registerBulk_returnsUnauthorized_ifNoAdminCredentials() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/admin/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"username\":\"sam\",\"password\":\"Password123\"}]"))
+                .andExpect(status().isUnauthorized());
+
+        Mockito.verifyNoInteractions(authService);
+    }
+}
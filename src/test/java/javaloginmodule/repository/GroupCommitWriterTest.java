@@ -0,0 +1,121 @@
+package javaloginmodule.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.exceptions.UserAlreadyExistsException;
+import javaloginmodule.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GroupCommitWriterTest {
+
+    private Path databaseFile;
+    private HikariDataSource dataSource;
+    private GroupCommitWriter writer;
+    private UserRepository repository;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("login-writer", ".db");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile + "?journal_mode=WAL");
+        dataSource.setMaximumPoolSize(1);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        writer = new GroupCommitWriter(dataSource, 1000, 64);
+        repository = new UserRepository(new DatabaseAccess(new JdbcTemplate(dataSource), writer),
+                UserCache.disabled(), UsernameBloomFilter.disabled());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        writer.close();
+        dataSource.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Test
+    public void save_persistsConcurrentWritesInSharedCommits() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        List<Future<User>> saves = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String username = "user" + i;
+            saves.add(clients.submit(() -> repository.save(new User(0, username, "hash"))));
+        }
+        for (Future<User> save : saves) {
+            assertTrue(save.get().id() > 0, "Expected every write to return its generated id");
+        }
+        clients.shutdown();
+
+        Integer count = new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        assertAll(
+                () -> assertEquals(200, count),
+                () -> assertEquals(200, writer.getWriteCount()),
+                () -> assertTrue(writer.getBatchCount() <= 200)
+        );
+    }
+
+    @Test
+    public void save_failsOnlyTheConflictingWrite() {
+        repository.save(new User(0, "sam", "hash"));
+
+        assertThrows(UserAlreadyExistsException.class, () -> repository.save(new User(0, "sam", "otherHash")));
+
+        User alex = repository.save(new User(0, "alex", "hash"));
+        assertAll(
+                () -> assertEquals("alex", repository.fetchByUsername("alex").username()),
+                () -> assertEquals(alex.id(), repository.fetchById(alex.id()).get().id()),
+                () -> assertEquals("hash", repository.fetchByUsername("sam").passwordHash())
+        );
+    }
+
+    @Test
+    public void updateAndDelete_runThroughWriter() {
+        User sam = repository.save(new User(0, "sam", "hash"));
+
+        User updated = repository.update(new User(sam.id(), "sam", "newHash"));
+        User rehashed = repository.updatePassword(sam.id(), "rehashed");
+        User deleted = repository.delete(sam.id());
+
+        assertAll(
+                () -> assertNotNull(sam.createdAt(), "Expected insert to return the creation timestamp"),
+                () -> assertEquals("newHash", updated.passwordHash()),
+                () -> assertEquals(sam.createdAt(), updated.createdAt()),
+                () -> assertEquals("rehashed", rehashed.passwordHash()),
+                () -> assertEquals(rehashed, deleted),
+                () -> assertTrue(repository.fetchById(sam.id()).isEmpty())
+        );
+    }
+
+    @Test
+    public void saveAll_batchesInsertsThroughWriter() {
+        repository.save(new User(0, "sam", "hash"));
+
+        List<Optional<User>> saved = repository.saveAll(List.of(
+                new User(0, "alex", "hash"),
+                new User(0, "sam", "otherHash"),
+                new User(0, "peter", "hash")
+        ));
+
+        assertAll(
+                () -> assertEquals(repository.fetchByUsername("alex").id(), saved.get(0).get().id()),
+                () -> assertTrue(saved.get(1).isEmpty(), "Expected existing username to conflict"),
+                () -> assertEquals(repository.fetchByUsername("peter").id(), saved.get(2).get().id()),
+                () -> assertEquals("hash", repository.fetchByUsername("sam").passwordHash())
+        );
+    }
+}
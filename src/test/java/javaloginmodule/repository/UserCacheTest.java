@@ -0,0 +1,99 @@
+package javaloginmodule.repository;
+
+import javaloginmodule.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserCacheTest {
+
+    @Test
+    public void get_returnsUserByIdAndUsername_ifCached() {
+        UserCache cache = new UserCache(10, Duration.ofMinutes(1));
+        User user = new User(1, "sam", "hashed123");
+
+        cache.put(user, cache.stamp());
+
+        assertAll(
+                () -> assertEquals(Optional.of(user), cache.getById(1)),
+                () -> assertEquals(Optional.of(user), cache.getByUsername("sam")),
+                () -> assertEquals(2, cache.getHits())
+        );
+    }
+
+    @Test
+    public void put_skipsUser_ifInvalidatedSinceStamp() {
+        UserCache cache = new UserCache(10, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+
+        cache.invalidateUsername("sam");
+        cache.put(new User(1, "sam", "staleHash"), stamp);
+
+        assertTrue(cache.getByUsername("sam").isEmpty(), "Expected stale read not to be cached");
+    }
+
+    @Test
+    public void getByUsername_returnsEmpty_ifUsernameIsNull() {
+        UserCache cache = new UserCache(10, Duration.ofMinutes(1));
+        cache.put(new User(1, "sam", "hashed123"), cache.stamp());
+
+        cache.invalidateUsername(null);
+
+        assertAll(
+                () -> assertTrue(cache.getByUsername(null).isEmpty()),
+                () -> assertTrue(cache.getByUsername("sam").isPresent())
+        );
+    }
+
+    @Test
+    public void invalidateId_removesBothIndexes() {
+        UserCache cache = new UserCache(10, Duration.ofMinutes(1));
+        cache.put(new User(1, "sam", "hashed123"), cache.stamp());
+
+        cache.invalidateId(1);
+
+        assertAll(
+                () -> assertTrue(cache.getById(1).isEmpty()),
+                () -> assertTrue(cache.getByUsername("sam").isEmpty())
+        );
+    }
+
+    @Test
+    public void put_evictsEntries_ifCacheIsFull() {
+        UserCache cache = new UserCache(10, Duration.ofMinutes(1));
+
+        for (int i = 1; i <= 25; i++) {
+            cache.put(new User(i, "user" + i, "hash"), cache.stamp());
+        }
+
+        assertAll(
+                () -> assertTrue(cache.size() <= 10, "Expected cache to stay within its bound"),
+                () -> assertTrue(cache.getEvictions() >= 15, "Expected evictions to be counted")
+        );
+    }
+
+    @Test
+    public void get_missesExpiredEntry() throws InterruptedException {
+        UserCache cache = new UserCache(10, Duration.ofMillis(1));
+        cache.put(new User(1, "sam", "hashed123"), cache.stamp());
+
+        Thread.sleep(5);
+
+        assertAll(
+                () -> assertTrue(cache.getById(1).isEmpty()),
+                () -> assertEquals(1, cache.getMisses()),
+                () -> assertEquals(1, cache.getEvictions())
+        );
+    }
+
+    @Test
+    public void put_doesNothing_ifDisabled() {
+        UserCache cache = UserCache.disabled();
+        cache.put(new User(1, "sam", "hashed123"), cache.stamp());
+
+        assertEquals(0, cache.size());
+    }
+}
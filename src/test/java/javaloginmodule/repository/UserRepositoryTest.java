@@ -13,6 +13,7 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,8 +26,11 @@ public class UserRepositoryTest {
     @Autowired
     private UserRepository repository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
-    public void setUp(@Autowired JdbcTemplate jdbcTemplate) {
+    public void setUp() {
         jdbcTemplate.execute("DELETE FROM users");
         jdbcTemplate.execute("INSERT INTO users (username, password) VALUES ('sam', 'hashed123')");
     }
@@ -44,6 +48,14 @@ public class UserRepositoryTest {
         assertThrows(UserNotFoundException.class, () -> repository.fetchByUsername(username));
     }
 
+    @Test
+    public void findByUsername_returnsEmpty_ifUserDoesNotExist() {
+        assertAll(
+                () -> assertTrue(repository.findByUsername("pedro").isEmpty()),
+                () -> assertEquals("sam", repository.findByUsername("sam").orElseThrow().username())
+        );
+    }
+
     @Test
     public void save_returnsUser_ifUserIsAdded() {
         String username = "alex";
@@ -53,7 +65,8 @@ public class UserRepositoryTest {
 
         assertAll(
                 () -> assertEquals(username, savedUser.username()),
-                () -> assertEquals("hashed321", savedUser.passwordHash())
+                () -> assertEquals("hashed321", savedUser.passwordHash()),
+                () -> assertEquals(repository.getUserCreationTimestamp(savedUser.id()).get(), savedUser.createdAt())
         );
     }
 
@@ -81,14 +94,32 @@ public class UserRepositoryTest {
         assertThrows(UserNotFoundException.class, () -> repository.update(user));
     }
 
+    @Test
+    public void updatePassword_returnsUpdatedRow_ifIdExists() {
+        User user = repository.fetchByUsername("sam");
+
+        User updatedUser = repository.updatePassword(user.id(), "newHash789");
+
+        assertAll(
+                () -> assertEquals(new User(user.id(), "sam", "newHash789", user.createdAt()), updatedUser),
+                () -> assertEquals("newHash789", repository.fetchByUsername("sam").passwordHash())
+        );
+    }
+
+    @Test
+    public void updatePassword_throwsUserNotFoundException_ifIdDoesNotExist() {
+        assertThrows(UserNotFoundException.class, () -> repository.updatePassword(999, "hashCake"));
+    }
+
     @Test
     public void delete_deletesUser_ifUserExists() {
         String username = "sam";
         User user = repository.fetchByUsername(username);
         assertEquals(username, user.username());
 
-        repository.delete(user.id());
+        User deletedUser = repository.delete(user.id());
 
+        assertEquals(user, deletedUser, "Expected delete to return the removed row");
         assertThrows(UserNotFoundException.class, () -> repository.fetchByUsername(username), "Expected UserNotFoundException after deleting user");
     }
 
@@ -133,4 +164,82 @@ public class UserRepositoryTest {
                 }
         );
     }
+
+    @Test
+    public void fetchByUsername_servesRepeatedLookupsFromCache_ifCacheEnabled() {
+        UserCache cache = new UserCache(100, Duration.ofMinutes(1));
+        UserRepository cachedRepository = new UserRepository(DatabaseAccess.direct(jdbcTemplate), cache, UsernameBloomFilter.disabled());
+
+        User first = cachedRepository.fetchByUsername("sam");
+        User second = cachedRepository.fetchByUsername("sam");
+        Optional<User> byId = cachedRepository.fetchById(first.id());
+
+        assertAll(
+                () -> assertEquals(first, second),
+                () -> assertEquals(Optional.of(first), byId),
+                () -> assertEquals(2, cache.getHits(), "Expected repeated lookups to hit the cache")
+        );
+    }
+
+    @Test
+    public void update_invalidatesCachedUser_ifCacheEnabled() {
+        UserRepository cachedRepository = new UserRepository(DatabaseAccess.direct(jdbcTemplate), new UserCache(100, Duration.ofMinutes(1)), UsernameBloomFilter.disabled());
+        User user = cachedRepository.fetchByUsername("sam");
+
+        cachedRepository.update(new User(user.id(), user.username(), "newHash789"));
+
+        assertAll(
+                () -> assertEquals("newHash789", cachedRepository.fetchByUsername("sam").passwordHash()),
+                () -> assertEquals("newHash789", cachedRepository.fetchById(user.id()).get().passwordHash())
+        );
+    }
+
+    @Test
+    public void delete_invalidatesCachedUser_ifCacheEnabled() {
+        UserRepository cachedRepository = new UserRepository(DatabaseAccess.direct(jdbcTemplate), new UserCache(100, Duration.ofMinutes(1)), UsernameBloomFilter.disabled());
+        User user = cachedRepository.fetchByUsername("sam");
+
+        cachedRepository.delete(user.id());
+
+        assertAll(
+                () -> assertThrows(UserNotFoundException.class, () -> cachedRepository.fetchByUsername("sam")),
+                () -> assertTrue(cachedRepository.fetchById(user.id()).isEmpty())
+        );
+    }
+
+    @Test
+    public void fetchByUsername_skipsDatabase_ifUsernameFilterRulesItOut() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(true, 1_000, 0.01);
+        UserRepository filteredRepository = new UserRepository(DatabaseAccess.direct(jdbcTemplate), UserCache.disabled(), filter);
+        filteredRepository.loadUsernameFilter();
+
+        User saved = filteredRepository.save(new User(0, "alex", "hashed321"));
+
+        assertAll(
+                () -> assertEquals("sam", filteredRepository.fetchByUsername("sam").username()),
+                () -> assertEquals(saved.id(), filteredRepository.fetchByUsername("alex").id()),
+                () -> assertThrows(UserNotFoundException.class, () -> filteredRepository.fetchByUsername("pedro")),
+                () -> assertEquals(1, filter.getDefiniteMisses(), "Expected unknown username to be a definite miss")
+        );
+    }
+
+    @Test
+    public void saveAll_returnsEmptyForConflicts_ifSomeUsernamesAreTaken() {
+        List<Optional<User>> saved = repository.saveAll(List.of(
+                new User(0, "alex", "hashed321"),
+                new User(0, "sam", "hashBrown"),
+                new User(0, "alex", "hashCake"),
+                new User(0, "peter", "hashPie")
+        ));
+
+        assertAll(
+                () -> assertEquals(4, saved.size()),
+                () -> assertEquals("alex", saved.get(0).get().username()),
+                () -> assertTrue(saved.get(1).isEmpty(), "Expected existing username to conflict"),
+                () -> assertTrue(saved.get(2).isEmpty(), "Expected duplicate within the batch to conflict"),
+                () -> assertEquals(saved.get(3).get().id(), repository.fetchByUsername("peter").id()),
+                () -> assertEquals("hashed321", repository.fetchByUsername("alex").passwordHash()),
+                () -> assertEquals("hashed123", repository.fetchByUsername("sam").passwordHash())
+        );
+    }
 }
@@ -0,0 +1,323 @@
+package javaloginmodule.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.exceptions.UserAlreadyExistsException;
+import javaloginmodule.exceptions.UserIdsExhaustedException;
+import javaloginmodule.exceptions.UserNotFoundException;
+import javaloginmodule.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserShardsTest {
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<Path> databaseFiles = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dataSources.forEach(HikariDataSource::close);
+        for (Path file : databaseFiles) Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void save_storesUserInBucketShard_ifSharded() {
+        UserShards shards = shards(3);
+        UserRepository repository = repository(shards);
+
+        List<User> saved = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            saved.add(repository.save(new User(0, "user" + i, "hash" + i)));
+        }
+
+        for (User user : saved) {
+            int shard = shards.shardOfUsername(user.username());
+            assertAll(
+                    () -> assertEquals(UserShards.bucketOf(user.username()), UserShards.bucketOf(user.id()), "Expected the id to carry the bucket"),
+                    () -> assertEquals(1, count(shards.get(shard), user.username()), "Expected the user in its bucket's shard"),
+                    () -> assertEquals(Optional.of(user), repository.fetchById(user.id())),
+                    () -> assertEquals(user, repository.fetchByUsername(user.username()))
+            );
+        }
+        assertEquals(30, saved.stream().map(User::id).distinct().count(), "Expected ids to be unique across shards");
+    }
+
+    @Test
+    public void save_takesIdsFromShardSequence_ifUsersWereDeleted() {
+        UserShards shards = shards(1);
+        UserRepository repository = repository(shards);
+
+        User first = repository.save(new User(0, "alex", "hash1"));
+        User second = repository.save(new User(0, "sam", "hash2"));
+        repository.delete(second.id());
+        User third = repository.save(new User(0, "peter", "hash3"));
+        List<Optional<User>> batch = repository.saveAll(List.of(new User(0, "maria", "hash4"), new User(0, "lena", "hash5")));
+
+        assertAll(
+                () -> assertEquals(1, first.id() / UserShards.BUCKETS),
+                () -> assertEquals(2, second.id() / UserShards.BUCKETS),
+                () -> assertEquals(3, third.id() / UserShards.BUCKETS, "Expected the deleted user's id not to be reused"),
+                () -> assertEquals(4, batch.get(0).orElseThrow().id() / UserShards.BUCKETS),
+                () -> assertEquals(5, batch.get(1).orElseThrow().id() / UserShards.BUCKETS),
+                () -> assertEquals(UserShards.bucketOf("lena"), UserShards.bucketOf(batch.get(1).orElseThrow().id()))
+        );
+    }
+
+    @Test
+    public void save_usesNoSequenceValue_ifUsernameExistsOrIdsRunOut() {
+        DatabaseAccess shard = shards(1).get(0);
+        UserRepository repository = repository(new UserShards(List.of(shard)));
+
+        repository.save(new User(0, "alex", "hash1"));
+        assertThrows(UserAlreadyExistsException.class, () -> repository.save(new User(0, "alex", "hash2")));
+        List<Optional<User>> batch = repository.saveAll(List.of(
+                new User(0, "sam", "hash3"), new User(0, "alex", "hash4"), new User(0, "sam", "hash5")));
+        long allocated = allocated(shard);
+
+        shard.reads().update("UPDATE user_id_sequence SET allocated = ?", Integer.MAX_VALUE / UserShards.BUCKETS);
+        assertThrows(UserIdsExhaustedException.class, () -> repository.save(new User(0, "peter", "hash6")));
+
+        assertAll(
+                () -> assertEquals(2, allocated, "Expected only the two inserted users to take a value"),
+                () -> assertTrue(batch.get(0).isPresent()),
+                () -> assertEquals(Optional.empty(), batch.get(1)),
+                () -> assertEquals(Optional.empty(), batch.get(2)),
+                () -> assertEquals(Integer.MAX_VALUE / UserShards.BUCKETS, allocated(shard), "Expected the failed save to roll back"),
+                () -> assertEquals(0, count(shard, "peter"))
+        );
+    }
+
+    @Test
+    public void importAll_reservesOnlyIdsItAssigns_ifBatchIsRestoredTwice() {
+        DatabaseAccess shard = shards(1).get(0);
+        UserRepository repository = repository(new UserShards(List.of(shard)));
+        int samId = 5 * UserShards.BUCKETS + UserShards.bucketOf("sam");
+        String sameBucket = IntStream.range(0, 10_000).mapToObj(i -> "user" + i)
+                .filter(name -> UserShards.bucketOf(name) == UserShards.bucketOf("sam"))
+                .findFirst().orElseThrow();
+        List<User> backup = List.of(
+                new User(samId, "sam", "hash1", null),
+                new User(7 * UserShards.BUCKETS + (UserShards.bucketOf("alex") + 1) % UserShards.BUCKETS, "alex", "hash2", null),
+                new User(samId, sameBucket, "hash3", null));
+
+        int first = repository.importAll(backup);
+        long allocated = allocated(shard);
+        int second = repository.importAll(backup);
+
+        assertAll(
+                () -> assertEquals(3, first),
+                () -> assertEquals(samId, repository.fetchByUsername("sam").id()),
+                () -> assertEquals(7, allocated, "Expected the kept id's value plus one fresh value per reassigned user"),
+                () -> assertEquals(0, second),
+                () -> assertEquals(7, allocated(shard), "Expected a repeated restore to reserve nothing")
+        );
+    }
+
+    @Test
+    public void saveAll_keepsRequestOrder_ifUsersSpanShards() {
+        UserRepository repository = repository(shards(2));
+        repository.save(new User(0, "sam", "hashed123"));
+
+        List<Optional<User>> saved = repository.saveAll(List.of(
+                new User(0, "alex", "hash1"),
+                new User(0, "sam", "hash2"),
+                new User(0, "peter", "hash3"),
+                new User(0, "maria", "hash4")
+        ));
+
+        assertAll(
+                () -> assertEquals("alex", saved.get(0).get().username()),
+                () -> assertTrue(saved.get(1).isEmpty(), "Expected existing username to conflict"),
+                () -> assertEquals("peter", saved.get(2).get().username()),
+                () -> assertEquals(saved.get(3).get(), repository.fetchByUsername("maria"))
+        );
+    }
+
+    @Test
+    public void copy_movesUsersWithTheirIds_ifReshardedToMoreShards() {
+        UserShards source = shards(1);
+        UserRepository sourceRepository = repository(source);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(sourceRepository.save(new User(0, "user" + i, "hash" + i)));
+        }
+
+        UserShards target = shards(4);
+        UserResharder.Result result = new UserResharder(source, target).copy();
+        UserRepository targetRepository = repository(target);
+
+        assertAll(
+                () -> assertEquals(20, result.copied()),
+                () -> assertEquals(0, result.rekeyed()),
+                () -> users.forEach(user -> assertEquals(Optional.of(user), targetRepository.fetchById(user.id()))),
+                () -> users.forEach(user -> assertEquals(user.id(), targetRepository.fetchByUsername(user.username()).id()))
+        );
+    }
+
+    @Test
+    public void copy_givesLegacyRowsNewIds_ifIdDoesNotCarryBucket() {
+        UserShards source = shards(1);
+        JdbcTemplate sourceJdbc = source.get(0).reads();
+        sourceJdbc.update("INSERT INTO users (id, username, password) VALUES (1, 'sam', 'hashed123')");
+        sourceJdbc.update("INSERT INTO refresh_tokens (user_id, family_id, expires_at) VALUES (1, 7, ?)", Long.MAX_VALUE);
+        int legacyBucket = UserShards.bucketOf(1);
+        assertNotEquals(legacyBucket, UserShards.bucketOf("sam"), "Fixture needs a legacy id outside the username's bucket");
+
+        // The primary database stays shard 0 of the new layout
+        UserShards target = new UserShards(List.of(source.get(0), shards(1).get(0)));
+        UserResharder resharder = new UserResharder(source, target);
+        UserResharder.Result first = resharder.copy();
+        UserResharder.Result second = resharder.copy();
+        resharder.prune();
+        UserRepository targetRepository = repository(target);
+        User moved = targetRepository.fetchByUsername("sam");
+
+        assertAll(
+                () -> assertEquals(1, first.rekeyed()),
+                () -> assertEquals(0, second.rekeyed(), "Expected a second pass to keep the new id"),
+                () -> assertEquals(UserShards.bucketOf("sam"), UserShards.bucketOf(moved.id())),
+                () -> assertEquals(Optional.of(moved), targetRepository.fetchById(moved.id())),
+                () -> assertEquals(1, count(target, "sam"), "Expected a second pass to update instead of inserting again"),
+                () -> assertEquals(1, sourceJdbc.queryForObject("SELECT revoked FROM refresh_tokens WHERE user_id = 1", Integer.class))
+        );
+    }
+
+    @Test
+    public void prune_deletesUsersRemovedFromSource_ifCalledAfterCopy() {
+        UserShards source = shards(1);
+        UserRepository sourceRepository = repository(source);
+        User sam = sourceRepository.save(new User(0, "sam", "hashed123"));
+        sourceRepository.save(new User(0, "alex", "hashed321"));
+
+        UserShards target = shards(2);
+        UserResharder resharder = new UserResharder(source, target);
+        resharder.copy();
+        sourceRepository.delete(sam.id());
+
+        long pruned = resharder.prune();
+        UserRepository targetRepository = repository(target);
+
+        assertAll(
+                () -> assertEquals(1, pruned),
+                () -> assertThrows(UserNotFoundException.class, () -> targetRepository.fetchByUsername("sam")),
+                () -> assertEquals("alex", targetRepository.fetchByUsername("alex").username())
+        );
+    }
+
+    @Test
+    public void listPage_returnsEveryUserOnceInCreationOrder_ifPagedAcrossShards() {
+        UserRepository repository = repository(shards(3));
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 0);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // Several users per second, inserted out of order, so the id breaks ties
+            users.add(new User(0, "user" + i, "hash" + i, start.plusSeconds((i * 37 % 100) / 7)));
+        }
+        repository.importAll(users);
+
+        List<User> paged = new ArrayList<>();
+        List<User> page = new ArrayList<>();
+        do {
+            page.clear();
+            User last = paged.isEmpty() ? null : paged.getLast();
+            repository.listPage(null, last == null ? null : last.createdAt(), last == null ? 0 : last.id(), 9, page::add);
+            paged.addAll(page);
+        } while (!page.isEmpty());
+
+        List<User> expected = new ArrayList<>();
+        repository.exportAll(expected::add);
+        expected.sort(Comparator.comparing(User::createdAt).thenComparingInt(User::id));
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void listPage_returnsPrefixMatches_ifPrefixEndsInMaximalChar() {
+        UserRepository repository = repository(shards(1));
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 10, 0);
+        repository.importAll(List.of(
+                new User(0, "ab\uFFFF", "hash", createdAt),
+                new User(0, "ab\uFFFFz", "hash", createdAt),
+                new User(0, "ab\uD83D\uDE00", "hash", createdAt),
+                new User(0, "ac", "hash", createdAt)));
+
+        List<String> maximal = new ArrayList<>();
+        repository.listPage("ab\uFFFF", null, 0, 10, user -> maximal.add(user.username()));
+        List<String> all = new ArrayList<>();
+        repository.listPage("ab", null, 0, 10, user -> all.add(user.username()));
+
+        assertAll(
+                () -> assertEquals(List.of("ab\uFFFF", "ab\uFFFFz"), maximal),
+                () -> assertEquals(3, all.size(), "Expected every ab user, got " + all),
+                () -> assertEquals("ac", UserRepository.prefixUpperBound("ab")),
+                () -> assertEquals("ab\uE000", UserRepository.prefixUpperBound("ab\uD7FF")),
+                () -> assertNull(UserRepository.prefixUpperBound("\uDBFF\uDFFF"))
+        );
+    }
+
+    @Test
+    public void listPage_seeksThroughCreatedAtIndex_ifPositionGiven() {
+        DatabaseAccess shard = shards(1).get(0);
+
+        List<String> plan = shard.reads().query(
+                "EXPLAIN QUERY PLAN SELECT id, username, password, created_at FROM users "
+                        + "WHERE 1 = 1 AND (created_at, id) > (?, ?) ORDER BY created_at, id LIMIT ?",
+                (rs, rowNum) -> rs.getString("detail"), "2024-03-01 10:00:00", 42, 50);
+
+        assertAll(
+                () -> assertTrue(plan.stream().anyMatch(step -> step.contains("USING INDEX idx_users_created_at_id (")),
+                        "Expected a seek into the index, got " + plan),
+                () -> assertTrue(plan.stream().noneMatch(step -> step.contains("TEMP B-TREE")), "Expected no sort, got " + plan)
+        );
+    }
+
+    private UserShards shards(int count) {
+        List<DatabaseAccess> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            try {
+                Path file = Files.createTempFile("login-shard", ".db");
+                databaseFiles.add(file);
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setJdbcUrl("jdbc:sqlite:" + file);
+                dataSource.setMaximumPoolSize(1);
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+                dataSources.add(dataSource);
+                shards.add(DatabaseAccess.direct(new JdbcTemplate(dataSource)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return new UserShards(shards);
+    }
+
+    private static UserRepository repository(UserShards shards) {
+        return new UserRepository(shards, UserCache.disabled(), UsernameBloomFilter.disabled(), Metrics.globalRegistry);
+    }
+
+    private static long allocated(DatabaseAccess shard) {
+        Long allocated = shard.reads().queryForObject("SELECT allocated FROM user_id_sequence", Long.class);
+        return allocated == null ? 0 : allocated;
+    }
+
+    private static int count(DatabaseAccess shard, String username) {
+        Integer count = shard.reads().queryForObject("SELECT COUNT(*) FROM users WHERE username = ?", Integer.class, username);
+        return count == null ? 0 : count;
+    }
+
+    private static int count(UserShards shards, String username) {
+        return shards.all().stream().mapToInt(shard -> count(shard, username)).sum();
+    }
+}
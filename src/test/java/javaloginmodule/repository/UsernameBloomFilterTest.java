@@ -0,0 +1,88 @@
+package javaloginmodule.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UsernameBloomFilterTest {
+
+    @Test
+    public void mightContain_returnsTrue_forEveryAddedUsername() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(true, 10_000, 0.01);
+        filter.markReady();
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("user" + i), "Expected no false negatives");
+        }
+    }
+
+    @Test
+    public void mightContain_staysNearConfiguredFalsePositiveRate() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(true, 10_000, 0.01);
+        filter.markReady();
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("attacker" + i)) falsePositives++;
+        }
+
+        double rate = falsePositives / 100_000.0;
+        long definiteMisses = 100_000 - falsePositives;
+        assertAll(
+                () -> assertTrue(rate < 0.02, "False positive rate too high: " + rate),
+                () -> assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.005),
+                () -> assertEquals(definiteMisses, filter.getDefiniteMisses())
+        );
+    }
+
+    @Test
+    public void mightContain_returnsTrue_untilReady() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(true, 1_000, 0.01);
+
+        assertTrue(filter.mightContain("sam"), "Expected every lookup to pass while the filter is loading");
+
+        filter.markReady();
+        assertFalse(filter.mightContain("sam"));
+    }
+
+    @Test
+    public void mightContain_returnsFalse_ifUsernameIsNull() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(true, 1_000, 0.01);
+
+        filter.put(null);
+        filter.markReady();
+
+        assertAll(
+                () -> assertFalse(filter.mightContain(null)),
+                () -> assertEquals(0, filter.getInsertions())
+        );
+    }
+
+    @Test
+    public void reset_sizesForCurrentUsers() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(true, 1_000, 0.01);
+
+        filter.reset(50_000);
+
+        assertAll(
+                () -> assertEquals(100_000, filter.getCapacity()),
+                () -> assertEquals(7, filter.getHashFunctions()),
+                () -> assertTrue(filter.getMemoryBytes() >= filter.getBitSize() / 8)
+        );
+    }
+
+    @Test
+    public void mightContain_returnsTrue_ifDisabled() {
+        UsernameBloomFilter filter = UsernameBloomFilter.disabled();
+        filter.markReady();
+
+        assertTrue(filter.mightContain("sam"));
+    }
+}
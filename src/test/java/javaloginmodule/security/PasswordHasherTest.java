@@ -4,6 +4,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Duration;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -43,4 +46,92 @@ public class PasswordHasherTest {
         assertThrows(IllegalArgumentException.class, () -> passwordHasher.hash(null));
     }
 
+    @Test
+    public void needsRehash_returnsTrue_ifHashCostIsBelowStrength() {
+        BCryptPasswordHasher weakHasher = new BCryptPasswordHasher(4);
+        BCryptPasswordHasher strongerHasher = new BCryptPasswordHasher(5);
+        String hash = weakHasher.hash("hashBrown123");
+
+        assertAll(
+                () -> assertFalse(weakHasher.needsRehash(hash), "Expected hash at the active cost to be kept"),
+                () -> assertTrue(strongerHasher.needsRehash(hash), "Expected hash at a lower cost to be rehashed"),
+                () -> assertFalse(weakHasher.needsRehash(strongerHasher.hash("hashBrown123")), "Expected hash at a higher cost to be kept"),
+                () -> assertFalse(strongerHasher.needsRehash("not-a-bcrypt-hash"), "Expected unknown formats to be left alone")
+        );
+    }
+
+    @Test
+    public void verify_matchesOnlyOwnPassword_ifMemoryHardAlgorithm() {
+        Argon2PasswordHasher argon2 = new Argon2PasswordHasher(1024, 1, 1);
+        ScryptPasswordHasher scrypt = new ScryptPasswordHasher(10, 8, 1);
+        String argon2Hash = argon2.hash("hashBrown123");
+        String scryptHash = scrypt.hash("hashBrown123");
+
+        assertAll(
+                () -> assertTrue(argon2Hash.startsWith("$argon2id$v=19$m=1024,t=1,p=1$")),
+                () -> assertTrue(argon2.verify("hashBrown123", argon2Hash)),
+                () -> assertFalse(argon2.verify("hashBrown321", argon2Hash)),
+                () -> assertTrue(scryptHash.startsWith("$scrypt$ln=10,r=8,p=1$")),
+                () -> assertTrue(scrypt.verify("hashBrown123", scryptHash)),
+                () -> assertFalse(scrypt.verify("hashBrown321", scryptHash)),
+                () -> assertTrue(new Argon2PasswordHasher(2048, 1, 1).needsRehash(argon2Hash), "Expected other memory cost to be rehashed"),
+                () -> assertFalse(argon2.verify("hashBrown123", "$argon2id$v=19$m=oops$$"), "Expected malformed hashes to fail")
+        );
+    }
+
+    @Test
+    public void delegatingHasher_verifiesEveryAlgorithm_ifTableHoldsMixedHashes() {
+        BCryptPasswordHasher bcrypt = new BCryptPasswordHasher(4);
+        Argon2PasswordHasher argon2 = new Argon2PasswordHasher(1024, 1, 1);
+        ScryptPasswordHasher scrypt = new ScryptPasswordHasher(10, 8, 1);
+        DelegatingPasswordHasher hasher = new DelegatingPasswordHasher("argon2id", List.of(bcrypt, argon2, scrypt));
+        String bcryptHash = bcrypt.hash("hashBrown123");
+        String scryptHash = scrypt.hash("hashBrown123");
+        String activeHash = hasher.hash("hashBrown123");
+
+        assertAll(
+                () -> assertTrue(hasher.verify("hashBrown123", bcryptHash)),
+                () -> assertTrue(hasher.verify("hashBrown123", scryptHash)),
+                () -> assertTrue(hasher.verify("hashBrown123", activeHash)),
+                () -> assertFalse(hasher.verify("hashBrown123", "plain-text")),
+                () -> assertTrue(activeHash.startsWith("$argon2id$")),
+                () -> assertTrue(hasher.needsRehash(bcryptHash), "Expected hashes of other algorithms to migrate"),
+                () -> assertFalse(hasher.needsRehash(activeHash)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DelegatingPasswordHasher("md5", List.of(bcrypt)))
+        );
+    }
+
+    @Test
+    public void accepts_rejectsHashes_ifParametersOrLengthsAreOutOfBounds() {
+        BCryptPasswordHasher bcrypt = new BCryptPasswordHasher(4);
+        Argon2PasswordHasher argon2 = new Argon2PasswordHasher(1024, 1, 1);
+        ScryptPasswordHasher scrypt = new ScryptPasswordHasher(10, 8, 1);
+        DelegatingPasswordHasher hasher = new DelegatingPasswordHasher("bcrypt", List.of(bcrypt, argon2, scrypt));
+        String bcryptHash = bcrypt.hash("hashBrown123");
+        String argon2Hash = argon2.hash("hashBrown123");
+        String scryptHash = scrypt.hash("hashBrown123");
+        String argon2Tail = argon2Hash.substring(argon2Hash.indexOf("$", "$argon2id$v=19$".length()));
+        String scryptTail = scryptHash.substring(scryptHash.indexOf("$", "$scrypt$".length()));
+
+        assertAll(
+                () -> assertTrue(hasher.accepts(bcryptHash)),
+                () -> assertTrue(hasher.accepts(argon2Hash)),
+                () -> assertTrue(hasher.accepts(scryptHash)),
+                () -> assertFalse(hasher.accepts("$2a$31$" + bcryptHash.substring(7)), "Expected a BCrypt cost beyond calibration to be refused"),
+                () -> assertFalse(hasher.accepts("$argon2id$v=19$m=2000000000,t=1,p=1" + argon2Tail)),
+                () -> assertFalse(hasher.accepts("$argon2id$v=19$m=1024,t=1000,p=1" + argon2Tail)),
+                () -> assertFalse(hasher.accepts("$scrypt$ln=24,r=1000000,p=1" + scryptTail)),
+                () -> assertFalse(hasher.accepts("$scrypt$ln=10,r=8,p=1000" + scryptTail)),
+                () -> assertFalse(hasher.accepts(argon2Hash.substring(0, argon2Hash.lastIndexOf('$') + 1) + "AA"), "Expected a 1-byte hash to be refused"),
+                () -> assertFalse(hasher.accepts(scryptHash.substring(0, scryptHash.lastIndexOf('$') + 1) + "AA")),
+                () -> assertFalse(argon2.verify("hashBrown123", "$argon2id$v=19$m=2000000000,t=1,p=1" + argon2Tail)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new ScryptPasswordHasher(24, 8, 1))
+        );
+    }
+
+    @Test
+    public void calibrate_neverReturnsLessThanDefaultStrength() {
+        int strength = BCryptPasswordHasher.calibrate(Duration.ofMillis(1));
+        assertEquals(10, strength);
+    }
 }
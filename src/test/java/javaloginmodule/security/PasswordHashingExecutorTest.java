@@ -0,0 +1,123 @@
+package javaloginmodule.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javaloginmodule.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordHashingExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, meterRegistry);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void execute_returnsTaskResult() {
+        String result = executor.execute(() -> "hashed");
+
+        assertAll(
+                () -> assertEquals("hashed", result),
+                () -> assertEquals(1, executor.getCompletedCount())
+        );
+    }
+
+    @Test
+    public void execute_rethrowsTaskException() {
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            throw new IllegalArgumentException("Password cannot be null");
+        }));
+    }
+
+    @Test
+    public void execute_throwsServiceUnavailableException_ifQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Object> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Expected first task to start");
+
+        CompletableFuture<Object> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> null));
+        while (executor.getQueueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        try {
+            assertThrows(ServiceUnavailableException.class, () -> executor.execute(() -> null));
+            assertEquals(1, executor.getRejectedCount());
+        } finally {
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(meterRegistry.get("auth.hashing.wait").timer().max(TimeUnit.NANOSECONDS) > 0,
+                "Expected queued task to record wait time");
+    }
+
+    @Test
+    public void execute_runsOnPlatformThread_ifCalledFromVirtualThread() throws Exception {
+        CompletableFuture<Boolean> hashedOnVirtual = new CompletableFuture<>();
+
+        Thread caller = Thread.ofVirtual().start(() ->
+                hashedOnVirtual.complete(executor.execute(() -> Thread.currentThread().isVirtual())));
+        caller.join(5000);
+
+        assertFalse(hashedOnVirtual.get(5, TimeUnit.SECONDS), "Expected hashing to run on a platform thread");
+    }
+
+    @Test
+    public void executeAll_returnsResultsInOrder_ifTasksExceedQueueCapacity() {
+        List<Callable<Integer>> tasks = IntStream.range(0, 20)
+                .mapToObj(i -> (Callable<Integer>) () -> i * 2)
+                .toList();
+
+        List<Integer> results = executor.executeAll(tasks);
+
+        assertAll(
+                () -> assertEquals(IntStream.range(0, 20).map(i -> i * 2).boxed().toList(), results),
+                () -> assertEquals(0, executor.getRejectedCount(), "Expected bulk work to wait instead of being rejected")
+        );
+    }
+
+    @Test
+    public void executeAsync_failsWithServiceUnavailableException_ifQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> running = executor.executeAsync(() -> {
+            release.await();
+            return null;
+        });
+        CompletableFuture<String> queued = executor.executeAsync(() -> "hashed");
+        CompletableFuture<String> rejected = executor.executeAsync(() -> "hashed");
+
+        try {
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ServiceUnavailableException.class, failure.getCause());
+        } finally {
+            release.countDown();
+        }
+        running.get(5, TimeUnit.SECONDS);
+
+        assertAll(
+                () -> assertEquals("hashed", queued.get(5, TimeUnit.SECONDS)),
+                () -> assertEquals(1, executor.getRejectedCount())
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package javaloginmodule.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RevokedTokenIndexTest {
+
+    @Test
+    public void contains_returnsTrue_ifTokenWasRevoked() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+        index.add(42, 1_000, 0);
+
+        assertAll(
+                () -> assertTrue(index.contains(42)),
+                () -> assertFalse(index.contains(43)),
+                () -> assertEquals(1, index.size())
+        );
+    }
+
+    @Test
+    public void add_keepsEveryLiveToken_ifTableGrows() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+        for (long id = 1; id <= 10_000; id++) {
+            index.add(id, 1_000, 0);
+        }
+
+        for (long id = 1; id <= 10_000; id++) {
+            assertTrue(index.contains(id), "Expected token " + id + " to stay revoked");
+        }
+        assertAll(
+                () -> assertFalse(index.contains(10_001)),
+                () -> assertTrue(index.capacity() >= 20_000, "Expected the table to stay at most half full")
+        );
+    }
+
+    @Test
+    public void add_dropsExpiredTokens_ifTableIsRebuilt() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+        for (long id = 1; id <= 1_000; id++) {
+            index.add(id, 100, 0);
+        }
+
+        // Enough later additions to force a rebuild after the first batch has expired
+        for (long id = 1_001; id <= 4_000; id++) {
+            index.add(id, 1_000, 200);
+        }
+
+        assertAll(
+                () -> assertFalse(index.contains(1)),
+                () -> assertTrue(index.contains(4_000)),
+                () -> assertEquals(3_000, index.size(), "Expected only unexpired ids to be kept")
+        );
+    }
+
+    @Test
+    public void add_ignoresToken_ifAlreadyExpired() {
+        RevokedTokenIndex index = new RevokedTokenIndex();
+        index.add(7, 100, 100);
+
+        assertAll(
+                () -> assertFalse(index.contains(7)),
+                () -> assertEquals(0, index.size())
+        );
+    }
+}
@@ -0,0 +1,93 @@
+package javaloginmodule.security;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.repository.SigningKeyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SigningKeyStoreTest {
+    private static final Duration INTERVAL = Duration.ofHours(1);
+
+    private Path databaseFile;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("login-signing-keys", ".db");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile);
+        dataSource.setMaximumPoolSize(1);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dataSource.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Test
+    public void jwks_isIdenticalOnEveryNode_ifStoreIsShared() {
+        EcSigningKeyRing first = new EcSigningKeyRing(INTERVAL, store("shared-secret"));
+        EcSigningKeyRing second = new EcSigningKeyRing(INTERVAL, store("shared-secret"));
+        EcSigningKeyRing.SigningKey signing = first.current(System.currentTimeMillis());
+
+        assertAll(
+                () -> assertEquals(first.jwks(), second.jwks()),
+                () -> assertEquals(signing.keyId(), second.current(System.currentTimeMillis()).keyId()),
+                () -> assertEquals(signing.publicKey(), second.getPublicKeyById(signing.keyId())),
+                () -> assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM signing_keys", Integer.class))
+        );
+    }
+
+    @Test
+    public void constructor_keepsSealedKeys_ifRestarted() {
+        EcSigningKeyRing.SigningKey before = new EcSigningKeyRing(INTERVAL, store("shared-secret")).current(System.currentTimeMillis());
+        String stored = jdbcTemplate.queryForObject("SELECT private_key FROM signing_keys WHERE key_id = ?", String.class, before.keyId());
+
+        EcSigningKeyRing restarted = new EcSigningKeyRing(INTERVAL, store("shared-secret"));
+
+        assertAll(
+                () -> assertEquals(before.keyId(), restarted.current(System.currentTimeMillis()).keyId()),
+                () -> assertEquals(before.privateKey(), restarted.getPrivateKey()),
+                () -> assertFalse(stored.contains(Base64.getEncoder().encodeToString(before.privateKey().getEncoded())),
+                        "Expected the private key to be stored sealed"),
+                () -> assertThrows(IllegalStateException.class, () -> new EcSigningKeyRing(INTERVAL, store("other-secret")))
+        );
+    }
+
+    @Test
+    public void getPublicKeyById_reloadsRing_ifAnotherNodeRotated() {
+        EcSigningKeyRing first = new EcSigningKeyRing(INTERVAL, store("shared-secret"));
+        EcSigningKeyRing second = new EcSigningKeyRing(INTERVAL, store("shared-secret"));
+        String retired = first.current(System.currentTimeMillis()).keyId();
+
+        first.rotate();
+        first.rotate();
+        EcSigningKeyRing.SigningKey signing = first.current(System.currentTimeMillis());
+
+        assertAll(
+                () -> assertEquals(signing.publicKey(), second.getPublicKeyById(signing.keyId()),
+                        "Expected a key unknown to this node to be loaded from the store"),
+                () -> assertEquals(first.jwks(), second.jwks()),
+                () -> assertNull(second.getPublicKeyById(retired))
+        );
+    }
+
+    private SqliteSigningKeyStore store(String jwtSecret) {
+        return new SqliteSigningKeyStore(new SigningKeyRepository(jdbcTemplate), jwtSecret);
+    }
+}
@@ -0,0 +1,58 @@
+package javaloginmodule.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTableTest {
+
+    @Test
+    public void tryAcquire_rejectsOnceCapacityIsSpent() {
+        TokenBucketTable table = new TokenBucketTable(64, 3, 1);
+
+        assertAll(
+                () -> assertTrue(table.tryAcquire("sam", 0)),
+                () -> assertTrue(table.tryAcquire("sam", 0)),
+                () -> assertTrue(table.tryAcquire("sam", 0)),
+                () -> assertFalse(table.tryAcquire("sam", 0)),
+                () -> assertTrue(table.tryAcquire("alex", 0), "Expected other keys to have their own bucket")
+        );
+    }
+
+    @Test
+    public void tryAcquire_allowsAgain_ifBucketHasRefilled() {
+        TokenBucketTable table = new TokenBucketTable(64, 1, 2);
+        assertTrue(table.tryAcquire("sam", 0));
+        assertFalse(table.tryAcquire("sam", TimeUnit.MILLISECONDS.toNanos(100)));
+
+        assertTrue(table.tryAcquire("sam", TimeUnit.MILLISECONDS.toNanos(600)), "Expected a token after half a second at 2 per second");
+    }
+
+    @Test
+    public void tryAcquire_keepsTableSize_ifManyKeysAreSeen() {
+        TokenBucketTable table = new TokenBucketTable(64, 1, 1);
+
+        for (int i = 0; i < 10_000; i++) {
+            table.tryAcquire("user" + i, i);
+        }
+
+        assertAll(
+                () -> assertEquals(64, table.slots()),
+                () -> assertTrue(table.evictions() > 0, "Expected least recently used buckets to be replaced")
+        );
+    }
+
+    @Test
+    public void tryAcquire_doesNotCountEviction_ifReplacedBucketWasIdle() {
+        TokenBucketTable table = new TokenBucketTable(4, 1, 1);
+        for (int i = 0; i < 4; i++) {
+            table.tryAcquire("user" + i, 0);
+        }
+
+        table.tryAcquire("late", TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(0, table.evictions(), "Expected buckets idle past a full refill to be reused silently");
+    }
+}
@@ -0,0 +1,137 @@
+package javaloginmodule.security;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.repository.TokenRevocationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRevocationStoreTest {
+
+    private Path databaseFile;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("login-revocations", ".db");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile);
+        dataSource.setMaximumPoolSize(1);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dataSource.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Test
+    public void isRevoked_rejectsOnlyTokensIssuedBeforeCutoff_ifUserRevoked() {
+        InMemoryTokenRevocationStore store = new InMemoryTokenRevocationStore(Duration.ofMinutes(16));
+
+        store.revokeIssuedBefore(7, 1_000);
+        store.revokeIssuedBefore(7, 500);
+
+        assertAll(
+                () -> assertTrue(store.isRevoked(7, 999)),
+                () -> assertFalse(store.isRevoked(7, 1_000), "Expected a token issued at the cut-off to stay valid"),
+                () -> assertFalse(store.isRevoked(8, 0), "Expected other users to be unaffected"),
+                () -> assertTrue(store.isRevoked(7, 700), "Expected an older cut-off not to replace a newer one")
+        );
+    }
+
+    @Test
+    public void revokeIssuedBefore_dropsExpiredCutoffs_ifTableGrows() {
+        InMemoryTokenRevocationStore store = new InMemoryTokenRevocationStore(Duration.ofMinutes(16));
+        long expired = nowMicros() - TimeUnit.MINUTES.toMicros(20);
+
+        for (int userId = 1; userId <= 10_000; userId++) {
+            store.revokeIssuedBefore(userId, expired);
+        }
+        store.revokeIssuedBefore(20_000, nowMicros());
+
+        assertAll(
+                () -> assertTrue(store.capacity() <= 64, "Expected expired cut-offs not to grow the table"),
+                () -> assertTrue(store.isRevoked(20_000, 0)),
+                () -> assertTrue(store.size() <= 32)
+        );
+    }
+
+    @Test
+    public void isRevoked_seesRevocationFromOtherNode_afterPoll() throws Exception {
+        Duration never = Duration.ofHours(1);
+        try (SqliteTokenRevocationStore first = new SqliteTokenRevocationStore(repository(), Duration.ofMinutes(16), never);
+             SqliteTokenRevocationStore second = new SqliteTokenRevocationStore(repository(), Duration.ofMinutes(16), never)) {
+            long cutoff = nowMicros();
+
+            first.revokeIssuedBefore(7, cutoff);
+            boolean beforePoll = second.isRevoked(7, cutoff - 1);
+            second.poll();
+
+            assertAll(
+                    () -> assertTrue(first.isRevoked(7, cutoff - 1), "Expected the revoking node to apply it at once"),
+                    () -> assertFalse(beforePoll),
+                    () -> assertTrue(second.isRevoked(7, cutoff - 1)),
+                    () -> assertEquals(1, second.getVersion()),
+                    () -> assertFalse(second.isRevoked(7, cutoff))
+            );
+        }
+    }
+
+    @Test
+    public void poll_passesRevokedUserToCallback_ifOtherNodeRevoked() throws Exception {
+        Duration never = Duration.ofHours(1);
+        List<Integer> revoked = new ArrayList<>();
+        try (SqliteTokenRevocationStore first = new SqliteTokenRevocationStore(repository(), Duration.ofMinutes(16), never);
+             SqliteTokenRevocationStore second = new SqliteTokenRevocationStore(repository(), Duration.ofMinutes(16), never,
+                     revoked::add)) {
+            first.revokeIssuedBefore(7, nowMicros());
+            boolean beforePoll = revoked.isEmpty();
+            second.poll();
+
+            assertAll(
+                    () -> assertTrue(beforePoll),
+                    () -> assertEquals(List.of(7), revoked)
+            );
+        }
+    }
+
+    @Test
+    public void constructor_loadsRecentRevocationsAndPrunesExpiredOnes_ifRowsExist() throws Exception {
+        long now = nowMicros();
+        long expired = now - TimeUnit.MINUTES.toMicros(20);
+        repository().insert(7, now);
+        repository().insert(8, expired);
+
+        try (SqliteTokenRevocationStore store = new SqliteTokenRevocationStore(repository(), Duration.ofMinutes(16), Duration.ofHours(1))) {
+            assertAll(
+                    () -> assertTrue(store.isRevoked(7, now - 1)),
+                    () -> assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM token_revocations", Integer.class)),
+                    () -> assertEquals(2, store.getVersion())
+            );
+        }
+    }
+
+    private TokenRevocationRepository repository() {
+        return new TokenRevocationRepository(jdbcTemplate);
+    }
+
+    private static long nowMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,175 @@
+package javaloginmodule.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javaloginmodule.model.AuditEvent;
+import javaloginmodule.repository.AuditEventRepository;
+import javaloginmodule.repository.DatabaseAccess;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuditLogTest {
+
+    private Path databaseFile;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("login-audit", ".db");
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:sqlite:" + databaseFile);
+        dataSource.setMaximumPoolSize(1);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dataSource.close();
+        Files.deleteIfExists(databaseFile);
+    }
+
+    @Test
+    public void drainTo_returnsEveryEventOnceInOrder_ifManyProducersPublish() throws Exception {
+        AuditRingBuffer buffer = new AuditRingBuffer(64);
+        int producers = 8;
+        int perProducer = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            String producer = "producer-" + p;
+            executor.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.tryPublish(i, AuditEvent.Type.LOGIN, AuditEvent.Outcome.SUCCESS, i, producer, null)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+
+        List<AuditEvent> drained = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (drained.size() < producers * perProducer && System.nanoTime() < deadline) {
+            if (buffer.drainTo(drained, 32) == 0) Thread.yield();
+        }
+        executor.shutdown();
+
+        int[] next = new int[producers];
+        boolean ordered = true;
+        for (AuditEvent event : drained) {
+            int producer = Integer.parseInt(event.username().substring("producer-".length()));
+            ordered &= event.userId() == next[producer]++;
+        }
+        boolean perProducerOrder = ordered;
+        assertAll(
+                () -> assertEquals(producers * perProducer, drained.size()),
+                () -> assertTrue(perProducerOrder, "Expected each producer's events in publish order"),
+                () -> assertEquals(0, buffer.size())
+        );
+    }
+
+    @Test
+    public void tryPublish_returnsFalse_ifBufferIsFull() {
+        AuditRingBuffer buffer = new AuditRingBuffer(4);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            assertTrue(buffer.tryPublish(i, AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS, i, "sam", null));
+        }
+
+        boolean overflow = buffer.tryPublish(0, AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS, 0, "sam", null);
+        List<AuditEvent> drained = new ArrayList<>();
+        buffer.drainTo(drained, 1);
+
+        assertAll(
+                () -> assertFalse(overflow),
+                () -> assertTrue(buffer.tryPublish(0, AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS, 0, "sam", null),
+                        "Expected the drained slot to be reused")
+        );
+    }
+
+    @Test
+    public void close_retriesBatch_ifInsertFailsOnce() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        AuditEventRepository flaky = new AuditEventRepository(jdbcTemplate) {
+            @Override
+            public void insertAll(List<AuditEvent> events) {
+                if (attempts.incrementAndGet() == 1) throw new IllegalStateException("database is locked");
+                super.insertAll(events);
+            }
+        };
+        AuditLog auditLog = new AuditLog(true, 64, 16, "block", 1000, flaky);
+        auditLog.record(AuditEvent.Type.LOGIN, AuditEvent.Outcome.SUCCESS, 42, "sam", null);
+
+        auditLog.close();
+
+        assertAll(
+                () -> assertEquals(2, attempts.get()),
+                () -> assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_events", Integer.class)),
+                () -> assertEquals(1, auditLog.getWrittenCount()),
+                () -> assertEquals(0, auditLog.getFailedCount())
+        );
+    }
+
+    @Test
+    public void close_writesEveryPendingEvent_ifShutDown() throws Exception {
+        AuditLog auditLog = new AuditLog(true, 1024, 100, "block", 1000, new AuditEventRepository(jdbcTemplate));
+        for (int i = 0; i < 500; i++) {
+            auditLog.record(AuditEvent.Type.LOGIN, AuditEvent.Outcome.DENIED, "sam", "203.0.113.7");
+        }
+        auditLog.record(AuditEvent.Type.REGISTER, AuditEvent.Outcome.SUCCESS, 42, "alex", null);
+
+        auditLog.close();
+
+        assertAll(
+                () -> assertEquals(501, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_events", Integer.class)),
+                () -> assertEquals(42, jdbcTemplate.queryForObject("SELECT user_id FROM auth_events WHERE username = 'alex'", Integer.class)),
+                () -> assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_events WHERE username = 'sam' AND user_id IS NOT NULL", Integer.class)),
+                () -> assertEquals(501, auditLog.getWrittenCount()),
+                () -> assertTrue(auditLog.getBatchCount() >= 5, "Expected batches of at most 100 events")
+        );
+    }
+
+    @Test
+    public void record_dropsInsteadOfWaiting_ifBufferFullAndPolicyIsDrop() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AuditEventRepository stalled = new AuditEventRepository(DatabaseAccess.direct(jdbcTemplate)) {
+            @Override
+            public void insertAll(List<AuditEvent> events) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.insertAll(events);
+            }
+        };
+        AuditLog auditLog = new AuditLog(true, 8, 8, "drop", 1, stalled);
+
+        for (int i = 0; i < 100; i++) {
+            auditLog.record(AuditEvent.Type.LOGIN, AuditEvent.Outcome.DENIED, "sam", null);
+        }
+        long dropped = auditLog.getDroppedCount();
+        release.countDown();
+        auditLog.close();
+
+        long written = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_events", Long.class);
+        assertAll(
+                () -> assertTrue(dropped >= 100 - 16, "Expected events beyond the buffer and one stalled batch to be dropped"),
+                () -> assertEquals(100, written + dropped)
+        );
+    }
+}
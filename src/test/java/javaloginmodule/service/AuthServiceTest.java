@@ -2,21 +2,32 @@ package javaloginmodule.service;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import javaloginmodule.exceptions.*;
 import javaloginmodule.model.*;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.security.LoginThrottle;
+import javaloginmodule.security.PasswordHashingExecutor;
 import javaloginmodule.security.TokenService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import javaloginmodule.repository.AuditEventRepository;
+import javaloginmodule.repository.RefreshTokenRepository;
 import javaloginmodule.repository.UserRepository;
+import javaloginmodule.repository.UserShards;
 import javaloginmodule.security.PasswordHasher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,20 +38,27 @@ public class AuthServiceTest {
     private final UserRepository repository;
     private final PasswordHasher passwordHasher;
     private final TokenService tokenService;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final RefreshTokenService refreshTokenService;
     private final JdbcTemplate jdbcTemplate;
     private AuthService service;
 
     @Autowired
-    public AuthServiceTest(UserRepository repository, PasswordHasher passwordHasher, TokenService tokenService, JdbcTemplate jdbcTemplate) {
+    public AuthServiceTest(UserRepository repository, PasswordHasher passwordHasher, TokenService tokenService,
+                           PasswordHashingExecutor hashingExecutor, RefreshTokenService refreshTokenService,
+                           JdbcTemplate jdbcTemplate) {
         this.repository = repository;
         this.passwordHasher = passwordHasher;
         this.tokenService = tokenService;
+        this.hashingExecutor = hashingExecutor;
+        this.refreshTokenService = refreshTokenService;
         this.jdbcTemplate = jdbcTemplate;
     }
 
     @BeforeEach
     public void setUp() {
-        service = new AuthService(repository, passwordHasher, tokenService);
+        service = new AuthService(repository, passwordHasher, tokenService, hashingExecutor, refreshTokenService);
+        jdbcTemplate.execute("DELETE FROM refresh_tokens");
         jdbcTemplate.execute("DELETE FROM users");
     }
 
@@ -84,6 +102,28 @@ public class AuthServiceTest {
         assertThrows(BadRequestException.class, () -> service.register(request));
     }
 
+    @Test
+    public void registerAll_reportsEachUserInOrder_ifSomeAreInvalidOrTaken() {
+        service.register(new UserRequest("sam", "password123"));
+        List<BulkRegistrationResult> results = new ArrayList<>();
+
+        service.registerAll(List.of(
+                new UserRequest("alex", "password123"),
+                new UserRequest("sam", "password456"),
+                new UserRequest("peter", null),
+                new UserRequest("alex", "password789")
+        ).iterator(), results::add);
+
+        assertAll(
+                () -> assertEquals(List.of("alex", "sam", "peter", "alex"), results.stream().map(BulkRegistrationResult::username).toList()),
+                () -> assertEquals(List.of(BulkRegistrationResult.Status.CREATED, BulkRegistrationResult.Status.CONFLICT,
+                                BulkRegistrationResult.Status.INVALID, BulkRegistrationResult.Status.CONFLICT),
+                        results.stream().map(BulkRegistrationResult::status).toList()),
+                () -> assertEquals(repository.fetchByUsername("alex").id(), results.get(0).id()),
+                () -> assertTrue(passwordHasher.verify("password123", repository.fetchByUsername("alex").passwordHash()))
+        );
+    }
+
     @Test
     public void authenticate_returnAuthResponse_ifValidCredentials() {
         String username = "sam";
@@ -114,6 +154,234 @@ public class AuthServiceTest {
         assertThrows(InvalidCredentialsException.class, () -> service.authenticate(badRequest));
     }
 
+    @Test
+    public void attemptLogin_returnsRejection_ifUserUnknownOrPasswordWrong() {
+        service.register(new UserRequest("sam", "password123"));
+
+        AuthOutcome unknown = service.attemptLogin(new UserRequest("pedro", "password123"), null);
+        AuthOutcome wrongPassword = service.attemptLogin(new UserRequest("sam", "abc123"), null);
+        AuthOutcome authenticated = service.attemptLogin(new UserRequest("sam", "password123"), null);
+
+        assertAll(
+                () -> assertEquals(new AuthOutcome.UnknownUser("pedro"), unknown),
+                () -> assertSame(AuthOutcome.INVALID_CREDENTIALS, wrongPassword),
+                () -> assertEquals("sam", assertInstanceOf(AuthOutcome.Authenticated.class, authenticated).response().user().username())
+        );
+    }
+
+    @Test
+    public void attemptLogin_throwsBadRequestException_ifUsernameIsMissing() {
+        service.register(new UserRequest("sam", "password123"));
+
+        assertAll(
+                () -> assertThrows(BadRequestException.class, () -> service.attemptLogin(new UserRequest(null, "password123"), null)),
+                () -> assertThrows(BadRequestException.class, () -> service.attemptLogin(new UserRequest(" ", "password123"), null)),
+                () -> assertThrows(BadRequestException.class, () -> service.attemptLogin(new UserRequest("sam", null), null)),
+                () -> assertTrue(repository.findByUsername(null).isEmpty())
+        );
+    }
+
+    @Test
+    public void attemptLogin_appendsAuditEvents_ifAuditLogEnabled() throws Exception {
+        jdbcTemplate.execute("DELETE FROM auth_events");
+        AuditLog auditLog = new AuditLog(true, 64, 16, "block", 1, new AuditEventRepository(jdbcTemplate));
+        AuthService auditedService = new AuthService(repository, passwordHasher, tokenService, hashingExecutor,
+                LoginThrottle.disabled(), refreshTokenService, auditLog, new SimpleMeterRegistry());
+
+        UserDetailsResponse registration = auditedService.register(new UserRequest("sam", "password123"));
+        auditedService.attemptLogin(new UserRequest("sam", "abc123"), "203.0.113.7");
+        auditedService.attemptLogin(new UserRequest("sam", "password123"), "203.0.113.7");
+        auditLog.close();
+
+        List<String> events = jdbcTemplate.queryForList(
+                "SELECT event_type || ':' || outcome || ':' || COALESCE(CAST(user_id AS VARCHAR), '-') FROM auth_events ORDER BY id", String.class);
+        assertEquals(List.of(
+                "REGISTER:SUCCESS:" + registration.id(),
+                "LOGIN:DENIED:-",
+                "LOGIN:SUCCESS:" + registration.id()), events);
+    }
+
+    @Test
+    public void updatePassword_auditsFailureUnderTokenUser_ifUserIsGone() throws Exception {
+        jdbcTemplate.execute("DELETE FROM auth_events");
+        AuditLog auditLog = new AuditLog(true, 64, 16, "block", 1, new AuditEventRepository(jdbcTemplate));
+        AuthService auditedService = new AuthService(repository, passwordHasher, tokenService, hashingExecutor,
+                LoginThrottle.disabled(), refreshTokenService, auditLog, new SimpleMeterRegistry());
+        User user = repository.save(new User(0, "sam", passwordHasher.hash("password123")));
+        Token token = new Token(tokenService.generateToken(user));
+        repository.delete(user.id());
+
+        assertThrows(UserNotFoundException.class, () -> auditedService.updatePassword(token, "newPassword123"));
+        assertThrows(UnauthorizedAccessException.class, () -> auditedService.delete(token));
+        assertThrows(UnauthorizedAccessException.class, () -> auditedService.delete(new Token("invalid.token.value")));
+        auditLog.close();
+
+        List<String> events = jdbcTemplate.queryForList(
+                "SELECT event_type || ':' || COALESCE(CAST(user_id AS VARCHAR), '-') || ':' || COALESCE(username, '-') FROM auth_events ORDER BY id", String.class);
+        assertEquals(List.of(
+                "UPDATE_PASSWORD:" + user.id() + ":sam",
+                "DELETE:" + user.id() + ":sam",
+                "DELETE:-:-"), events);
+    }
+
+    @Test
+    public void authenticate_rehashesStoredPassword_ifCostIsOffTarget() {
+        String username = "sam";
+        String weakHash = new BCryptPasswordHasher(4).hash("password123");
+        repository.save(new User(0, username, weakHash));
+        assertTrue(passwordHasher.needsRehash(weakHash), "Expected weak hash to be off-target");
+
+        AuthResponse authentication = service.authenticate(new UserRequest(username, "password123"));
+
+        User rehashedUser = repository.fetchByUsername(username);
+        assertAll(
+                () -> assertEquals(username, authentication.user().username()),
+                () -> assertNotEquals(weakHash, rehashedUser.passwordHash(), "Expected stored hash to be replaced"),
+                () -> assertFalse(passwordHasher.needsRehash(rehashedUser.passwordHash()), "Expected hash at the active cost"),
+                () -> assertTrue(passwordHasher.verify("password123", rehashedUser.passwordHash()))
+        );
+    }
+
+    @Test
+    public void authenticate_recordsSuccessAndFailureSeparately_ifMeterRegistryGiven() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AuthService meteredService = new AuthService(repository, passwordHasher, tokenService, hashingExecutor,
+                LoginThrottle.disabled(), refreshTokenService, meterRegistry);
+        meteredService.register(new UserRequest("sam", "password123"));
+
+        meteredService.authenticate(new UserRequest("sam", "password123"));
+        assertThrows(InvalidCredentialsException.class, () -> meteredService.authenticate(new UserRequest("sam", "wrong")));
+        assertThrows(InvalidCredentialsException.class, () -> meteredService.authenticate(new UserRequest("sam", "wrong")));
+
+        assertAll(
+                () -> assertEquals(1, meterRegistry.get("auth.operation").tags("operation", "login", "outcome", "success").timer().count()),
+                () -> assertEquals(2, meterRegistry.get("auth.operation").tags("operation", "login", "outcome", "failure").timer().count()),
+                () -> assertEquals(1, meterRegistry.get("auth.operation").tags("operation", "register", "outcome", "success").timer().count())
+        );
+    }
+
+    @Test
+    public void authenticate_throwsTooManyRequestsWithoutHashing_ifUsernameIsFlooded() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BCryptPasswordHasher meteredHasher = new BCryptPasswordHasher(4, meterRegistry);
+        LoginThrottle throttle = new LoginThrottle(true, 1024, 3, 1, 1000, 1);
+        AuthService throttledService = new AuthService(repository, meteredHasher, tokenService, hashingExecutor, throttle,
+                refreshTokenService, meterRegistry);
+        throttledService.register(new UserRequest("sam", "password123"));
+
+        int rejected = 0;
+        for (int i = 0; i < 200; i++) {
+            try {
+                throttledService.authenticate(new UserRequest("sam", "wrong"), "203.0.113.7");
+            } catch (InvalidCredentialsException e) {
+                // Allowed through to BCrypt
+            } catch (TooManyRequestsException e) {
+                rejected++;
+            }
+        }
+
+        int rejectedAttempts = rejected;
+        assertAll(
+                () -> assertEquals(197, rejectedAttempts),
+                () -> assertEquals(3, meterRegistry.get("auth.password.verify").timer().count(), "Expected hashing to stop at the bucket capacity"),
+                () -> assertEquals(197, throttle.getRejectedByUsernameCount()),
+                () -> assertThrows(TooManyRequestsException.class,
+                        () -> throttledService.authenticate(new UserRequest("sam", "password123"), "198.51.100.1"))
+        );
+    }
+
+    @Test
+    public void refresh_returnsNewTokenPair_ifRefreshTokenIsValid() {
+        service.register(new UserRequest("sam", "password123"));
+        AuthResponse login = service.authenticate(new UserRequest("sam", "password123"));
+
+        AuthResponse refreshed = service.refresh(login.refreshToken());
+
+        assertAll(
+                () -> assertEquals("sam", refreshed.user().username()),
+                () -> assertTrue(tokenService.verifyToken(refreshed.token().value()).isPresent()),
+                () -> assertNotEquals(login.refreshToken().value(), refreshed.refreshToken().value()),
+                () -> assertTrue(tokenService.verifyToken(login.refreshToken().value()).isEmpty(),
+                        "Expected refresh tokens to be rejected as access tokens")
+        );
+    }
+
+    @Test
+    public void refresh_revokesTokenFamily_ifRefreshTokenIsReused() {
+        service.register(new UserRequest("sam", "password123"));
+        AuthResponse login = service.authenticate(new UserRequest("sam", "password123"));
+        AuthResponse refreshed = service.refresh(login.refreshToken());
+
+        assertThrows(UnauthorizedAccessException.class, () -> service.refresh(login.refreshToken()));
+        assertThrows(UnauthorizedAccessException.class, () -> service.refresh(refreshed.refreshToken()),
+                "Expected the successor to be revoked along with the replayed token");
+    }
+
+    @Test
+    public void refresh_throwsUnauthorizedAccessException_ifIdNowBelongsToAnotherUser() {
+        User sam = repository.save(new User(0, "sam", "hashed123"));
+        Token refreshToken = refreshTokenService.issue(sam);
+        // An import keeps an id only for a username in the same bucket
+        String other = IntStream.range(0, 10_000).mapToObj(i -> "user" + i)
+                .filter(username -> UserShards.bucketOf(username) == UserShards.bucketOf("sam"))
+                .findFirst().orElseThrow();
+        repository.delete(sam.id());
+        repository.importAll(List.of(new User(sam.id(), other, "hashed321")));
+
+        assertEquals(other, repository.fetchById(sam.id()).orElseThrow().username(), "Fixture needs another user under sam's id");
+        assertThrows(UnauthorizedAccessException.class, () -> service.refresh(refreshToken));
+    }
+
+    @Test
+    public void issue_prunesExpiredRefreshTokens_ifPruneIntervalElapsed() {
+        User sam = repository.save(new User(0, "sam", "hashed123"));
+        RefreshTokenRepository refreshTokenRepository = new RefreshTokenRepository(jdbcTemplate);
+        refreshTokenRepository.insert(sam.id(), 1, System.currentTimeMillis() - 1_000);
+        RefreshTokenService pruning = new RefreshTokenService(refreshTokenRepository, tokenService, Duration.ofDays(30), Duration.ZERO);
+
+        pruning.issue(sam);
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Integer.class),
+                "Expected only the new token to remain");
+    }
+
+    @Test
+    public void logout_revokesRefreshToken_ifRefreshTokenIsValid() {
+        service.register(new UserRequest("sam", "password123"));
+        AuthResponse login = service.authenticate(new UserRequest("sam", "password123"));
+
+        service.logout(login.refreshToken());
+
+        assertThrows(UnauthorizedAccessException.class, () -> service.refresh(login.refreshToken()));
+    }
+
+    @Test
+    public void updatePassword_revokesRefreshTokens_ifPasswordChanges() {
+        service.register(new UserRequest("sam", "password123"));
+        AuthResponse login = service.authenticate(new UserRequest("sam", "password123"));
+
+        AuthResponse updated = service.updatePassword(login.token(), "newPassword321");
+
+        assertAll(
+                () -> assertThrows(UnauthorizedAccessException.class, () -> service.refresh(login.refreshToken())),
+                () -> assertEquals("sam", service.refresh(updated.refreshToken()).user().username())
+        );
+    }
+
+    @Test
+    public void updatePassword_revokesAccessTokens_ifPasswordChanges() {
+        service.register(new UserRequest("sam", "password123"));
+        AuthResponse login = service.authenticate(new UserRequest("sam", "password123"));
+
+        AuthResponse updated = service.updatePassword(login.token(), "newPassword321");
+
+        assertAll(
+                () -> assertTrue(tokenService.verifyToken(login.token().value()).isEmpty(), "Expected the old access token to be revoked"),
+                () -> assertThrows(UnauthorizedAccessException.class, () -> service.updatePassword(login.token(), "stolen123")),
+                () -> assertTrue(tokenService.verifyToken(updated.token().value()).isPresent(), "Expected the new access token to work")
+        );
+    }
+
     @Test
     public void updatePassword_returnAuthResponse_ifAuthenticatedAndUserExists() {
         String username = "sam";
@@ -140,6 +408,21 @@ public class AuthServiceTest {
         );
     }
 
+    @Test
+    public void updatePassword_throwsUnauthorizedAccessException_ifTokenUsernameDoesNotMatchUser() {
+        service.register(new UserRequest("alex", "password123"));
+        User alex = repository.fetchByUsername("alex");
+
+        // A token issued to an earlier holder of a reused id
+        Token staleToken = new Token(tokenService.generateToken(new User(alex.id(), "sam", "hashedPassword")));
+
+        assertAll(
+                () -> assertThrows(UnauthorizedAccessException.class, () -> service.updatePassword(staleToken, "newPassword321")),
+                () -> assertThrows(UnauthorizedAccessException.class, () -> service.delete(staleToken)),
+                () -> assertEquals(alex, repository.fetchByUsername("alex"))
+        );
+    }
+
     @Test
     public void updatePassword_throwsUnauthorizedAccessException_ifTokenIsInvalid() {
         Token token = new Token("invalid.token.value");
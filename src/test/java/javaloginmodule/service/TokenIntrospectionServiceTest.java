@@ -0,0 +1,71 @@
+package javaloginmodule.service;
+
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.TokenIntrospection;
+import javaloginmodule.model.User;
+import javaloginmodule.security.JWTTokenService;
+import javaloginmodule.security.RefreshTokenClaims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenIntrospectionServiceTest {
+
+    private final JWTTokenService tokenService = new JWTTokenService("introspection-secret");
+    private final TokenIntrospectionService service = new TokenIntrospectionService(tokenService, 4, 1000, 8);
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void introspect_returnsClaimsPerToken_ifTokensAreMixed() {
+        String valid = tokenService.generateToken(new User(7, "sam", "hashedPassword"));
+        String refresh = tokenService.generateRefreshToken(new RefreshTokenClaims(1, 7, "sam", 1, System.currentTimeMillis() + 60_000));
+
+        List<TokenIntrospection> results = service.introspect(Arrays.asList(valid, "not-a-jwt", refresh, null));
+
+        assertAll(
+                () -> assertEquals(4, results.size()),
+                () -> assertTrue(results.get(0).active()),
+                () -> assertEquals("7", results.get(0).sub()),
+                () -> assertEquals("sam", results.get(0).username()),
+                () -> assertTrue(results.get(0).exp() > System.currentTimeMillis() / 1000, "Expected expiry in epoch seconds"),
+                () -> assertEquals(TokenIntrospection.inactive(), results.get(1)),
+                () -> assertFalse(results.get(2).active(), "Expected refresh tokens to be inactive as access tokens"),
+                () -> assertFalse(results.get(3).active())
+        );
+    }
+
+    @Test
+    public void introspect_keepsRequestOrder_ifBatchIsSplitAcrossWorkers() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            tokens.add(i % 5 == 0 ? "invalid-" + i : tokenService.generateToken(new User(i, "user" + i, "hashedPassword")));
+        }
+
+        List<TokenIntrospection> results = service.introspect(tokens);
+
+        for (int i = 1; i <= 500; i++) {
+            TokenIntrospection result = results.get(i - 1);
+            if (i % 5 == 0) {
+                assertFalse(result.active(), "Expected token " + i + " to be inactive");
+            } else {
+                assertEquals(String.valueOf(i), result.sub(), "Expected result " + i + " to match its token");
+            }
+        }
+    }
+
+    @Test
+    public void introspect_throwsBadRequestException_ifBatchIsTooLarge() {
+        List<String> tokens = Collections.nCopies(1001, "token");
+        assertThrows(BadRequestException.class, () -> service.introspect(tokens));
+    }
+}
@@ -1,11 +1,27 @@
 package javaloginmodule.service;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import javaloginmodule.model.User;
+import javaloginmodule.security.JWTTokenService;
 import javaloginmodule.security.TokenService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.KeyFactory;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,4 +59,116 @@ public class TokenServiceTest {
                 () -> assertEquals("Expected subject to be user ID as String", String.valueOf(user.id()), result.get())
         );
     }
+
+    @Test
+    public void verifyToken_servesRepeatedTokenFromCache_ifCacheEnabled() {
+        JWTTokenService service = new JWTTokenService("cache-secret", 16);
+        String token = service.generateToken(new User(7, "sam", "hashedPassword"));
+
+        Optional<String> first = service.verifyToken(token);
+        Optional<String> second = service.verifyToken(token);
+
+        assertAll(
+                () -> assertEquals("Expected subject from first verification", "7", first.get()),
+                () -> assertEquals("Expected subject from cached verification", "7", second.get()),
+                () -> assertEquals("Expected one cache hit", 1L, service.getVerifiedTokenCache().getHits()),
+                () -> assertEquals("Expected one cache miss", 1L, service.getVerifiedTokenCache().getMisses())
+        );
+    }
+
+    @Test
+    public void verifyToken_rejectsTokensIssuedBeforeRevocation_ifUserTokensRevoked() {
+        JWTTokenService service = new JWTTokenService("revocation-secret", 16);
+        String revoked = service.generateToken(new User(7, "sam", "hashedPassword"));
+        String otherUser = service.generateToken(new User(8, "alex", "hashedPassword"));
+        assertTrue("Expected token to be valid and cached before revocation", service.verifyToken(revoked).isPresent());
+
+        service.revokeAccessTokens(7);
+        String reissued = service.generateToken(new User(7, "sam", "hashedPassword"));
+
+        assertAll(
+                () -> assertTrue("Expected cached token to be rejected after revocation", service.verifyToken(revoked).isEmpty()),
+                () -> assertTrue("Expected token issued after revocation to be valid", service.verifyToken(reissued).isPresent()),
+                () -> assertTrue("Expected other users' tokens to stay valid", service.verifyToken(otherUser).isPresent())
+        );
+    }
+
+    @Test
+    public void verifyToken_rejectsOldTokens_ifSecretIsRotated() {
+        JWTTokenService service = new JWTTokenService("old-secret", 16);
+        String oldToken = service.generateToken(new User(1, "sam", "hashedPassword"));
+        assertTrue("Expected token to be valid before rotation", service.verifyToken(oldToken).isPresent());
+
+        service.rotateSecret("new-secret");
+        String newToken = service.generateToken(new User(1, "sam", "hashedPassword"));
+
+        assertAll(
+                () -> assertTrue("Expected cached token to be rejected after rotation", service.verifyToken(oldToken).isEmpty()),
+                () -> assertTrue("Expected token signed with new secret to be valid", service.verifyToken(newToken).isPresent())
+        );
+    }
+
+    @Test
+    public void verifyToken_acceptsTokenFromPreviousKey_ifSigningKeyIsRotatedOnce() {
+        JWTTokenService service = es256Service();
+        String oldToken = service.generateToken(new User(1, "sam", "hashedPassword"));
+
+        service.rotateSigningKey();
+        String newToken = service.generateToken(new User(1, "sam", "hashedPassword"));
+
+        assertAll(
+                () -> assertNotEquals(JWT.decode(oldToken).getKeyId(), JWT.decode(newToken).getKeyId()),
+                () -> assertTrue("Expected token from the previous key to stay valid", service.verifyToken(oldToken).isPresent()),
+                () -> assertTrue("Expected token from the new key to be valid", service.verifyToken(newToken).isPresent())
+        );
+    }
+
+    @Test
+    public void verifyToken_rejectsTokenFromRetiredKey_ifSigningKeyIsRotatedTwice() {
+        JWTTokenService service = es256Service();
+        String oldToken = service.generateToken(new User(1, "sam", "hashedPassword"));
+
+        service.rotateSigningKey();
+        service.rotateSigningKey();
+
+        assertTrue("Expected token from a retired key to be rejected", service.verifyToken(oldToken).isEmpty());
+    }
+
+    @Test
+    public void jwks_verifiesTokenWithoutSharedSecret_ifSignedWithES256() throws Exception {
+        JWTTokenService service = es256Service();
+        String token = service.generateToken(new User(5, "sam", "hashedPassword"));
+
+        // A downstream service only sees the published key set
+        JsonNode keys = new ObjectMapper().readTree(service.getKeyRing().get().jwks()).get("keys");
+        String keyId = JWT.decode(token).getKeyId();
+        JsonNode jwk = null;
+        for (JsonNode key : keys) {
+            if (key.get("kid").asText().equals(keyId)) jwk = key;
+        }
+        assertNotNull(jwk, "Expected signing key to be published");
+
+        ECPublicKey publicKey = publicKey(jwk.get("x").asText(), jwk.get("y").asText());
+        String subject = JWT.require(Algorithm.ECDSA256(publicKey, null)).withIssuer("login-app").build()
+                .verify(token).getSubject();
+
+        assertAll(
+                () -> assertEquals("Expected both the current and the next key to be published", 2, keys.size()),
+                () -> assertEquals("Expected subject from locally verified token", "5", subject)
+        );
+    }
+
+    private static JWTTokenService es256Service() {
+        return new JWTTokenService("unused-secret", 0, JWTTokenService.SigningAlgorithm.ES256,
+                Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    private static ECPublicKey publicKey(String x, String y) throws Exception {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECPoint point = new ECPoint(new BigInteger(1, Base64.getUrlDecoder().decode(x)),
+                new BigInteger(1, Base64.getUrlDecoder().decode(y)));
+        ECPublicKeySpec spec = new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class));
+        return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(spec);
+    }
 }
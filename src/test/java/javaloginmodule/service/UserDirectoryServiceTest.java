@@ -0,0 +1,73 @@
+package javaloginmodule.service;
+
+import javaloginmodule.exceptions.BadRequestException;
+import javaloginmodule.model.User;
+import javaloginmodule.model.UserDetailsResponse;
+import javaloginmodule.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ActiveProfiles("test")
+@SpringBootTest
+public class UserDirectoryServiceTest {
+
+    @Autowired
+    private UserDirectoryService directoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.execute("DELETE FROM users");
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 0, 0, 250_000_000);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            users.add(new User(0, (i % 2 == 0 ? "sam" : "alex") + i, "hash", start.plusSeconds(i / 3)));
+        }
+        userRepository.importAll(users);
+    }
+
+    @Test
+    public void listUsers_pagesThroughMatchingUsersInCreationOrder_ifCursorFollowed() {
+        List<UserDetailsResponse> listed = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            cursor = directoryService.listUsers("sam", cursor, 5, listed::add);
+            cursors.add(cursor);
+        } while (cursor != null);
+
+        List<String> usernames = listed.stream().map(UserDetailsResponse::username).toList();
+        assertAll(
+                () -> assertEquals(13, listed.size()),
+                () -> assertTrue(usernames.stream().allMatch(username -> username.startsWith("sam"))),
+                () -> assertEquals(List.of("sam0", "sam2", "sam4"), usernames.subList(0, 3)),
+                () -> assertEquals("sam24", usernames.getLast()),
+                () -> assertEquals(3, cursors.size(), "Expected pages of 5, 5 and 3")
+        );
+    }
+
+    @Test
+    public void listUsers_throwsBadRequestException_ifCursorOrPageSizeIsInvalid() {
+        assertAll(
+                () -> assertThrows(BadRequestException.class, () -> directoryService.listUsers(null, "not-a-cursor", 10, user -> {})),
+                () -> assertThrows(BadRequestException.class, () -> directoryService.listUsers(null, null, 0, user -> {})),
+                () -> assertThrows(BadRequestException.class,
+                        () -> directoryService.listUsers(null, null, UserDirectoryService.MAX_PAGE_SIZE + 1, user -> {}))
+        );
+    }
+}
@@ -0,0 +1,143 @@
+package javaloginmodule.service;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Metrics;
+import javaloginmodule.model.User;
+import javaloginmodule.model.UserImportResult;
+import javaloginmodule.repository.DatabaseAccess;
+import javaloginmodule.repository.UserCache;
+import javaloginmodule.repository.UserRepository;
+import javaloginmodule.repository.UserShards;
+import javaloginmodule.repository.UsernameBloomFilter;
+import javaloginmodule.security.BCryptPasswordHasher;
+import javaloginmodule.security.PasswordHasher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserTransferServiceTest {
+
+    private static final PasswordHasher HASHER = new BCryptPasswordHasher(4);
+    private static final String HASH = HASHER.hash("Password123");
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<Path> databaseFiles = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dataSources.forEach(HikariDataSource::close);
+        for (Path file : databaseFiles) Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void importFrom_restoresUsersWithTheirHashesIdsAndCreationTimes_ifExportedFromOtherLayout() throws Exception {
+        UserRepository source = repository(shards(3));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            users.add(new User(0, "user" + i, i % 2 == 0 ? HASH : HASHER.hash("other")));
+        }
+        source.saveAll(users);
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        long exportedCount = transfer(source).exportTo(exported);
+        UserRepository target = repository(shards(1));
+        UserImportResult result = transfer(target).importFrom(new ByteArrayInputStream(exported.toByteArray()));
+
+        assertAll(
+                () -> assertEquals(2500, exportedCount),
+                () -> assertEquals(2500, exported.toString(StandardCharsets.UTF_8).lines().count(), "Expected one user per line"),
+                () -> assertEquals(new UserImportResult(2500, 2500, 0, 0), result),
+                () -> assertEquals(allUsers(source), allUsers(target))
+        );
+    }
+
+    @Test
+    public void importFrom_countsExistingAndInvalidUsers_ifImportedTwice() throws Exception {
+        UserRepository target = repository(shards(2));
+        String ndjson = String.join("\n",
+                "{\"id\":0,\"username\":\"sam\",\"passwordHash\":\"" + HASH + "\",\"createdAt\":\"2024-03-01T10:15:30\"}",
+                "{\"id\":0,\"username\":\"alex\",\"passwordHash\":\"" + HASH + "\"}",
+                "{\"id\":0,\"username\":\"peter\",\"passwordHash\":\"plaintext\"}",
+                "{\"id\":0,\"passwordHash\":\"" + HASH + "\"}",
+                "{\"id\":0,\"username\":\"kim\",\"passwordHash\":\"$2a$31$" + HASH.substring(7) + "\"}");
+
+        UserImportResult first = transfer(target).importFrom(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        UserImportResult second = transfer(target).importFrom(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertAll(
+                () -> assertEquals(new UserImportResult(5, 2, 0, 3), first),
+                () -> assertEquals(new UserImportResult(5, 0, 2, 3), second),
+                () -> assertEquals(HASH, target.fetchByUsername("sam").passwordHash(), "Expected the hash to be stored as exported"),
+                () -> assertEquals("2024-03-01T10:15:30", target.fetchByUsername("sam").createdAt().toString()),
+                () -> assertNotNull(target.fetchByUsername("alex").createdAt())
+        );
+    }
+
+    @Test
+    public void importFrom_givesNewIdInSameBucket_ifIdIsTaken() throws Exception {
+        UserShards shards = shards(1);
+        UserRepository target = repository(shards);
+        int id = UserShards.BUCKETS * 5 + UserShards.bucketOf("sam");
+        shards.get(0).reads().update("INSERT INTO users (id, username, password) VALUES (?, 'alex', ?)", id, HASH);
+
+        String line = "{\"id\":" + id + ",\"username\":\"sam\",\"passwordHash\":\"" + HASH + "\"}";
+        transfer(target).importFrom(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)));
+
+        User sam = target.fetchByUsername("sam");
+        assertAll(
+                () -> assertNotEquals(id, sam.id()),
+                () -> assertEquals(UserShards.bucketOf("sam"), UserShards.bucketOf(sam.id())),
+                () -> assertEquals("alex", target.fetchById(id).orElseThrow().username())
+        );
+    }
+
+    private static UserTransferService transfer(UserRepository repository) {
+        return new UserTransferService(repository, HASHER,
+                JsonMapper.builder().findAndAddModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+    }
+
+    private static List<User> allUsers(UserRepository repository) {
+        List<User> users = new ArrayList<>();
+        repository.exportAll(users::add);
+        users.sort(Comparator.comparingInt(User::id));
+        return users;
+    }
+
+    private UserShards shards(int count) {
+        List<DatabaseAccess> shards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            try {
+                Path file = Files.createTempFile("login-transfer", ".db");
+                databaseFiles.add(file);
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setJdbcUrl("jdbc:sqlite:" + file);
+                dataSource.setMaximumPoolSize(1);
+                new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+                dataSources.add(dataSource);
+                shards.add(DatabaseAccess.direct(new JdbcTemplate(dataSource)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return new UserShards(shards);
+    }
+
+    private static UserRepository repository(UserShards shards) {
+        return new UserRepository(shards, UserCache.disabled(), UsernameBloomFilter.disabled(), Metrics.globalRegistry);
+    }
+}